@@ -0,0 +1,81 @@
+package pw.angelo.stock.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.service.shard.ShardedStockStore;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Increments spread over many stocks from eight threads, by number of shards,
+ * and listing every stock through the parallel scatter-gather.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShardedStockStoreBenchmark {
+
+    private static final int STOCKS = 1024;
+
+    @Param({"1", "2", "4", "8"})
+    private int shards;
+
+    private ShardedStockStore shardedStockStore;
+    private long[] stockIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // no Spring context here to configure logging, and per statement debug output would dominate
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(ch.qos.logback.classic.Level.INFO);
+        StockProperties stockProperties = new StockProperties();
+        stockProperties.getSharding().setShards(shards);
+        stockProperties.getSharding().setUrlTemplate("jdbc:h2:mem:shard-benchmark-" + UUID.randomUUID() + "-%d;DB_CLOSE_DELAY=-1");
+        shardedStockStore = new ShardedStockStore(stockProperties);
+        List<StockDTO> stocks = StockBenchmarkContext.stocks(STOCKS);
+        stockIds = new long[STOCKS];
+        for (int i = 0; i < STOCKS; i++) {
+            StockDTO stock = stocks.get(i);
+            stock.setMax(Integer.MAX_VALUE);
+            stock.setQuantity(0);
+            stockIds[i] = shardedStockStore.create(stock).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        shardedStockStore.close();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public StockDTO increment() throws Exception {
+        return shardedStockStore.increment(stockIds[ThreadLocalRandom.current().nextInt(STOCKS)], 1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<StockDTO> findAll() {
+        return shardedStockStore.findAll();
+    }
+}
@@ -0,0 +1,49 @@
+package pw.angelo.stock.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import pw.angelo.stock.StockApplication;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.enums.StockType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+final class StockBenchmarkContext {
+
+    private StockBenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        // passed as arguments, since default properties lose to application.properties
+        String[] args = Arrays.stream(properties)
+                .map(property -> "--" + property)
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(StockApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=warn", "spring.jpa.show-sql=false")
+                .run(args);
+    }
+
+    static StockDTO stock(String name, int max, int quantity) {
+        return StockDTO.builder()
+                .name(name)
+                .brand("Ambev")
+                .max(max)
+                .quantity(quantity)
+                .type(StockType.LAGER)
+                .build();
+    }
+
+    static List<StockDTO> stocks(int count) {
+        List<StockDTO> stockDTOs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StockDTO stockDTO = stock("stock-" + i, 50, i % 50);
+            stockDTO.setId((long) i + 1);
+            stockDTOs.add(stockDTO);
+        }
+        return stockDTOs;
+    }
+}
@@ -0,0 +1,79 @@
+package pw.angelo.stock.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pw.angelo.stock.dto.StockColumnsDTO;
+import pw.angelo.stock.dto.StockDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes the catalog as served by {@code GET /api/v1/stock} in each supported
+ * shape. Payload sizes are printed once per trial since JMH only reports time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockEncodingBenchmark {
+
+    @Param({"json", "json-gzip", "cbor", "cbor-gzip", "columnar", "columnar-gzip"})
+    private String encoding;
+
+    @Param({"100000"})
+    private int rows;
+
+    private ObjectWriter writer;
+    private Object catalog;
+    private boolean gzip;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<StockDTO> stockDTOs = StockBenchmarkContext.stocks(rows);
+        boolean cbor = encoding.startsWith("cbor");
+        ObjectMapper objectMapper = cbor ? new ObjectMapper(new CBORFactory()) : new ObjectMapper();
+        if (encoding.startsWith("columnar")) {
+            StockColumnsDTO columns = new StockColumnsDTO();
+            stockDTOs.forEach(columns::add);
+            writer = objectMapper.writerFor(StockColumnsDTO.class);
+            catalog = columns;
+        } else {
+            writer = objectMapper.writerFor(new TypeReference<List<StockDTO>>() {
+            });
+            catalog = stockDTOs;
+        }
+        gzip = encoding.endsWith("gzip");
+        System.out.printf("%n%s payload for %d rows: %d bytes%n", encoding, rows, encode().length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        if (!gzip) {
+            return writer.writeValueAsBytes(catalog);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(bytes)) {
+            writer.writeValue(gzipStream, catalog);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,47 @@
+package pw.angelo.stock.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pw.angelo.stock.dto.StockDTO;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StockJsonBenchmark {
+
+    @Param({"1", "1000"})
+    private int size;
+
+    private ObjectWriter stockListWriter;
+    private List<StockDTO> stockDTOs;
+
+    @Setup
+    public void setUp() {
+        stockListWriter = new ObjectMapper().writerFor(new TypeReference<List<StockDTO>>() {
+        });
+        stockDTOs = StockBenchmarkContext.stocks(size);
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws Exception {
+        return stockListWriter.writeValueAsBytes(stockDTOs);
+    }
+}
@@ -0,0 +1,56 @@
+package pw.angelo.stock.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.service.StockBulkService;
+import pw.angelo.stock.service.StockService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockListingBenchmark {
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private StockService stockService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = StockBenchmarkContext.start();
+        stockService = context.getBean(StockService.class);
+        List<StockDTO> stockDTOs = StockBenchmarkContext.stocks(rows);
+        stockDTOs.forEach(stockDTO -> stockDTO.setId(null));
+        context.getBean(StockBulkService.class).createStocks(stockDTOs.iterator());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<StockDTO> listAll() {
+        return stockService.listAll();
+    }
+}
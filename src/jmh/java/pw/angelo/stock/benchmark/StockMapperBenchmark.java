@@ -0,0 +1,47 @@
+package pw.angelo.stock.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.mapper.StockMapper;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StockMapperBenchmark {
+
+    private final StockMapper stockMapper = StockMapper.INSTANCE;
+
+    private StockDTO stockDTO;
+    private Stock stock;
+
+    @Setup
+    public void setUp() {
+        stockDTO = StockBenchmarkContext.stocks(1).get(0);
+        stock = stockMapper.toModel(stockDTO);
+    }
+
+    @Benchmark
+    public StockDTO toDTO() {
+        return stockMapper.toDTO(stock);
+    }
+
+    @Benchmark
+    public Stock toModel() {
+        return stockMapper.toModel(stockDTO);
+    }
+}
@@ -0,0 +1,56 @@
+package pw.angelo.stock.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pw.angelo.stock.service.autocomplete.StockNameTrie;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class StockNameTrieBenchmark {
+
+    private static final String[] WORDS = {"Brahma", "Skol", "Heineken", "Colorado", "Bohemia", "Eisenbahn", "Baden", "Stella"};
+
+    @Param({"1000000"})
+    private int names;
+
+    private StockNameTrie stockNameTrie;
+
+    @Setup
+    public void setUp() {
+        stockNameTrie = new StockNameTrie();
+        for (int i = 0; i < names; i++) {
+            stockNameTrie.add(WORDS[i % WORDS.length] + " " + i);
+        }
+    }
+
+    @Benchmark
+    public List<String> completePrefix() {
+        return stockNameTrie.complete("heineken 12", 10);
+    }
+
+    @Benchmark
+    public List<String> completeWithOneTypo() {
+        return stockNameTrie.completeApproximately("hienek", 1, 10);
+    }
+
+    @Benchmark
+    public List<String> completeWithTwoTypos() {
+        return stockNameTrie.completeApproximately("heinkeen 12", 2, 10);
+    }
+}
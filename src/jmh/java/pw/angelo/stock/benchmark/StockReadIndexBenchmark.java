@@ -0,0 +1,96 @@
+package pw.angelo.stock.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.service.StockBulkService;
+import pw.angelo.stock.service.StockService;
+import pw.angelo.stock.service.metrics.StockUnitsMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Name lookups, availability checks and the per-type units refresh served by
+ * the database, by the name cache in front of it and by the read index, over
+ * a catalog of 10000 stocks. Run with {@code -prof gc} to compare bytes per
+ * operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockReadIndexBenchmark {
+
+    private static final int STOCKS = 10_000;
+
+    @Param({"database", "cache", "index"})
+    private String readPath;
+
+    private ConfigurableApplicationContext context;
+    private StockService stockService;
+    private StockUnitsMetrics stockUnitsMetrics;
+    private String[] names;
+    private long[] ids;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = StockBenchmarkContext.start("stock.cache.enabled=" + readPath.equals("cache"),
+                "stock.read-index.enabled=" + readPath.equals("index"));
+        stockService = context.getBean(StockService.class);
+        stockUnitsMetrics = context.getBean(StockUnitsMetrics.class);
+        List<StockDTO> stockDTOs = StockBenchmarkContext.stocks(STOCKS);
+        stockDTOs.forEach(stockDTO -> stockDTO.setId(null));
+        context.getBean(StockBulkService.class).createStocks(stockDTOs.iterator());
+        List<StockDTO> created = new ArrayList<>(STOCKS);
+        stockService.streamAll(created::add);
+        names = new String[STOCKS];
+        ids = new long[STOCKS];
+        for (int i = 0; i < STOCKS; i++) {
+            names[i] = created.get(i).getName();
+            ids[i] = created.get(i).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public StockDTO findByName() throws Exception {
+        return stockService.findByName(names[nextStock()]);
+    }
+
+    @Benchmark
+    public boolean isInStock() throws Exception {
+        return stockService.isInStock(ids[nextStock()], 10);
+    }
+
+    @Benchmark
+    public void refreshUnitsByType() {
+        stockUnitsMetrics.refresh();
+    }
+
+    private int nextStock() {
+        int stock = next;
+        next = stock + 1 == STOCKS ? 0 : stock + 1;
+        return stock;
+    }
+}
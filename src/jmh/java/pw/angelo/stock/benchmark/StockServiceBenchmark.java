@@ -0,0 +1,72 @@
+package pw.angelo.stock.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.service.StockService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup by name, with and without the name cache, and increments on a single
+ * hot row from one thread and from eight.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockServiceBenchmark {
+
+    private static final String STOCK_NAME = "benchmark";
+
+    @Param({"true", "false"})
+    private boolean cacheEnabled;
+
+    private ConfigurableApplicationContext context;
+    private StockService stockService;
+    private Long stockId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = StockBenchmarkContext.start("stock.cache.enabled=" + cacheEnabled);
+        stockService = context.getBean(StockService.class);
+        stockId = stockService.createStock(StockBenchmarkContext.stock(STOCK_NAME, Integer.MAX_VALUE, 0)).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public StockDTO findByName() throws Exception {
+        return stockService.findByName(STOCK_NAME);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public StockDTO increment() throws Exception {
+        return stockService.increment(stockId, 1);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public StockDTO incrementContended() throws Exception {
+        return stockService.increment(stockId, 1);
+    }
+}
@@ -0,0 +1,288 @@
+package pw.angelo.stock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import pw.angelo.stock.enums.StockType;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stock")
+public class StockProperties {
+
+    private Increment increment = new Increment();
+
+    private Ledger ledger = new Ledger();
+
+    private Listing listing = new Listing();
+
+    private Cache cache = new Cache();
+
+    private Bulk bulk = new Bulk();
+
+    private Reservation reservation = new Reservation();
+
+    private Async async = new Async();
+
+    private Aggregates aggregates = new Aggregates();
+
+    private Autocomplete autocomplete = new Autocomplete();
+
+    private Feed feed = new Feed();
+
+    private Alerts alerts = new Alerts();
+
+    private Sync sync = new Sync();
+
+    private RateLimit rateLimit = new RateLimit();
+
+    private LoadShedding loadShedding = new LoadShedding();
+
+    private Idempotency idempotency = new Idempotency();
+
+    private Sharding sharding = new Sharding();
+
+    private Engine engine = new Engine();
+
+    private Snapshot snapshot = new Snapshot();
+
+    private ReadIndex readIndex = new ReadIndex();
+
+    @Data
+    public static class Increment {
+
+        private int maxAttempts = 3;
+    }
+
+    @Data
+    public static class Ledger {
+
+        private boolean enabled = false;
+
+        private long flushIntervalMs = 200;
+
+        private int flushThreshold = 1000;
+
+        private boolean journal = false;
+
+        private long checkpointIntervalMs = 5000;
+    }
+
+    @Data
+    public static class RateLimit {
+
+        private boolean enabled = false;
+
+        private String clientHeader = "X-Client-Id";
+
+        private boolean trustClientHeader = false;
+
+        private Limit defaultLimit = new Limit();
+
+        private Map<String, Limit> endpoints = new HashMap<>();
+
+        private int maxTrackedClients = 100_000;
+
+        private long evictionIntervalMs = 10000;
+    }
+
+    @Data
+    public static class Limit {
+
+        private double permitsPerSecond = 100;
+
+        private int burst = 200;
+    }
+
+    @Data
+    public static class LoadShedding {
+
+        private boolean enabled = false;
+
+        private int maxPendingConnections = 20;
+
+        private int maxQueuedRequests = 400;
+    }
+
+    @Data
+    public static class Idempotency {
+
+        private Duration ttl = Duration.ofHours(24);
+
+        private long maximumSize = 100_000;
+
+        private Duration inProgressTimeout = Duration.ofSeconds(30);
+
+        private boolean persistent = false;
+
+        private long purgeIntervalMs = 3_600_000;
+    }
+
+    @Data
+    public static class Snapshot {
+
+        private boolean enabled = false;
+
+        private String path = "data/stock-catalog.snapshot";
+
+        private long intervalMs = 300_000;
+
+        private boolean writeOnShutdown = true;
+    }
+
+    @Data
+    public static class ReadIndex {
+
+        private boolean enabled = false;
+
+        private int initialCapacity = 1024;
+
+        private long rebuildIntervalMs = 600_000;
+    }
+
+    @Data
+    public static class Engine {
+
+        private boolean enabled = false;
+
+        private int partitions = 4;
+
+        private int ringSize = 1024;
+
+        private int maxBatchSize = 256;
+
+        private int cachedStocks = 10_000;
+    }
+
+    @Data
+    public static class Sharding {
+
+        private boolean enabled = false;
+
+        private int shards = 4;
+
+        private String urlTemplate = "jdbc:h2:mem:stock-shard-%d;DB_CLOSE_DELAY=-1";
+
+        private String username = "sa";
+
+        private String password = "";
+
+        private int poolSize = 10;
+    }
+
+    @Data
+    public static class Sync {
+
+        private Duration overlap = Duration.ofSeconds(5);
+
+        private Duration tombstoneRetention = Duration.ofDays(7);
+
+        private long purgeIntervalMs = 3_600_000;
+    }
+
+    @Data
+    public static class Listing {
+
+        private int maxPageSize = 1000;
+    }
+
+    @Data
+    public static class Cache {
+
+        private boolean enabled = true;
+
+        private long maximumSize = 10_000;
+
+        private Duration maxStaleness = Duration.ofSeconds(5);
+
+        private boolean cacheNegativeLookups = false;
+    }
+
+    @Data
+    public static class Bulk {
+
+        private int chunkSize = 500;
+    }
+
+    @Data
+    public static class Reservation {
+
+        private Duration defaultTtl = Duration.ofMinutes(15);
+
+        private Duration maxTtl = Duration.ofHours(1);
+
+        private long sweepIntervalMs = 1000;
+    }
+
+    @Data
+    public static class Async {
+
+        private boolean enabled = false;
+
+        private int poolSize = 16;
+
+        private int queueCapacity = 500;
+    }
+
+    @Data
+    public static class Aggregates {
+
+        private double nearCapacityRatio = 0.9;
+
+        private long reconcileIntervalMs = 60000;
+    }
+
+    @Data
+    public static class Autocomplete {
+
+        private int maxDistance = 2;
+
+        private int maxLimit = 100;
+    }
+
+    @Data
+    public static class Feed {
+
+        private long dispatchIntervalMs = 250;
+
+        private int maxPendingPerSubscriber = 1000;
+
+        private Duration timeout = Duration.ofMinutes(30);
+
+        private int senderPoolSize = 4;
+    }
+
+    @Data
+    public static class Alerts {
+
+        private boolean enabled = true;
+
+        private Map<StockType, Watermarks> typeWatermarks = new HashMap<>();
+
+        private Webhook webhook = new Webhook();
+    }
+
+    @Data
+    public static class Watermarks {
+
+        private Integer low;
+
+        private Integer high;
+    }
+
+    @Data
+    public static class Webhook {
+
+        private boolean enabled = false;
+
+        private String url;
+
+        private int queueCapacity = 1000;
+
+        private Duration timeout = Duration.ofSeconds(2);
+    }
+}
@@ -11,6 +11,8 @@ import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
+import java.util.concurrent.CompletableFuture;
+
 import static springfox.documentation.builders.RequestHandlerSelectors.*;
 
 @Configuration
@@ -31,6 +33,7 @@ public class SwaggerConfig {
                 .apis(basePackage(BASE_PACKAGE))
                 .paths(PathSelectors.any())
                 .build()
+                .genericModelSubstitutes(CompletableFuture.class)
                 .apiInfo(buildApiInfo());
     }
 
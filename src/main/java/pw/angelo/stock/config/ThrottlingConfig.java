@@ -0,0 +1,24 @@
+package pw.angelo.stock.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import pw.angelo.stock.controller.WriteThrottlingInterceptor;
+
+@Configuration
+public class ThrottlingConfig implements WebMvcConfigurer {
+
+    private final WriteThrottlingInterceptor writeThrottlingInterceptor;
+
+    @Autowired
+    public ThrottlingConfig(WriteThrottlingInterceptor writeThrottlingInterceptor) {
+        this.writeThrottlingInterceptor = writeThrottlingInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(writeThrottlingInterceptor)
+                .addPathPatterns("/api/**");
+    }
+}
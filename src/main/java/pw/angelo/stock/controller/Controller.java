@@ -1,48 +1,171 @@
 package pw.angelo.stock.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
+import pw.angelo.stock.dto.BulkCreateResultDTO;
+import pw.angelo.stock.dto.StockChangeFilterDTO;
+import pw.angelo.stock.dto.StockColumnsDTO;
 import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.dto.StockLocationDTO;
+import pw.angelo.stock.dto.StockLocationsDTO;
+import pw.angelo.stock.dto.StockTransferDTO;
+import pw.angelo.stock.dto.QuantityAtDTO;
 import pw.angelo.stock.dto.QuantityDTO;
+import pw.angelo.stock.dto.StockAdjustmentRequestDTO;
+import pw.angelo.stock.dto.StockAdjustmentResultDTO;
+import pw.angelo.stock.dto.StockAggregatesDTO;
+import pw.angelo.stock.dto.StockPageDTO;
+import pw.angelo.stock.dto.StockSearchDTO;
+import pw.angelo.stock.dto.StockSearchResultDTO;
+import pw.angelo.stock.dto.StockSyncDTO;
+import pw.angelo.stock.enums.AggregateGrouping;
 import pw.angelo.stock.exception.StockAlreadyRegisteredException;
-import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.exception.StockHistoryUnavailableException;
+import pw.angelo.stock.exception.StockIdempotencyInProgressException;
+import pw.angelo.stock.exception.StockIdempotencyKeyReusedException;
 import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.service.StockAdjustmentService;
+import pw.angelo.stock.service.StockBulkService;
+import pw.angelo.stock.service.StockLocationService;
 import pw.angelo.stock.service.StockService;
+import pw.angelo.stock.service.aggregate.StockAggregates;
+import pw.angelo.stock.service.async.StockRequestExecutor;
+import pw.angelo.stock.service.autocomplete.StockNameAutocomplete;
+import pw.angelo.stock.service.feed.StockChangeFeed;
+import pw.angelo.stock.service.idempotency.StockIdempotency;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/stock")
 @AllArgsConstructor(onConstructor = @__(@Autowired))
 public class Controller implements ControllerDocs {
 
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final StockService stockService;
+    private final StockBulkService stockBulkService;
+    private final StockAdjustmentService stockAdjustmentService;
+    private final StockLocationService stockLocationService;
+    private final StockAggregates stockAggregates;
+    private final StockNameAutocomplete stockNameAutocomplete;
+    private final StockChangeFeed stockChangeFeed;
+    private final StockIdempotency stockIdempotency;
+    private final StockRequestExecutor stockRequestExecutor;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public StockDTO createBeer(@RequestBody @Valid StockDTO stockDTO) throws StockAlreadyRegisteredException {
-        return stockService.createStock(stockDTO);
+    public StockDTO createBeer(@RequestBody @Valid StockDTO stockDTO,
+                               @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey)
+            throws StockAlreadyRegisteredException, StockIdempotencyKeyReusedException, StockIdempotencyInProgressException {
+        if (idempotencyKey == null) {
+            return stockService.createStock(stockDTO);
+        }
+        return stockIdempotency.execute(idempotencyKey, "createBeer " + stockDTO, () -> stockService.createStock(stockDTO));
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BulkCreateResultDTO createBeers(@RequestBody List<StockDTO> stockDTOs) {
+        return stockBulkService.createStocks(stockDTOs.iterator());
+    }
+
+    @PostMapping(value = "/bulk", consumes = APPLICATION_NDJSON_VALUE)
+    public BulkCreateResultDTO createBeersFromStream(InputStream inputStream) throws IOException {
+        try (MappingIterator<StockDTO> stockDTOs = objectMapper.readerFor(StockDTO.class).readValues(inputStream)) {
+            return stockBulkService.createStocks(stockDTOs);
+        }
+    }
+
+    // catalog-wide reads take two segments, so no beer name is ever shadowed by them
+    @GetMapping("/catalog/aggregates")
+    public StockAggregatesDTO aggregates(@RequestParam(defaultValue = "TYPE") AggregateGrouping groupBy) {
+        return stockAggregates.aggregate(groupBy);
+    }
+
+    @GetMapping(value = "/catalog/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(StockChangeFilterDTO filter) {
+        return stockChangeFeed.subscribe(filter);
+    }
+
+    @GetMapping("/catalog/autocomplete")
+    public List<String> autocomplete(@RequestParam String prefix,
+                                     @RequestParam(defaultValue = "0") int maxDistance,
+                                     @RequestParam(defaultValue = "10") int limit) {
+        return stockNameAutocomplete.complete(prefix, maxDistance, limit);
     }
 
+    @GetMapping("/catalog/search")
+    public CompletableFuture<StockSearchResultDTO> search(@Valid StockSearchDTO criteria, @PageableDefault(size = 50, sort = "id") Pageable pageable) {
+        return stockRequestExecutor.submit(() -> stockService.search(criteria, pageable));
+    }
+
+    @GetMapping("/catalog/sync")
+    public CompletableFuture<StockSyncDTO> sync(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant since) {
+        return stockRequestExecutor.submit(() -> stockService.sync(since));
+    }
+
+    // Spring answers 304 itself when the ETag matches the request's If-None-Match
     @GetMapping("/{name}")
-    public StockDTO findByName(@PathVariable String name) throws StockNotFoundException {
-        return stockService.findByName(name);
+    public CompletableFuture<ResponseEntity<StockDTO>> findByName(@PathVariable String name) {
+        return stockRequestExecutor.submit(() -> stockService.findByName(name))
+                .thenApply(stockDTO -> ResponseEntity.ok()
+                        .eTag(eTagOf(stockDTO))
+                        .body(stockDTO));
     }
 
     @GetMapping
-    public List<StockDTO> listBeers() {
-        return stockService.listAll();
+    public CompletableFuture<List<StockDTO>> listBeers() {
+        return stockRequestExecutor.submit(stockService::listAll);
+    }
+
+    @GetMapping(params = "size")
+    public CompletableFuture<StockPageDTO> listBeersPage(@RequestParam(required = false) Long after, @RequestParam int size) {
+        return stockRequestExecutor.submit(() -> stockService.listPage(after, size));
+    }
+
+    @GetMapping(params = "shape=columnar")
+    public CompletableFuture<StockColumnsDTO> listBeersColumnar() {
+        return stockRequestExecutor.submit(stockService::listAllColumns);
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamBeers() {
+        StreamingResponseBody body = outputStream -> stockService.streamAll(stockDTO -> writeLine(outputStream, stockDTO));
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(body);
     }
 
     @DeleteMapping("/{id}")
@@ -51,8 +174,67 @@ public class Controller implements ControllerDocs {
         stockService.deleteById(id);
     }
 
+    @GetMapping("/{id}/quantity")
+    public QuantityAtDTO quantityAt(@PathVariable Long id, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant at) throws StockNotFoundException, StockHistoryUnavailableException {
+        return stockService.quantityAt(id, at);
+    }
+
+    @GetMapping("/{id}/in-stock")
+    public boolean isInStock(@PathVariable Long id, @RequestParam(defaultValue = "1") int quantity) throws StockNotFoundException {
+        return stockService.isInStock(id, quantity);
+    }
+
     @PatchMapping("/{id}/increment")
-    public StockDTO increment(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO) throws StockNotFoundException, StockExceededException {
-        return stockService.increment(id, quantityDTO.getQuantity());
+    public CompletableFuture<StockDTO> increment(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO,
+                                                 @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return stockRequestExecutor.submit(() -> stockService.increment(id, quantityDTO.getQuantity()));
+        }
+        String fingerprint = "increment " + id + " " + quantityDTO.getQuantity();
+        return stockRequestExecutor.submit(() -> stockIdempotency.execute(idempotencyKey, fingerprint, () -> stockService.increment(id, quantityDTO.getQuantity())));
+    }
+
+    @GetMapping("/{id}/locations")
+    public CompletableFuture<StockLocationsDTO> locations(@PathVariable Long id) {
+        return stockRequestExecutor.submit(() -> stockLocationService.findLocations(id));
+    }
+
+    @PutMapping("/{id}/locations/{warehouse}")
+    public CompletableFuture<StockLocationDTO> saveLocation(@PathVariable Long id, @PathVariable String warehouse, @RequestBody @Valid StockLocationDTO locationDTO) {
+        return stockRequestExecutor.submit(() -> stockLocationService.saveLocation(id, warehouse, locationDTO));
+    }
+
+    @PatchMapping("/{id}/locations/{warehouse}/increment")
+    public CompletableFuture<StockLocationDTO> incrementLocation(@PathVariable Long id, @PathVariable String warehouse, @RequestBody @Valid QuantityDTO quantityDTO) {
+        return stockRequestExecutor.submit(() -> stockLocationService.increment(id, warehouse, quantityDTO.getQuantity()));
+    }
+
+    @PatchMapping("/{id}/locations/{warehouse}/decrement")
+    public CompletableFuture<StockLocationDTO> decrementLocation(@PathVariable Long id, @PathVariable String warehouse, @RequestBody @Valid QuantityDTO quantityDTO) {
+        return stockRequestExecutor.submit(() -> stockLocationService.increment(id, warehouse, -quantityDTO.getQuantity()));
+    }
+
+    @PostMapping("/{id}/transfers")
+    public CompletableFuture<StockLocationsDTO> transfer(@PathVariable Long id, @RequestBody @Valid StockTransferDTO transferDTO) {
+        return stockRequestExecutor.submit(() -> stockLocationService.transfer(id, transferDTO));
+    }
+
+    @PatchMapping("/adjustments")
+    public CompletableFuture<StockAdjustmentResultDTO> adjust(@RequestBody @Valid StockAdjustmentRequestDTO adjustmentRequest) {
+        return stockRequestExecutor.submit(() -> stockAdjustmentService.adjust(adjustmentRequest));
+    }
+
+    private void writeLine(OutputStream outputStream, StockDTO stockDTO) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(stockDTO));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // the ledger overlays quantity changes before they bump the row version
+    private static String eTagOf(StockDTO stockDTO) {
+        return "\"" + stockDTO.getVersion() + "-" + stockDTO.getQuantity() + "\"";
     }
 }
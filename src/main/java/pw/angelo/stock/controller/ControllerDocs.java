@@ -4,35 +4,133 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import pw.angelo.stock.dto.BulkCreateResultDTO;
+import pw.angelo.stock.dto.StockChangeFilterDTO;
+import pw.angelo.stock.dto.StockColumnsDTO;
+import pw.angelo.stock.dto.QuantityAtDTO;
+import pw.angelo.stock.dto.QuantityDTO;
+import pw.angelo.stock.dto.StockAdjustmentRequestDTO;
+import pw.angelo.stock.dto.StockAdjustmentResultDTO;
+import pw.angelo.stock.dto.StockAggregatesDTO;
 import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.dto.StockLocationDTO;
+import pw.angelo.stock.dto.StockLocationsDTO;
+import pw.angelo.stock.dto.StockTransferDTO;
+import pw.angelo.stock.dto.StockPageDTO;
+import pw.angelo.stock.dto.StockSearchDTO;
+import pw.angelo.stock.dto.StockSearchResultDTO;
+import pw.angelo.stock.dto.StockSyncDTO;
+import pw.angelo.stock.enums.AggregateGrouping;
 import pw.angelo.stock.exception.StockAlreadyRegisteredException;
+import pw.angelo.stock.exception.StockHistoryUnavailableException;
+import pw.angelo.stock.exception.StockIdempotencyInProgressException;
+import pw.angelo.stock.exception.StockIdempotencyKeyReusedException;
 import pw.angelo.stock.exception.StockNotFoundException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Api("Manages beer stock")
 public interface ControllerDocs {
 
     @ApiOperation(value = "Stock creation operation")
     @ApiResponses(value = {
-            @ApiResponse(code = 201, message = "Success beer creation"),
-            @ApiResponse(code = 400, message = "Missing required fields or wrong field range value.")
+            @ApiResponse(code = 201, message = "Success beer creation, or the stored response of an earlier request with the same Idempotency-Key"),
+            @ApiResponse(code = 400, message = "Missing required fields or wrong field range value."),
+            @ApiResponse(code = 409, message = "A request with the same Idempotency-Key is still in progress."),
+            @ApiResponse(code = 422, message = "The Idempotency-Key was already used for a different request.")
     })
-    StockDTO createBeer(StockDTO stockDTO) throws StockAlreadyRegisteredException;
+    StockDTO createBeer(StockDTO stockDTO, String idempotencyKey)
+            throws StockAlreadyRegisteredException, StockIdempotencyKeyReusedException, StockIdempotencyInProgressException;
+
+    @ApiOperation(value = "Bulk stock creation operation from a JSON array")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Created beers and the names rejected with their reasons")
+    })
+    BulkCreateResultDTO createBeers(List<StockDTO> stockDTOs);
+
+    @ApiOperation(value = "Bulk stock creation operation from a newline-delimited JSON stream")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Created beers and the names rejected with their reasons")
+    })
+    BulkCreateResultDTO createBeersFromStream(InputStream inputStream) throws IOException;
+
+    @ApiOperation(value = "Returns inventory totals, fill ratio and empty and near capacity counts grouped by type, brand or both")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Overall totals and totals per group")
+    })
+    StockAggregatesDTO aggregates(AggregateGrouping groupBy);
+
+    @ApiOperation(value = "Streams beer changes as server-sent events, optionally only for the given ids, names or types")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Event stream of updated, deleted and dropped events")
+    })
+    SseEmitter changes(StockChangeFilterDTO filter);
+
+    @ApiOperation(value = "Returns beer names starting with a prefix, ignoring case, optionally within a number of typos")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Matching names, closest first")
+    })
+    List<String> autocomplete(String prefix, int maxDistance, int limit);
+
+    @ApiOperation(value = "Searches beers by brand, type, quantity range and fill level, with sorting and pagination")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Page of beers matching the filters"),
+            @ApiResponse(code = 400, message = "Invalid filter or unsupported sort property."),
+            @ApiResponse(code = 501, message = "Search is not available while stocks are sharded."),
+            @ApiResponse(code = 503, message = "Request queue is full, try again later.")
+    })
+    CompletableFuture<StockSearchResultDTO> search(StockSearchDTO criteria, Pageable pageable);
 
     @ApiOperation(value = "Returns beer found by a given name")
     @ApiResponses(value = {
-            @ApiResponse(code = 200, message = "Success beer found in the system"),
-            @ApiResponse(code = 404, message = "Stock with given name not found.")
+            @ApiResponse(code = 200, message = "Success beer found in the system, with its ETag"),
+            @ApiResponse(code = 304, message = "Beer unchanged since the ETag given in If-None-Match"),
+            @ApiResponse(code = 404, message = "Stock with given name not found."),
+            @ApiResponse(code = 503, message = "Request queue is full, try again later.")
+    })
+    CompletableFuture<ResponseEntity<StockDTO>> findByName(@PathVariable String name);
+
+    @ApiOperation(value = "Returns beers created, changed or deleted since a given instant, or all beers without one")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Changed beers, deleted beer ids and the since to use next"),
+            @ApiResponse(code = 410, message = "Deletions since the given instant are no longer kept, sync again without it."),
+            @ApiResponse(code = 501, message = "Sync since an instant is not available while stocks are sharded."),
+            @ApiResponse(code = 503, message = "Request queue is full, try again later.")
     })
-    StockDTO findByName(@PathVariable String name) throws StockNotFoundException;
+    CompletableFuture<StockSyncDTO> sync(Instant since);
 
     @ApiOperation(value = "Returns a list of all beers registered in the system")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "List of all beers registered in the system"),
     })
-    List<StockDTO> listBeers();
+    CompletableFuture<List<StockDTO>> listBeers();
+
+    @ApiOperation(value = "Returns all beers as one array per field, with field names written once")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "All beers registered in the system, by column"),
+    })
+    CompletableFuture<StockColumnsDTO> listBeersColumnar();
+
+    @ApiOperation(value = "Returns a page of beers ordered by id, starting after the given cursor")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Page of beers and the cursor of the next page, if any"),
+    })
+    CompletableFuture<StockPageDTO> listBeersPage(Long after, int size);
+
+    @ApiOperation(value = "Streams all beers registered in the system as newline-delimited JSON")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Stream of all beers registered in the system"),
+    })
+    ResponseEntity<StreamingResponseBody> streamBeers();
 
     @ApiOperation(value = "Delete a beer found by a given valid Id")
     @ApiResponses(value = {
@@ -40,4 +138,74 @@ public interface ControllerDocs {
             @ApiResponse(code = 404, message = "Stock with given id not found.")
     })
     void deleteById(@PathVariable Long id) throws StockNotFoundException;
+
+    @ApiOperation(value = "Returns the quantity a beer had at a given instant, rebuilt from its movement journal")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Quantity of the beer at the given instant"),
+            @ApiResponse(code = 400, message = "Stock movements are not being journaled."),
+            @ApiResponse(code = 404, message = "Stock with given id not found.")
+    })
+    QuantityAtDTO quantityAt(@PathVariable Long id, Instant at) throws StockNotFoundException, StockHistoryUnavailableException;
+
+    @ApiOperation(value = "Returns whether a beer holds at least the given quantity")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "True when the beer holds the quantity, false otherwise"),
+            @ApiResponse(code = 404, message = "Stock with given id not found.")
+    })
+    boolean isInStock(@PathVariable Long id, int quantity) throws StockNotFoundException;
+
+    @ApiOperation(value = "Returns the quantity of a beer at each warehouse, with totals across warehouses")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Quantities per warehouse and their totals"),
+            @ApiResponse(code = 404, message = "Stock with given id not found."),
+            @ApiResponse(code = 503, message = "Request queue is full, try again later.")
+    })
+    CompletableFuture<StockLocationsDTO> locations(@PathVariable Long id);
+
+    @ApiOperation(value = "Adds a warehouse to a beer, or changes the max it can hold there")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "The beer's quantity and max at the warehouse"),
+            @ApiResponse(code = 400, message = "Invalid max, or max below the quantity held there."),
+            @ApiResponse(code = 404, message = "Stock with given id not found."),
+            @ApiResponse(code = 503, message = "Request queue is full, try again later.")
+    })
+    CompletableFuture<StockLocationDTO> saveLocation(@PathVariable Long id, @PathVariable String warehouse, StockLocationDTO locationDTO);
+
+    @ApiOperation(value = "Increments a beer's quantity at a warehouse")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "The beer's quantity and max at the warehouse"),
+            @ApiResponse(code = 400, message = "The increment would exceed the max at the warehouse."),
+            @ApiResponse(code = 404, message = "The beer is not kept at the warehouse."),
+            @ApiResponse(code = 409, message = "The quantity kept changing concurrently, try again."),
+            @ApiResponse(code = 503, message = "Request queue is full, try again later.")
+    })
+    CompletableFuture<StockLocationDTO> incrementLocation(@PathVariable Long id, @PathVariable String warehouse, QuantityDTO quantityDTO);
+
+    @ApiOperation(value = "Decrements a beer's quantity at a warehouse")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "The beer's quantity and max at the warehouse"),
+            @ApiResponse(code = 400, message = "The warehouse holds less than the quantity to decrement."),
+            @ApiResponse(code = 404, message = "The beer is not kept at the warehouse."),
+            @ApiResponse(code = 409, message = "The quantity kept changing concurrently, try again."),
+            @ApiResponse(code = 503, message = "Request queue is full, try again later.")
+    })
+    CompletableFuture<StockLocationDTO> decrementLocation(@PathVariable Long id, @PathVariable String warehouse, QuantityDTO quantityDTO);
+
+    @ApiOperation(value = "Moves quantity of a beer from one warehouse to another in a single transaction")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Quantities per warehouse and their totals after the transfer"),
+            @ApiResponse(code = 400, message = "Invalid transfer, not enough at the source or no room at the destination."),
+            @ApiResponse(code = 404, message = "The beer is not kept at one of the warehouses."),
+            @ApiResponse(code = 503, message = "Request queue is full, try again later.")
+    })
+    CompletableFuture<StockLocationsDTO> transfer(@PathVariable Long id, StockTransferDTO transferDTO);
+
+    @ApiOperation(value = "Increments and decrements many beers in a single transaction")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Adjusted beers and, in best effort mode, the rejected adjustments"),
+            @ApiResponse(code = 400, message = "Invalid adjustments, or an adjustment was rejected in all or nothing mode."),
+            @ApiResponse(code = 501, message = "Batch adjustments are not available while stocks are sharded."),
+            @ApiResponse(code = 503, message = "Request queue is full, try again later.")
+    })
+    CompletableFuture<StockAdjustmentResultDTO> adjust(StockAdjustmentRequestDTO adjustmentRequest);
 }
@@ -0,0 +1,55 @@
+package pw.angelo.stock.controller;
+
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import pw.angelo.stock.dto.AvailabilityDTO;
+import pw.angelo.stock.dto.ReservationDTO;
+import pw.angelo.stock.dto.ReservationRequestDTO;
+import pw.angelo.stock.exception.ReservationNotFoundException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.exception.StockLedgerUnsupportedException;
+import pw.angelo.stock.exception.StockShardingUnsupportedException;
+import pw.angelo.stock.service.reservation.ReservationService;
+
+import javax.validation.Valid;
+
+@RestController
+@RequestMapping("/api/v1/stock")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class ReservationController implements ReservationControllerDocs {
+
+    private final ReservationService reservationService;
+
+    @PostMapping("/{id}/reservations")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ReservationDTO reserve(@PathVariable Long id, @RequestBody @Valid ReservationRequestDTO reservationRequestDTO)
+            throws StockNotFoundException, StockInsufficientException, StockShardingUnsupportedException, StockLedgerUnsupportedException {
+        return reservationService.reserve(id, reservationRequestDTO);
+    }
+
+    @PostMapping("/reservations/{reservationId}/confirm")
+    public ReservationDTO confirm(@PathVariable Long reservationId) throws ReservationNotFoundException, StockShardingUnsupportedException, StockLedgerUnsupportedException {
+        return reservationService.confirm(reservationId);
+    }
+
+    @DeleteMapping("/reservations/{reservationId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void release(@PathVariable Long reservationId) throws ReservationNotFoundException, StockShardingUnsupportedException, StockLedgerUnsupportedException {
+        reservationService.release(reservationId);
+    }
+
+    @GetMapping("/{id}/availability")
+    public AvailabilityDTO availability(@PathVariable Long id) throws StockNotFoundException, StockShardingUnsupportedException, StockLedgerUnsupportedException {
+        return reservationService.availability(id);
+    }
+}
@@ -0,0 +1,52 @@
+package pw.angelo.stock.controller;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.web.bind.annotation.PathVariable;
+import pw.angelo.stock.dto.AvailabilityDTO;
+import pw.angelo.stock.dto.ReservationDTO;
+import pw.angelo.stock.dto.ReservationRequestDTO;
+import pw.angelo.stock.exception.ReservationNotFoundException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.exception.StockLedgerUnsupportedException;
+import pw.angelo.stock.exception.StockShardingUnsupportedException;
+
+@Api("Manages beer stock reservations")
+public interface ReservationControllerDocs {
+
+    @ApiOperation(value = "Holds a quantity of a beer until it is confirmed, released or expires")
+    @ApiResponses(value = {
+            @ApiResponse(code = 201, message = "Success reservation creation"),
+            @ApiResponse(code = 400, message = "Missing required fields or not enough available stock."),
+            @ApiResponse(code = 404, message = "Stock with given id not found."),
+            @ApiResponse(code = 501, message = "Reservations are not available while stocks are sharded or the stock ledger is enabled.")
+    })
+    ReservationDTO reserve(@PathVariable Long id, ReservationRequestDTO reservationRequestDTO) throws StockNotFoundException, StockInsufficientException, StockShardingUnsupportedException, StockLedgerUnsupportedException;
+
+    @ApiOperation(value = "Confirms an active reservation, taking its quantity out of the stock")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success reservation confirmed"),
+            @ApiResponse(code = 404, message = "Active reservation with given id not found."),
+            @ApiResponse(code = 501, message = "Reservations are not available while stocks are sharded or the stock ledger is enabled.")
+    })
+    ReservationDTO confirm(@PathVariable Long reservationId) throws ReservationNotFoundException, StockShardingUnsupportedException, StockLedgerUnsupportedException;
+
+    @ApiOperation(value = "Releases an active reservation, making its quantity available again")
+    @ApiResponses(value = {
+            @ApiResponse(code = 204, message = "Success reservation released"),
+            @ApiResponse(code = 404, message = "Active reservation with given id not found."),
+            @ApiResponse(code = 501, message = "Reservations are not available while stocks are sharded or the stock ledger is enabled.")
+    })
+    void release(@PathVariable Long reservationId) throws ReservationNotFoundException, StockShardingUnsupportedException, StockLedgerUnsupportedException;
+
+    @ApiOperation(value = "Returns the quantity, reserved quantity and available quantity of a beer")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success beer availability found"),
+            @ApiResponse(code = 404, message = "Stock with given id not found."),
+            @ApiResponse(code = 501, message = "Reservations are not available while stocks are sharded or the stock ledger is enabled.")
+    })
+    AvailabilityDTO availability(@PathVariable Long id) throws StockNotFoundException, StockShardingUnsupportedException, StockLedgerUnsupportedException;
+}
@@ -0,0 +1,77 @@
+package pw.angelo.stock.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.exception.StockRateLimitedException;
+import pw.angelo.stock.exception.StockServiceBusyException;
+import pw.angelo.stock.service.ratelimit.StockLoadShedder;
+import pw.angelo.stock.service.ratelimit.StockRateLimiter;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Sheds and rate limits write requests before they reach a controller. The
+ * client is the remote address, or the {@code stock.rate-limit.client-header}
+ * value when {@code stock.rate-limit.trust-client-header} is set because a
+ * trusted proxy sets it, and the endpoint is the handler method name, which is
+ * also the key for per endpoint limits in {@code stock.rate-limit.endpoints}.
+ * Requests shed for load are not charged to the client's limit.
+ */
+@Component
+public class WriteThrottlingInterceptor implements HandlerInterceptor {
+
+    private final StockRateLimiter stockRateLimiter;
+    private final StockLoadShedder stockLoadShedder;
+    private final String clientHeader;
+    private final boolean trustClientHeader;
+
+    @Autowired
+    public WriteThrottlingInterceptor(StockRateLimiter stockRateLimiter, StockLoadShedder stockLoadShedder, StockProperties stockProperties) {
+        this.stockRateLimiter = stockRateLimiter;
+        this.stockLoadShedder = stockLoadShedder;
+        this.clientHeader = stockProperties.getRateLimit().getClientHeader();
+        this.trustClientHeader = stockProperties.getRateLimit().isTrustClientHeader();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws StockRateLimitedException, StockServiceBusyException {
+        // async handlers are dispatched again to write their result, which must not be charged twice
+        if (!(handler instanceof HandlerMethod) || request.getDispatcherType() != DispatcherType.REQUEST || !isWrite(request)) {
+            return true;
+        }
+        try {
+            stockLoadShedder.admit();
+        } catch (StockServiceBusyException e) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            throw e;
+        }
+        try {
+            stockRateLimiter.acquire(clientOf(request), ((HandlerMethod) handler).getMethod().getName());
+        } catch (StockRateLimitedException e) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            throw e;
+        }
+        return true;
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        if (!trustClientHeader) {
+            return request.getRemoteAddr();
+        }
+        String clientId = request.getHeader(clientHeader);
+        return clientId != null && !clientId.isBlank() ? clientId : request.getRemoteAddr();
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        HttpMethod method = HttpMethod.resolve(request.getMethod());
+        return method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH || method == HttpMethod.DELETE;
+    }
+}
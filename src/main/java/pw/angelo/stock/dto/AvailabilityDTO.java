@@ -0,0 +1,21 @@
+package pw.angelo.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityDTO {
+
+    private Long id;
+
+    private Integer quantity;
+
+    private Integer reserved;
+
+    private Integer available;
+}
@@ -0,0 +1,21 @@
+package pw.angelo.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuantityAtDTO {
+
+    private Long id;
+
+    private Instant at;
+
+    private int quantity;
+}
@@ -0,0 +1,19 @@
+package pw.angelo.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RejectedAdjustmentDTO {
+
+    private Long id;
+
+    private Integer quantity;
+
+    private String reason;
+}
@@ -0,0 +1,17 @@
+package pw.angelo.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RejectedStockDTO {
+
+    private String name;
+
+    private String reason;
+}
@@ -0,0 +1,26 @@
+package pw.angelo.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pw.angelo.stock.enums.ReservationStatus;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationDTO {
+
+    private Long id;
+
+    private Long stockId;
+
+    private Integer quantity;
+
+    private ReservationStatus status;
+
+    private Instant expiresAt;
+}
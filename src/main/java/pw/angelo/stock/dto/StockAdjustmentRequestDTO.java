@@ -0,0 +1,29 @@
+package pw.angelo.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pw.angelo.stock.enums.AdjustmentMode;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentRequestDTO {
+
+    @NotNull
+    @Builder.Default
+    private AdjustmentMode mode = AdjustmentMode.ALL_OR_NOTHING;
+
+    @Valid
+    @NotEmpty
+    @Size(max = 500)
+    private List<StockAdjustmentDTO> adjustments;
+}
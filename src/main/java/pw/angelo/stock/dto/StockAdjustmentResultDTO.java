@@ -0,0 +1,22 @@
+package pw.angelo.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentResultDTO {
+
+    @Builder.Default
+    private List<StockDTO> adjusted = new ArrayList<>();
+
+    @Builder.Default
+    private List<RejectedAdjustmentDTO> rejected = new ArrayList<>();
+}
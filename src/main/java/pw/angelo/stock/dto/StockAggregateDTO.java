@@ -0,0 +1,30 @@
+package pw.angelo.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pw.angelo.stock.enums.StockType;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAggregateDTO {
+
+    private StockType type;
+
+    private String brand;
+
+    private long items;
+
+    private long quantity;
+
+    private long max;
+
+    private double fillRatio;
+
+    private long empty;
+
+    private long nearCapacity;
+}
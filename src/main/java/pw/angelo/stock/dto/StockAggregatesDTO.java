@@ -0,0 +1,19 @@
+package pw.angelo.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAggregatesDTO {
+
+    private StockAggregateDTO totals;
+
+    private List<StockAggregateDTO> groups;
+}
@@ -0,0 +1,33 @@
+package pw.angelo.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pw.angelo.stock.enums.StockAlertType;
+import pw.angelo.stock.enums.StockType;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAlertDTO {
+
+    private Long stockId;
+
+    private String name;
+
+    private StockType type;
+
+    private StockAlertType alert;
+
+    private int quantity;
+
+    private int lowWatermark;
+
+    private int highWatermark;
+
+    private Instant at;
+}
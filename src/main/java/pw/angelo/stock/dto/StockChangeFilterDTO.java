@@ -0,0 +1,32 @@
+package pw.angelo.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pw.angelo.stock.enums.StockType;
+
+import java.util.Collections;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockChangeFilterDTO {
+
+    private Set<Long> ids = Collections.emptySet();
+
+    private Set<String> names = Collections.emptySet();
+
+    private Set<StockType> types = Collections.emptySet();
+
+    /**
+     * An empty filter matches every stock; otherwise a stock matches when its
+     * id, name or type is among the requested ones.
+     */
+    public boolean matches(StockDTO stock) {
+        if (ids.isEmpty() && names.isEmpty() && types.isEmpty()) {
+            return true;
+        }
+        return ids.contains(stock.getId()) || names.contains(stock.getName()) || types.contains(stock.getType());
+    }
+}
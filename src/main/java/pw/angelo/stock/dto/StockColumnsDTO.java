@@ -0,0 +1,47 @@
+package pw.angelo.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pw.angelo.stock.enums.StockType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The catalog as one array per field, so field names appear once per response
+ * instead of once per stock. The n-th element of every array belongs to the
+ * same stock.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockColumnsDTO {
+
+    private List<Long> id = new ArrayList<>();
+
+    private List<String> name = new ArrayList<>();
+
+    private List<String> brand = new ArrayList<>();
+
+    private List<Integer> max = new ArrayList<>();
+
+    private List<Integer> quantity = new ArrayList<>();
+
+    private List<StockType> type = new ArrayList<>();
+
+    private List<Integer> lowWatermark = new ArrayList<>();
+
+    private List<Integer> highWatermark = new ArrayList<>();
+
+    public void add(StockDTO stock) {
+        id.add(stock.getId());
+        name.add(stock.getName());
+        brand.add(stock.getBrand());
+        max.add(stock.getMax());
+        quantity.add(stock.getQuantity());
+        type.add(stock.getType());
+        lowWatermark.add(stock.getLowWatermark());
+        highWatermark.add(stock.getHighWatermark());
+    }
+}
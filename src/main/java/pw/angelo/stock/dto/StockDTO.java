@@ -1,14 +1,17 @@
 package pw.angelo.stock.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import pw.angelo.stock.dto.validation.ValidWatermarks;
 import pw.angelo.stock.enums.StockType;
 
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 
@@ -16,6 +19,7 @@ import javax.validation.constraints.Size;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@ValidWatermarks
 public class StockDTO {
 
     private Long id;
@@ -39,4 +43,15 @@ public class StockDTO {
     @Enumerated(EnumType.STRING)
     @NotNull
     private StockType type;
+
+    @Min(0)
+    @Max(500)
+    private Integer lowWatermark;
+
+    @Min(0)
+    @Max(500)
+    private Integer highWatermark;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
 }
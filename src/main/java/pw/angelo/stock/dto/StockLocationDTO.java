@@ -0,0 +1,28 @@
+package pw.angelo.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLocationDTO {
+
+    private String warehouse;
+
+    @NotNull
+    @Min(1)
+    @Max(500)
+    private Integer max;
+
+    @Min(0)
+    @Max(500)
+    private Integer quantity;
+}
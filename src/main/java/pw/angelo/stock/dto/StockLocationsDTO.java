@@ -0,0 +1,23 @@
+package pw.angelo.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLocationsDTO {
+
+    private Long stockId;
+
+    private long totalQuantity;
+
+    private long totalMax;
+
+    private List<StockLocationDTO> locations;
+}
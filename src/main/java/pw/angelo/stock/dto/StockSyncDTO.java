@@ -0,0 +1,22 @@
+package pw.angelo.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSyncDTO {
+
+    private List<StockDTO> changed;
+
+    private List<Long> deleted;
+
+    private Instant nextSince;
+}
@@ -0,0 +1,39 @@
+package pw.angelo.stock.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockTransferDTO {
+
+    @NotNull
+    @Size(min = 1, max = 100)
+    private String from;
+
+    @NotNull
+    @Size(min = 1, max = 100)
+    private String to;
+
+    @NotNull
+    @Min(1)
+    @Max(100)
+    private Integer quantity;
+
+    @JsonIgnore
+    @AssertTrue(message = "from and to must be different warehouses")
+    public boolean isBetweenDifferentWarehouses() {
+        return from == null || !from.equals(to);
+    }
+}
@@ -0,0 +1,26 @@
+package pw.angelo.stock.dto.validation;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Requires a stock's watermarks to satisfy
+ * {@code lowWatermark <= highWatermark <= max}, skipping any that are unset.
+ */
+@Documented
+@Constraint(validatedBy = WatermarksValidator.class)
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ValidWatermarks {
+
+    String message() default "must satisfy lowWatermark <= highWatermark <= max";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,36 @@
+package pw.angelo.stock.dto.validation;
+
+import pw.angelo.stock.dto.StockDTO;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+public class WatermarksValidator implements ConstraintValidator<ValidWatermarks, StockDTO> {
+
+    @Override
+    public boolean isValid(StockDTO stock, ConstraintValidatorContext context) {
+        if (stock == null) {
+            return true;
+        }
+        Integer low = stock.getLowWatermark();
+        Integer high = stock.getHighWatermark();
+        Integer max = stock.getMax();
+        boolean valid = true;
+        if (low != null && (high != null && low > high || max != null && low > max)) {
+            valid = reject(context, "lowWatermark");
+        }
+        if (high != null && max != null && high > max) {
+            valid = reject(context, "highWatermark");
+        }
+        return valid;
+    }
+
+    // reported on the offending property so messages read like the field constraints
+    private static boolean reject(ConstraintValidatorContext context, String property) {
+        context.disableDefaultConstraintViolation();
+        context.buildConstraintViolationWithTemplate(context.getDefaultConstraintMessageTemplate())
+                .addPropertyNode(property)
+                .addConstraintViolation();
+        return false;
+    }
+}
@@ -12,15 +12,28 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
+import java.time.Instant;
 
 @Data
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_stock_brand_type", columnList = "brand, type, id"),
+        @Index(name = "idx_stock_type", columnList = "type, id"),
+        @Index(name = "idx_stock_updated_at", columnList = "updatedAt")
+})
 public class Stock {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_seq")
+    @SequenceGenerator(name = "stock_seq", sequenceName = "stock_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -35,9 +48,29 @@ public class Stock {
     @Column(nullable = false)
     private int quantity;
 
+    @Column(nullable = false)
+    private int reserved;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private StockType type;
 
+    private Integer lowWatermark;
+
+    private Integer highWatermark;
+
+    @Column(nullable = false)
+    private long journalCheckpoint;
+
+    @Version
+    private long version;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
 
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
 }
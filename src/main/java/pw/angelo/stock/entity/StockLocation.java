@@ -0,0 +1,47 @@
+package pw.angelo.stock.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
+
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stock_location_stock_id_warehouse", columnNames = {"stockId", "warehouse"})
+})
+public class StockLocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_location_seq")
+    @SequenceGenerator(name = "stock_location_seq", sequenceName = "stock_location_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long stockId;
+
+    @Column(nullable = false, length = 100)
+    private String warehouse;
+
+    @Column(nullable = false)
+    private int max;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Version
+    private long version;
+}
@@ -0,0 +1,31 @@
+package pw.angelo.stock.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.Instant;
+
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_stock_tombstone_deleted_at", columnList = "deletedAt")
+})
+public class StockTombstone {
+
+    @Id
+    private Long stockId;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false)
+    private Instant deletedAt;
+}
@@ -0,0 +1,14 @@
+package pw.angelo.stock.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum AdjustmentMode {
+
+    ALL_OR_NOTHING("All or nothing"),
+    BEST_EFFORT("Best effort");
+
+    private final String description;
+}
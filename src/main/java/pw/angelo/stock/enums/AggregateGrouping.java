@@ -0,0 +1,15 @@
+package pw.angelo.stock.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum AggregateGrouping {
+
+    TYPE("Grouped by beer type"),
+    BRAND("Grouped by brand"),
+    TYPE_AND_BRAND("Grouped by beer type and brand");
+
+    private final String description;
+}
@@ -0,0 +1,15 @@
+package pw.angelo.stock.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum MovementType {
+
+    CREATE("Create"),
+    INCREMENT("Increment"),
+    DECREMENT("Decrement");
+
+    private final String description;
+}
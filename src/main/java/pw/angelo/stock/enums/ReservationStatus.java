@@ -0,0 +1,16 @@
+package pw.angelo.stock.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum ReservationStatus {
+
+    ACTIVE("Active"),
+    CONFIRMED("Confirmed"),
+    RELEASED("Released"),
+    EXPIRED("Expired");
+
+    private final String description;
+}
@@ -0,0 +1,14 @@
+package pw.angelo.stock.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum StockAlertType {
+
+    LOW("Quantity fell to or below the low watermark"),
+    RECOVERED("Quantity rose back to the high watermark");
+
+    private final String description;
+}
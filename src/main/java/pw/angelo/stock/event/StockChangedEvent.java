@@ -0,0 +1,28 @@
+package pw.angelo.stock.event;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import pw.angelo.stock.dto.StockDTO;
+
+/**
+ * Published after a stock is created, changes quantity or is deleted, carrying
+ * its state after the change. Listeners that keep derived views use it to
+ * update incrementally.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class StockChangedEvent {
+
+    private final StockDTO stock;
+
+    private final boolean deleted;
+
+    public static StockChangedEvent updated(StockDTO stock) {
+        return new StockChangedEvent(stock, false);
+    }
+
+    public static StockChangedEvent deleted(StockDTO stock) {
+        return new StockChangedEvent(stock, true);
+    }
+}
@@ -0,0 +1,12 @@
+package pw.angelo.stock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ReservationNotFoundException extends Exception {
+
+    public ReservationNotFoundException(Long id) {
+        super(String.format("Active reservation with id %s not found in the system.", id));
+    }
+}
@@ -0,0 +1,20 @@
+package pw.angelo.stock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import pw.angelo.stock.dto.RejectedAdjustmentDTO;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class StockAdjustmentRejectedException extends Exception {
+
+    public StockAdjustmentRejectedException(List<RejectedAdjustmentDTO> rejectedAdjustments) {
+        super(String.format("No stock was adjusted because %s adjustments were rejected: %s",
+                rejectedAdjustments.size(),
+                rejectedAdjustments.stream()
+                        .map(RejectedAdjustmentDTO::getReason)
+                        .collect(Collectors.joining(" "))));
+    }
+}
@@ -0,0 +1,13 @@
+package pw.angelo.stock.exception;
+
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class StockConcurrentUpdateException extends ConcurrencyFailureException {
+
+    public StockConcurrentUpdateException(Long id, int attempts) {
+        super(String.format("Stock with id %s kept changing concurrently over %s attempts, try again", id, attempts));
+    }
+}
@@ -0,0 +1,12 @@
+package pw.angelo.stock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class StockHistoryUnavailableException extends Exception {
+
+    public StockHistoryUnavailableException() {
+        super("Stock movements are not being journaled, point-in-time quantities are unavailable");
+    }
+}
@@ -0,0 +1,12 @@
+package pw.angelo.stock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class StockIdempotencyInProgressException extends Exception {
+
+    public StockIdempotencyInProgressException(String idempotencyKey) {
+        super(String.format("A request with idempotency key %s is still in progress, try again later", idempotencyKey));
+    }
+}
@@ -0,0 +1,12 @@
+package pw.angelo.stock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class StockInsufficientException extends Exception {
+
+    public StockInsufficientException(Long id, int quantityToDecrement) {
+        super(String.format("Beers with %s ID to decrement informed exceeds the available stock: %s", id, quantityToDecrement));
+    }
+}
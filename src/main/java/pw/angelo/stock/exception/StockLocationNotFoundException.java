@@ -0,0 +1,12 @@
+package pw.angelo.stock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class StockLocationNotFoundException extends Exception {
+
+    public StockLocationNotFoundException(Long stockId, String warehouse) {
+        super(String.format("Stock with id %s is not kept at warehouse %s.", stockId, warehouse));
+    }
+}
@@ -0,0 +1,21 @@
+package pw.angelo.stock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.concurrent.TimeUnit;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class StockRateLimitedException extends Exception {
+
+    private final long retryAfterSeconds;
+
+    public StockRateLimitedException(String clientId, String endpoint, long waitNanos) {
+        super(String.format("Client %s is over its rate limit for %s, try again later", clientId, endpoint));
+        this.retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
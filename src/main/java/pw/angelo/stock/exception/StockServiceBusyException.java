@@ -0,0 +1,16 @@
+package pw.angelo.stock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class StockServiceBusyException extends Exception {
+
+    public StockServiceBusyException(int queuedRequests) {
+        super(String.format("Stock requests are queued up to capacity (%s), try again later", queuedRequests));
+    }
+
+    public StockServiceBusyException(String reason) {
+        super(String.format("Stock service is overloaded, %s, try again later", reason));
+    }
+}
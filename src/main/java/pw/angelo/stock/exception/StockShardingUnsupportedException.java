@@ -0,0 +1,12 @@
+package pw.angelo.stock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_IMPLEMENTED)
+public class StockShardingUnsupportedException extends Exception {
+
+    public StockShardingUnsupportedException(String operation) {
+        super(String.format("%s is not available while stocks are sharded", operation));
+    }
+}
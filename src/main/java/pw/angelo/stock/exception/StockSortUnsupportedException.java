@@ -0,0 +1,14 @@
+package pw.angelo.stock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.Collection;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class StockSortUnsupportedException extends Exception {
+
+    public StockSortUnsupportedException(String property, Collection<String> sortableProperties) {
+        super(String.format("Stocks cannot be sorted by %s, sortable properties are %s", property, sortableProperties));
+    }
+}
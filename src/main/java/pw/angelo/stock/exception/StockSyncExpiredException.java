@@ -0,0 +1,14 @@
+package pw.angelo.stock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.time.Instant;
+
+@ResponseStatus(HttpStatus.GONE)
+public class StockSyncExpiredException extends Exception {
+
+    public StockSyncExpiredException(Instant since, Instant oldestTombstone) {
+        super(String.format("Changes since %s are no longer available, deletions are only kept since %s; sync again without since", since, oldestTombstone));
+    }
+}
@@ -0,0 +1,14 @@
+package pw.angelo.stock.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+import pw.angelo.stock.dto.ReservationDTO;
+import pw.angelo.stock.entity.Reservation;
+
+@Mapper
+public interface ReservationMapper {
+
+    ReservationMapper INSTANCE = Mappers.getMapper(ReservationMapper.class);
+
+    ReservationDTO toDTO(Reservation reservation);
+}
@@ -3,6 +3,7 @@ package pw.angelo.stock.mapper;
 import pw.angelo.stock.dto.StockDTO;
 import pw.angelo.stock.entity.Stock;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 @Mapper
@@ -10,6 +11,7 @@ public interface StockMapper {
 
     StockMapper INSTANCE = Mappers.getMapper(StockMapper.class);
 
+    @Mapping(target = "version", ignore = true)
     Stock toModel(StockDTO stockDTO);
 
     StockDTO toDTO(Stock stock);
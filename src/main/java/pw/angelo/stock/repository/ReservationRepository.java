@@ -0,0 +1,27 @@
+package pw.angelo.stock.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import pw.angelo.stock.entity.Reservation;
+import pw.angelo.stock.enums.ReservationStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+    List<Reservation> findByStatus(ReservationStatus status);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Reservation r set r.status = :to where r.id = :id and r.status = :from")
+    int updateStatus(@Param("id") Long id, @Param("from") ReservationStatus from, @Param("to") ReservationStatus to);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Reservation r set r.status = :to where r.id = :id and r.status = :from and r.expiresAt > :now")
+    int updateStatusBeforeExpiry(@Param("id") Long id, @Param("from") ReservationStatus from, @Param("to") ReservationStatus to, @Param("now") Instant now);
+}
@@ -0,0 +1,35 @@
+package pw.angelo.stock.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import pw.angelo.stock.entity.StockLocation;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface StockLocationRepository extends JpaRepository<StockLocation, Long> {
+
+    Optional<StockLocation> findByStockIdAndWarehouse(Long stockId, String warehouse);
+
+    List<StockLocation> findByStockIdOrderByWarehouse(Long stockId);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update StockLocation l set l.quantity = l.quantity + :quantity, l.version = l.version + 1 " +
+            "where l.stockId = :stockId and l.warehouse = :warehouse and l.quantity + :quantity between 0 and l.max")
+    int incrementQuantity(@Param("stockId") Long stockId, @Param("warehouse") String warehouse, @Param("quantity") int quantity);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update StockLocation l set l.max = :max, l.version = l.version + 1 " +
+            "where l.stockId = :stockId and l.warehouse = :warehouse and l.quantity <= :max")
+    int updateMax(@Param("stockId") Long stockId, @Param("warehouse") String warehouse, @Param("max") int max);
+
+    @Transactional
+    @Modifying
+    @Query("delete from StockLocation l where l.stockId = :stockId")
+    int deleteByStockId(@Param("stockId") Long stockId);
+}
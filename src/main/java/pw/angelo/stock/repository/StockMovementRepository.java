@@ -0,0 +1,11 @@
+package pw.angelo.stock.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import pw.angelo.stock.entity.StockMovement;
+
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    @Query("select max(m.id) from StockMovement m")
+    Long findMaxId();
+}
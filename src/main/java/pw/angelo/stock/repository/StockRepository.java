@@ -1,11 +1,71 @@
 package pw.angelo.stock.repository;
 
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.dto.StockTypeUnitsDTO;
 import pw.angelo.stock.entity.Stock;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
-public interface StockRepository extends JpaRepository<Stock, Long> {
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public interface StockRepository extends JpaRepository<Stock, Long>, StockRepositoryCustom {
 
     Optional<Stock> findByName(String name);
+
+    @Query("select s.name from Stock s where s.name in :names")
+    Set<String> findExistingNames(@Param("names") Collection<String> names);
+
+    List<Stock> findByIdGreaterThan(Long id, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select new pw.angelo.stock.dto.StockDTO(s.id, s.name, s.brand, s.max, s.quantity, s.type, s.lowWatermark, s.highWatermark, s.version) " +
+            "from Stock s order by s.id")
+    Stream<StockDTO> streamAllOrderedById();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select new pw.angelo.stock.dto.StockDTO(s.id, s.name, s.brand, s.max, s.quantity, s.type, s.lowWatermark, s.highWatermark, s.version) " +
+            "from Stock s where s.updatedAt > :since order by s.id")
+    List<StockDTO> findChangedSince(@Param("since") Instant since);
+
+    @Query("select new pw.angelo.stock.dto.StockTypeUnitsDTO(s.type, sum(s.quantity)) " +
+            "from Stock s group by s.type")
+    List<StockTypeUnitsDTO> sumQuantityByType();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Stock s where s.id in :ids order by s.id")
+    List<Stock> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Stock s set s.reserved = s.reserved + :quantity, s.version = s.version + 1 " +
+            "where s.id = :id and s.quantity - s.reserved >= :quantity")
+    int reserveQuantity(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Stock s set s.reserved = s.reserved - :quantity, s.version = s.version + 1 " +
+            "where s.id = :id and s.reserved >= :quantity")
+    int releaseReservedQuantity(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Stock s set s.quantity = s.quantity - :quantity, s.reserved = s.reserved - :quantity, s.version = s.version + 1, s.updatedAt = CURRENT_TIMESTAMP " +
+            "where s.id = :id and s.reserved >= :quantity")
+    int consumeReservedQuantity(@Param("id") Long id, @Param("quantity") int quantity);
 }
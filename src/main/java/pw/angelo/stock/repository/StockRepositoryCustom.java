@@ -0,0 +1,42 @@
+package pw.angelo.stock.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.dto.StockSearchDTO;
+import pw.angelo.stock.entity.Stock;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public interface StockRepositoryCustom {
+
+    Optional<StockDTO> incrementQuantity(Long id, int quantity);
+
+    void applyQuantityDeltas(Map<Long, Integer> quantityDeltasById);
+
+    /**
+     * Sets each stock's quantity and advances its version by the matching
+     * step, provided its version is still the one the stock holds.
+     */
+    int[] compareAndSetQuantities(List<Stock> stocks, int[] versionSteps);
+
+    int checkpointJournal(long lastMovementId);
+
+    void advanceJournalCheckpoints(Map<Long, Long> lastMovementIdsById);
+
+    Optional<Integer> findJournaledQuantity(Long id);
+
+    Optional<Integer> findJournaledQuantityAt(Long id, Instant at);
+
+    void forEachSnapshotRow(Consumer<Stock> stockConsumer);
+
+    void insertSnapshotRows(List<Stock> stocks, Instant updatedAt);
+
+    void restartIdSequence(long nextId);
+
+    Slice<StockDTO> search(StockSearchDTO criteria, Pageable pageable);
+}
@@ -0,0 +1,279 @@
+package pw.angelo.stock.repository;
+
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.annotation.Transactional;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.dto.StockSearchDTO;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.enums.StockType;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class StockRepositoryImpl implements StockRepositoryCustom {
+
+    private static final String INCREMENT_QUANTITY_SQL =
+            "update stock set quantity = quantity + ?, version = version + 1, updated_at = current_timestamp " +
+            "where id = ? and quantity + ? between reserved and max";
+
+    // read back as generated keys, H2 1.4.200 loses updates made through a delta table query
+    private static final String[] INCREMENTED_COLUMNS =
+            {"id", "name", "brand", "max", "quantity", "type", "low_watermark", "high_watermark", "version"};
+
+    private static final String APPLY_QUANTITY_DELTA_SQL =
+            "update stock set quantity = quantity + ?, version = version + 1, updated_at = current_timestamp where id = ?";
+
+    private static final String COMPARE_AND_SET_QUANTITY_SQL =
+            "update stock set quantity = ?, version = version + ?, updated_at = current_timestamp where id = ? and version = ?";
+
+    private static final String SELECT_SNAPSHOT_ROWS_SQL =
+            "select id, name, brand, max, quantity, type, low_watermark, high_watermark, version from stock order by id";
+
+    private static final String INSERT_SNAPSHOT_ROW_SQL =
+            "insert into stock (id, name, brand, max, quantity, reserved, type, low_watermark, high_watermark, journal_checkpoint, version, updated_at) " +
+            "values (?, ?, ?, ?, ?, 0, ?, ?, ?, 0, ?, ?)";
+
+    private static final int SNAPSHOT_FETCH_SIZE = 1000;
+
+    private static final String PENDING_MOVEMENTS_SQL =
+            "select coalesce(sum(m.quantity), 0) from stock_movement m " +
+            "where m.stock_id = s.id and m.id > s.journal_checkpoint";
+
+    private static final String CHECKPOINT_JOURNAL_SQL =
+            "update stock s set quantity = quantity + (" + PENDING_MOVEMENTS_SQL + " and m.id <= ?), " +
+            "journal_checkpoint = ?, version = version + 1, updated_at = current_timestamp " +
+            "where exists (select 1 from stock_movement m where m.stock_id = s.id and m.id > s.journal_checkpoint and m.id <= ?)";
+
+    private static final String ADVANCE_JOURNAL_CHECKPOINT_SQL =
+            "update stock set journal_checkpoint = ? where id = ? and journal_checkpoint < ?";
+
+    private static final String JOURNALED_QUANTITY_SQL =
+            "select s.quantity + (" + PENDING_MOVEMENTS_SQL + ") from stock s where s.id = ?";
+
+    private static final String JOURNALED_QUANTITY_AT_SQL =
+            "select s.quantity + (" + PENDING_MOVEMENTS_SQL + ") - (" +
+            "select coalesce(sum(m.quantity), 0) from stock_movement m where m.stock_id = s.id and m.occurred_at > ?" +
+            ") from stock s where s.id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    /**
+     * Increments the quantity when it stays between the reserved quantity and
+     * max, and returns the updated row with the same statement, so a
+     * successful increment takes a single round trip. Empty when no row was
+     * updated.
+     */
+    @Override
+    @Transactional
+    public Optional<StockDTO> incrementQuantity(Long id, int quantity) {
+        return jdbcTemplate.execute(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INCREMENT_QUANTITY_SQL, INCREMENTED_COLUMNS);
+            statement.setInt(1, quantity);
+            statement.setLong(2, id);
+            statement.setInt(3, quantity);
+            return statement;
+        }, (PreparedStatementCallback<Optional<StockDTO>>) statement -> {
+            statement.executeUpdate();
+            try (ResultSet resultSet = statement.getGeneratedKeys()) {
+                if (!resultSet.next()) {
+                    return Optional.empty();
+                }
+                return Optional.of(new StockDTO(resultSet.getLong("id"),
+                        resultSet.getString("name"),
+                        resultSet.getString("brand"),
+                        resultSet.getInt("max"),
+                        resultSet.getInt("quantity"),
+                        StockType.valueOf(resultSet.getString("type")),
+                        (Integer) resultSet.getObject("low_watermark"),
+                        (Integer) resultSet.getObject("high_watermark"),
+                        resultSet.getLong("version")));
+            }
+        });
+    }
+
+    @Override
+    @Transactional
+    public void applyQuantityDeltas(Map<Long, Integer> quantityDeltasById) {
+        List<Object[]> batchArgs = quantityDeltasById.entrySet()
+                .stream()
+                .map(delta -> new Object[]{delta.getValue(), delta.getKey()})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(APPLY_QUANTITY_DELTA_SQL, batchArgs);
+    }
+
+    @Override
+    @Transactional
+    public int[] compareAndSetQuantities(List<Stock> stocks, int[] versionSteps) {
+        List<Object[]> batchArgs = new ArrayList<>(stocks.size());
+        for (int i = 0; i < stocks.size(); i++) {
+            Stock stock = stocks.get(i);
+            batchArgs.add(new Object[]{stock.getQuantity(), versionSteps[i], stock.getId(), stock.getVersion()});
+        }
+        return jdbcTemplate.batchUpdate(COMPARE_AND_SET_QUANTITY_SQL, batchArgs);
+    }
+
+    @Override
+    @Transactional
+    public int checkpointJournal(long lastMovementId) {
+        return jdbcTemplate.update(CHECKPOINT_JOURNAL_SQL, lastMovementId, lastMovementId, lastMovementId);
+    }
+
+    @Override
+    @Transactional
+    public void advanceJournalCheckpoints(Map<Long, Long> lastMovementIdsById) {
+        List<Object[]> batchArgs = lastMovementIdsById.entrySet()
+                .stream()
+                .map(checkpoint -> new Object[]{checkpoint.getValue(), checkpoint.getKey(), checkpoint.getValue()})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(ADVANCE_JOURNAL_CHECKPOINT_SQL, batchArgs);
+    }
+
+    @Override
+    public Optional<Integer> findJournaledQuantity(Long id) {
+        return jdbcTemplate.queryForList(JOURNALED_QUANTITY_SQL, Integer.class, id)
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public Optional<Integer> findJournaledQuantityAt(Long id, Instant at) {
+        return jdbcTemplate.queryForList(JOURNALED_QUANTITY_AT_SQL, Integer.class, Timestamp.from(at), id)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Every stock row except its reserved quantity, read with plain JDBC so
+     * the whole table can be streamed without loading managed entities.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachSnapshotRow(Consumer<Stock> stockConsumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_SNAPSHOT_ROWS_SQL);
+            statement.setFetchSize(SNAPSHOT_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> {
+            Stock stock = new Stock();
+            stock.setId(resultSet.getLong("id"));
+            stock.setName(resultSet.getString("name"));
+            stock.setBrand(resultSet.getString("brand"));
+            stock.setMax(resultSet.getInt("max"));
+            stock.setQuantity(resultSet.getInt("quantity"));
+            stock.setType(StockType.valueOf(resultSet.getString("type")));
+            stock.setLowWatermark((Integer) resultSet.getObject("low_watermark"));
+            stock.setHighWatermark((Integer) resultSet.getObject("high_watermark"));
+            stock.setVersion(resultSet.getLong("version"));
+            stockConsumer.accept(stock);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void insertSnapshotRows(List<Stock> stocks, Instant updatedAt) {
+        Timestamp updatedAtTimestamp = Timestamp.from(updatedAt);
+        List<Object[]> batchArgs = stocks.stream()
+                .map(stock -> new Object[]{stock.getId(), stock.getName(), stock.getBrand(), stock.getMax(), stock.getQuantity(),
+                        stock.getType().name(), stock.getLowWatermark(), stock.getHighWatermark(),
+                        stock.getVersion(), updatedAtTimestamp})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(INSERT_SNAPSHOT_ROW_SQL, batchArgs);
+    }
+
+    @Override
+    public void restartIdSequence(long nextId) {
+        // sequence DDL takes no bind parameters
+        jdbcTemplate.execute("alter sequence stock_seq restart with " + nextId);
+    }
+
+    /**
+     * Selects only the columns of {@link StockDTO}, so matching rows are never
+     * loaded as managed entities. One row past the page is read to tell whether
+     * another page follows, which avoids a count over the whole match.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<StockDTO> search(StockSearchDTO criteria, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<StockDTO> query = criteriaBuilder.createQuery(StockDTO.class);
+        Root<Stock> stock = query.from(Stock.class);
+        query.select(criteriaBuilder.construct(StockDTO.class,
+                stock.get("id"),
+                stock.get("name"),
+                stock.get("brand"),
+                stock.get("max"),
+                stock.get("quantity"),
+                stock.get("type"),
+                stock.get("lowWatermark"),
+                stock.get("highWatermark"),
+                stock.get("version")))
+                .where(searchPredicates(criteriaBuilder, stock, criteria))
+                .orderBy(searchOrder(criteriaBuilder, stock, pageable.getSort()));
+
+        List<StockDTO> content = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    private Predicate[] searchPredicates(CriteriaBuilder criteriaBuilder, Root<Stock> stock, StockSearchDTO criteria) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.getBrand() != null) {
+            predicates.add(criteriaBuilder.equal(stock.get("brand"), criteria.getBrand()));
+        }
+        if (criteria.getType() != null) {
+            predicates.add(criteriaBuilder.equal(stock.get("type"), criteria.getType()));
+        }
+        if (criteria.getMinQuantity() != null) {
+            predicates.add(criteriaBuilder.greaterThanOrEqualTo(stock.get("quantity"), criteria.getMinQuantity()));
+        }
+        if (criteria.getMaxQuantity() != null) {
+            predicates.add(criteriaBuilder.lessThanOrEqualTo(stock.get("quantity"), criteria.getMaxQuantity()));
+        }
+        if (criteria.getBelowPercentOfMax() != null) {
+            predicates.add(criteriaBuilder.lessThan(
+                    criteriaBuilder.prod(stock.<Integer>get("quantity"), 100),
+                    criteriaBuilder.prod(stock.<Integer>get("max"), criteria.getBelowPercentOfMax())));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    private List<Order> searchOrder(CriteriaBuilder criteriaBuilder, Root<Stock> stock, Sort sort) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            orders.add(order.isAscending()
+                    ? criteriaBuilder.asc(stock.get(order.getProperty()))
+                    : criteriaBuilder.desc(stock.get(order.getProperty())));
+        }
+        if (sort.getOrderFor("id") == null) {
+            orders.add(criteriaBuilder.asc(stock.get("id")));
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,21 @@
+package pw.angelo.stock.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import pw.angelo.stock.entity.StockTombstone;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface StockTombstoneRepository extends JpaRepository<StockTombstone, Long> {
+
+    List<StockTombstone> findByDeletedAtAfterOrderByStockId(Instant since);
+
+    @Transactional
+    @Modifying
+    @Query("delete from StockTombstone t where t.deletedAt < :before")
+    int deleteByDeletedAtBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,147 @@
+package pw.angelo.stock.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.RejectedAdjustmentDTO;
+import pw.angelo.stock.dto.StockAdjustmentDTO;
+import pw.angelo.stock.dto.StockAdjustmentRequestDTO;
+import pw.angelo.stock.dto.StockAdjustmentResultDTO;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.enums.AdjustmentMode;
+import pw.angelo.stock.event.StockChangedEvent;
+import pw.angelo.stock.exception.StockAdjustmentRejectedException;
+import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.exception.StockShardingUnsupportedException;
+import pw.angelo.stock.mapper.StockMapper;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.cache.StockNameCache;
+import pw.angelo.stock.service.ledger.StockLedger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies many quantity adjustments in one go. Lines for the same stock are
+ * summed, rows are locked in ascending id order so concurrent batches cannot
+ * deadlock, and every line goes through the same limit checks as
+ * {@link StockService#increment(Long, int)}.
+ */
+@Service
+public class StockAdjustmentService {
+
+    private final StockRepository stockRepository;
+    private final StockProperties stockProperties;
+    private final ObjectProvider<StockLedger> stockLedger;
+    private final StockNameCache stockNameCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final StockMapper stockMapper = StockMapper.INSTANCE;
+
+    @Autowired
+    public StockAdjustmentService(StockRepository stockRepository,
+                                  StockProperties stockProperties,
+                                  ObjectProvider<StockLedger> stockLedger,
+                                  StockNameCache stockNameCache,
+                                  ApplicationEventPublisher eventPublisher,
+                                  PlatformTransactionManager transactionManager) {
+        this.stockRepository = stockRepository;
+        this.stockProperties = stockProperties;
+        this.stockLedger = stockLedger;
+        this.stockNameCache = stockNameCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public StockAdjustmentResultDTO adjust(StockAdjustmentRequestDTO adjustmentRequest) throws StockAdjustmentRejectedException, StockShardingUnsupportedException {
+        if (stockProperties.getSharding().isEnabled()) {
+            // lines for stocks on different shards cannot be applied in one transaction
+            throw new StockShardingUnsupportedException("Batch adjustment");
+        }
+        AdjustmentMode mode = adjustmentRequest.getMode();
+        SortedMap<Long, Integer> quantitiesById = adjustmentRequest.getAdjustments()
+                .stream()
+                .collect(Collectors.toMap(StockAdjustmentDTO::getId, StockAdjustmentDTO::getQuantity, Integer::sum, TreeMap::new));
+
+        StockLedger ledger = stockLedger.getIfAvailable();
+        StockAdjustmentResultDTO result = ledger != null
+                ? adjustInLedger(ledger, quantitiesById, mode)
+                : adjustInDatabase(quantitiesById, mode);
+
+        if (mode == AdjustmentMode.ALL_OR_NOTHING && !result.getRejected().isEmpty()) {
+            throw new StockAdjustmentRejectedException(result.getRejected());
+        }
+        result.getAdjusted().forEach(adjustedStock -> {
+            stockNameCache.evict(adjustedStock.getName());
+            eventPublisher.publishEvent(StockChangedEvent.updated(adjustedStock));
+        });
+        return result;
+    }
+
+    private StockAdjustmentResultDTO adjustInDatabase(SortedMap<Long, Integer> quantitiesById, AdjustmentMode mode) {
+        return transactionTemplate.execute(status -> {
+            Map<Long, Stock> lockedStocks = stockRepository.findAllByIdForUpdate(quantitiesById.keySet())
+                    .stream()
+                    .collect(Collectors.toMap(Stock::getId, Function.identity()));
+
+            StockAdjustmentResultDTO result = new StockAdjustmentResultDTO();
+            Map<Stock, Integer> acceptedAdjustments = new LinkedHashMap<>();
+            for (Map.Entry<Long, Integer> adjustment : quantitiesById.entrySet()) {
+                try {
+                    Stock stock = verifyAdjustment(lockedStocks.get(adjustment.getKey()), adjustment.getKey(), adjustment.getValue());
+                    acceptedAdjustments.put(stock, adjustment.getValue());
+                } catch (StockNotFoundException | StockExceededException | StockInsufficientException e) {
+                    reject(result, adjustment.getKey(), adjustment.getValue(), e);
+                }
+            }
+            if (mode == AdjustmentMode.ALL_OR_NOTHING && !result.getRejected().isEmpty()) {
+                return result;
+            }
+            acceptedAdjustments.forEach((stock, quantity) -> {
+                stock.setQuantity(stock.getQuantity() + quantity);
+                result.getAdjusted().add(stockMapper.toDTO(stock));
+            });
+            return result;
+        });
+    }
+
+    private StockAdjustmentResultDTO adjustInLedger(StockLedger ledger, SortedMap<Long, Integer> quantitiesById, AdjustmentMode mode) {
+        StockAdjustmentResultDTO result = new StockAdjustmentResultDTO();
+        Map<Long, Integer> appliedAdjustments = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> adjustment : quantitiesById.entrySet()) {
+            try {
+                result.getAdjusted().add(ledger.increment(adjustment.getKey(), adjustment.getValue()));
+                appliedAdjustments.put(adjustment.getKey(), adjustment.getValue());
+            } catch (StockNotFoundException | StockExceededException | StockInsufficientException e) {
+                reject(result, adjustment.getKey(), adjustment.getValue(), e);
+            }
+        }
+        if (mode == AdjustmentMode.ALL_OR_NOTHING && !result.getRejected().isEmpty()) {
+            appliedAdjustments.forEach(ledger::revert);
+            result.getAdjusted().clear();
+        }
+        return result;
+    }
+
+    private Stock verifyAdjustment(Stock stock, Long id, int quantity) throws StockNotFoundException, StockExceededException, StockInsufficientException {
+        if (stock == null) {
+            throw new StockNotFoundException(id);
+        }
+        StockQuantityChecks.verifyAdjustment(id, stock.getQuantity(), stock.getReserved(), stock.getMax(), quantity);
+        return stock;
+    }
+
+    private void reject(StockAdjustmentResultDTO result, Long id, int quantity, Exception cause) {
+        result.getRejected().add(new RejectedAdjustmentDTO(id, quantity, cause.getMessage()));
+    }
+}
@@ -0,0 +1,187 @@
+package pw.angelo.stock.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.BulkCreateResultDTO;
+import pw.angelo.stock.dto.RejectedStockDTO;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.event.StockChangedEvent;
+import pw.angelo.stock.exception.StockAlreadyRegisteredException;
+import pw.angelo.stock.mapper.StockMapper;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.cache.StockNameCache;
+import pw.angelo.stock.service.ledger.StockLedger;
+import pw.angelo.stock.service.shard.ShardedStockStore;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class StockBulkService {
+
+    private static final String ALREADY_REGISTERED = "already registered";
+    private static final String DUPLICATED_IN_REQUEST = "duplicated in request";
+
+    private final StockRepository stockRepository;
+    private final StockNameCache stockNameCache;
+    private final ObjectProvider<StockLedger> stockLedger;
+    private final ObjectProvider<ShardedStockStore> shardedStockStore;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final StockMapper stockMapper = StockMapper.INSTANCE;
+
+    @Autowired
+    public StockBulkService(StockRepository stockRepository,
+                            StockProperties stockProperties,
+                            StockNameCache stockNameCache,
+                            ObjectProvider<StockLedger> stockLedger,
+                            ObjectProvider<ShardedStockStore> shardedStockStore,
+                            Validator validator,
+                            ApplicationEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager) {
+        this.stockRepository = stockRepository;
+        this.stockNameCache = stockNameCache;
+        this.stockLedger = stockLedger;
+        this.shardedStockStore = shardedStockStore;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = stockProperties.getBulk().getChunkSize();
+    }
+
+    public BulkCreateResultDTO createStocks(Iterator<StockDTO> stockDTOs) {
+        BulkCreateResultDTO result = new BulkCreateResultDTO();
+        List<StockDTO> chunk = new ArrayList<>(chunkSize);
+        while (stockDTOs.hasNext()) {
+            chunk.add(stockDTOs.next());
+            if (chunk.size() == chunkSize) {
+                createChunk(chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            createChunk(chunk, result);
+        }
+        return result;
+    }
+
+    private void createChunk(List<StockDTO> chunk, BulkCreateResultDTO result) {
+        Map<String, StockDTO> candidates = new LinkedHashMap<>();
+        for (StockDTO stockDTO : chunk) {
+            String violations = validate(stockDTO);
+            if (violations != null) {
+                reject(result, stockDTO.getName(), violations);
+            } else if (candidates.putIfAbsent(stockDTO.getName(), stockDTO) != null) {
+                reject(result, stockDTO.getName(), DUPLICATED_IN_REQUEST);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+        ShardedStockStore shards = shardedStockStore.getIfAvailable();
+        if (shards != null) {
+            createInShards(shards, candidates.values(), result);
+            return;
+        }
+        Set<String> registeredNames = stockRepository.findExistingNames(candidates.keySet());
+        for (String registeredName : registeredNames) {
+            candidates.remove(registeredName);
+            reject(result, registeredName, ALREADY_REGISTERED);
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+        List<Stock> savedStocks;
+        try {
+            savedStocks = insertBatch(candidates.values());
+        } catch (DataIntegrityViolationException e) {
+            savedStocks = insertOneByOne(candidates.values(), result);
+        }
+        for (Stock savedStock : savedStocks) {
+            created(result, stockMapper.toDTO(savedStock));
+        }
+    }
+
+    // each stock goes to the shard its name hashes to, so there is no batch to share
+    private void createInShards(ShardedStockStore shards, Collection<StockDTO> stockDTOs, BulkCreateResultDTO result) {
+        for (StockDTO stockDTO : stockDTOs) {
+            try {
+                created(result, shards.create(stockDTO));
+            } catch (StockAlreadyRegisteredException e) {
+                reject(result, stockDTO.getName(), ALREADY_REGISTERED);
+            }
+        }
+    }
+
+    private void created(BulkCreateResultDTO result, StockDTO createdStock) {
+        stockNameCache.evict(createdStock.getName());
+        eventPublisher.publishEvent(StockChangedEvent.updated(createdStock));
+        result.getCreated().add(createdStock);
+    }
+
+    private List<Stock> insertBatch(Collection<StockDTO> stockDTOs) {
+        return transactionTemplate.execute(status -> {
+            List<Stock> savedStocks = stockRepository.saveAll(stockDTOs.stream()
+                    .map(this::toNewStock)
+                    .collect(Collectors.toList()));
+            stockRepository.flush();
+            stockLedger.ifAvailable(ledger -> ledger.recordCreated(savedStocks));
+            return savedStocks;
+        });
+    }
+
+    private List<Stock> insertOneByOne(Collection<StockDTO> stockDTOs, BulkCreateResultDTO result) {
+        List<Stock> savedStocks = new ArrayList<>();
+        for (StockDTO stockDTO : stockDTOs) {
+            try {
+                savedStocks.add(transactionTemplate.execute(status -> {
+                    Stock savedStock = stockRepository.saveAndFlush(toNewStock(stockDTO));
+                    stockLedger.ifAvailable(ledger -> ledger.recordCreated(Collections.singletonList(savedStock)));
+                    return savedStock;
+                }));
+            } catch (DataIntegrityViolationException e) {
+                reject(result, stockDTO.getName(), ALREADY_REGISTERED);
+            }
+        }
+        return savedStocks;
+    }
+
+    private Stock toNewStock(StockDTO stockDTO) {
+        Stock stock = stockMapper.toModel(stockDTO);
+        stock.setId(null);
+        return stock;
+    }
+
+    private String validate(StockDTO stockDTO) {
+        Set<ConstraintViolation<StockDTO>> violations = validator.validate(stockDTO);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private void reject(BulkCreateResultDTO result, String name, String reason) {
+        result.getRejected().add(new RejectedStockDTO(name, reason));
+    }
+}
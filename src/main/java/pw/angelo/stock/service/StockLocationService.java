@@ -0,0 +1,152 @@
+package pw.angelo.stock.service;
+
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockLocationDTO;
+import pw.angelo.stock.dto.StockLocationsDTO;
+import pw.angelo.stock.dto.StockTransferDTO;
+import pw.angelo.stock.entity.StockLocation;
+import pw.angelo.stock.exception.StockConcurrentUpdateException;
+import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.exception.StockLocationNotFoundException;
+import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.repository.StockLocationRepository;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.shard.ShardedStockStore;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Quantities of a stock per warehouse. Each (stock, warehouse) pair is its own
+ * row, changed with a single conditional update, so adjustments at different
+ * warehouses never wait on each other, and the totals for a stock are summed
+ * from its own rows through the (stock, warehouse) unique index rather than a
+ * scan. These quantities are kept apart from the stock's own quantity.
+ */
+@Service
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class StockLocationService {
+
+    private final StockRepository stockRepository;
+    private final StockLocationRepository stockLocationRepository;
+    private final StockProperties stockProperties;
+    private final ObjectProvider<ShardedStockStore> shardedStockStore;
+
+    public StockLocationsDTO findLocations(Long stockId) throws StockNotFoundException {
+        verifyStockExists(stockId);
+        return toLocationsDTO(stockId, stockLocationRepository.findByStockIdOrderByWarehouse(stockId));
+    }
+
+    /**
+     * Adds the warehouse to the stock, or changes its max when it is already
+     * there. A max below the quantity currently held there is rejected.
+     */
+    public StockLocationDTO saveLocation(Long stockId, String warehouse, StockLocationDTO locationDTO) throws StockNotFoundException, StockExceededException {
+        verifyStockExists(stockId);
+        int max = locationDTO.getMax();
+        if (stockLocationRepository.findByStockIdAndWarehouse(stockId, warehouse).isEmpty()) {
+            int quantity = locationDTO.getQuantity() != null ? locationDTO.getQuantity() : 0;
+            if (quantity > max) {
+                throw new StockExceededException(stockId, quantity);
+            }
+            try {
+                return toDTO(stockLocationRepository.save(StockLocation.builder()
+                        .stockId(stockId)
+                        .warehouse(warehouse)
+                        .max(max)
+                        .quantity(quantity)
+                        .build()));
+            } catch (DataIntegrityViolationException e) {
+                // created concurrently, fall through and update its max instead
+            }
+        }
+        if (stockLocationRepository.updateMax(stockId, warehouse, max) == 0) {
+            throw new StockExceededException(stockId, max);
+        }
+        return toDTO(stockLocationRepository.findByStockIdAndWarehouse(stockId, warehouse)
+                .orElseThrow(() -> new StockNotFoundException(stockId)));
+    }
+
+    public StockLocationDTO increment(Long stockId, String warehouse, int quantity)
+            throws StockLocationNotFoundException, StockExceededException, StockInsufficientException {
+        applyIncrement(stockId, warehouse, quantity);
+        return toDTO(verifyLocationExists(stockId, warehouse));
+    }
+
+    /**
+     * Moves quantity between two warehouses of a stock in one transaction. The
+     * two rows are always updated in warehouse name order, so transfers in
+     * opposite directions lock them in the same order and cannot deadlock.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public StockLocationsDTO transfer(Long stockId, StockTransferDTO transferDTO)
+            throws StockLocationNotFoundException, StockExceededException, StockInsufficientException {
+        String from = transferDTO.getFrom();
+        String to = transferDTO.getTo();
+        int quantity = transferDTO.getQuantity();
+        if (from.compareTo(to) < 0) {
+            applyIncrement(stockId, from, -quantity);
+            applyIncrement(stockId, to, quantity);
+        } else {
+            applyIncrement(stockId, to, quantity);
+            applyIncrement(stockId, from, -quantity);
+        }
+        return toLocationsDTO(stockId, stockLocationRepository.findByStockIdOrderByWarehouse(stockId));
+    }
+
+    private void applyIncrement(Long stockId, String warehouse, int quantity)
+            throws StockLocationNotFoundException, StockExceededException, StockInsufficientException {
+        int attempt = 1;
+        while (stockLocationRepository.incrementQuantity(stockId, warehouse, quantity) == 0) {
+            StockLocation location = verifyLocationExists(stockId, warehouse);
+            int quantityAfter = location.getQuantity() + quantity;
+            if (quantityAfter > location.getMax()) {
+                throw new StockExceededException(stockId, quantity);
+            }
+            if (quantityAfter < 0) {
+                throw new StockInsufficientException(stockId, -quantity);
+            }
+            // the row changed between the update and the read, the limits may allow it now
+            if (attempt++ >= stockProperties.getIncrement().getMaxAttempts()) {
+                throw new StockConcurrentUpdateException(stockId, stockProperties.getIncrement().getMaxAttempts());
+            }
+        }
+    }
+
+    private void verifyStockExists(Long stockId) throws StockNotFoundException {
+        ShardedStockStore shards = shardedStockStore.getIfAvailable();
+        boolean exists = shards != null
+                ? shards.findById(stockId).isPresent()
+                : stockRepository.existsById(stockId);
+        if (!exists) {
+            throw new StockNotFoundException(stockId);
+        }
+    }
+
+    private StockLocation verifyLocationExists(Long stockId, String warehouse) throws StockLocationNotFoundException {
+        return stockLocationRepository.findByStockIdAndWarehouse(stockId, warehouse)
+                .orElseThrow(() -> new StockLocationNotFoundException(stockId, warehouse));
+    }
+
+    private static StockLocationsDTO toLocationsDTO(Long stockId, List<StockLocation> locations) {
+        return StockLocationsDTO.builder()
+                .stockId(stockId)
+                .totalQuantity(locations.stream().mapToLong(StockLocation::getQuantity).sum())
+                .totalMax(locations.stream().mapToLong(StockLocation::getMax).sum())
+                .locations(locations.stream()
+                        .map(StockLocationService::toDTO)
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    private static StockLocationDTO toDTO(StockLocation location) {
+        return new StockLocationDTO(location.getWarehouse(), location.getMax(), location.getQuantity());
+    }
+}
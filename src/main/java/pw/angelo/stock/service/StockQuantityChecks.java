@@ -0,0 +1,20 @@
+package pw.angelo.stock.service;
+
+import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.exception.StockInsufficientException;
+
+public final class StockQuantityChecks {
+
+    private StockQuantityChecks() {
+    }
+
+    public static void verifyAdjustment(Long id, int currentQuantity, int reserved, int max, int quantityToAdjust) throws StockExceededException, StockInsufficientException {
+        long quantityAfterAdjustment = (long) currentQuantity + quantityToAdjust;
+        if (quantityAfterAdjustment > max) {
+            throw new StockExceededException(id, quantityToAdjust);
+        }
+        if (quantityAfterAdjustment < reserved) {
+            throw new StockInsufficientException(id, -quantityToAdjust);
+        }
+    }
+}
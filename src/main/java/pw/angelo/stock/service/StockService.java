@@ -1,50 +1,304 @@
 package pw.angelo.stock.service;
 
-import lombok.AllArgsConstructor;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.QuantityAtDTO;
+import pw.angelo.stock.dto.StockColumnsDTO;
 import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.dto.StockPageDTO;
+import pw.angelo.stock.dto.StockSearchDTO;
+import pw.angelo.stock.dto.StockSearchResultDTO;
+import pw.angelo.stock.dto.StockSyncDTO;
 import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.entity.StockTombstone;
+import pw.angelo.stock.event.StockChangedEvent;
 import pw.angelo.stock.exception.StockAlreadyRegisteredException;
+import pw.angelo.stock.exception.StockConcurrentUpdateException;
 import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.exception.StockHistoryUnavailableException;
+import pw.angelo.stock.exception.StockInsufficientException;
 import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.exception.StockShardingUnsupportedException;
+import pw.angelo.stock.exception.StockSortUnsupportedException;
+import pw.angelo.stock.exception.StockSyncExpiredException;
 import pw.angelo.stock.mapper.StockMapper;
+import pw.angelo.stock.repository.StockLocationRepository;
 import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.repository.StockTombstoneRepository;
+import pw.angelo.stock.service.cache.StockNameCache;
+import pw.angelo.stock.service.engine.StockCommandEngine;
+import pw.angelo.stock.service.index.StockReadIndex;
+import pw.angelo.stock.service.ledger.StockLedger;
+import pw.angelo.stock.service.metrics.StockMetrics;
+import pw.angelo.stock.service.shard.ShardedStockStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-@AllArgsConstructor(onConstructor = @__(@Autowired))
 public class StockService {
 
+    private static final List<String> SORTABLE_PROPERTIES = Arrays.asList("id", "name", "brand", "max", "quantity", "type");
+
     private final StockRepository stockRepository;
+    private final StockTombstoneRepository stockTombstoneRepository;
+    private final StockLocationRepository stockLocationRepository;
+    private final StockProperties stockProperties;
+    // optional features, null unless enabled
+    private final StockLedger stockLedger;
+    private final ShardedStockStore shardedStockStore;
+    private final StockCommandEngine stockCommandEngine;
+    private final StockReadIndex stockReadIndex;
+    private final StockNameCache stockNameCache;
+    private final StockMetrics stockMetrics;
+    private final ApplicationEventPublisher eventPublisher;
     private final StockMapper stockMapper = StockMapper.INSTANCE;
 
+    @Autowired
+    public StockService(StockRepository stockRepository,
+                        StockTombstoneRepository stockTombstoneRepository,
+                        StockLocationRepository stockLocationRepository,
+                        StockProperties stockProperties,
+                        @Nullable StockLedger stockLedger,
+                        @Nullable ShardedStockStore shardedStockStore,
+                        @Nullable StockCommandEngine stockCommandEngine,
+                        @Nullable StockReadIndex stockReadIndex,
+                        StockNameCache stockNameCache,
+                        StockMetrics stockMetrics,
+                        ApplicationEventPublisher eventPublisher) {
+        this.stockRepository = stockRepository;
+        this.stockTombstoneRepository = stockTombstoneRepository;
+        this.stockLocationRepository = stockLocationRepository;
+        this.stockProperties = stockProperties;
+        this.stockLedger = stockLedger;
+        this.shardedStockStore = shardedStockStore;
+        this.stockCommandEngine = stockCommandEngine;
+        this.stockReadIndex = stockReadIndex;
+        this.stockNameCache = stockNameCache;
+        this.stockMetrics = stockMetrics;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional(rollbackFor = Exception.class)
     public StockDTO createStock(StockDTO stockDTO) throws StockAlreadyRegisteredException {
+        return stockMetrics.record(StockMetrics.CREATE, () -> {
+            StockDTO createdStock = shardedStockStore != null
+                    ? shardedStockStore.create(stockDTO)
+                    : createInDatabase(stockDTO);
+            stockNameCache.evict(createdStock.getName());
+            eventPublisher.publishEvent(StockChangedEvent.updated(createdStock));
+            return createdStock;
+        });
+    }
+
+    private StockDTO createInDatabase(StockDTO stockDTO) throws StockAlreadyRegisteredException {
         verifyIfIsAlreadyRegistered(stockDTO.getName());
-        Stock stock = stockMapper.toModel(stockDTO);
-        Stock savedStock = stockRepository.save(stock);
+        Stock savedStock = stockRepository.save(stockMapper.toModel(stockDTO));
+        if (stockLedger != null) {
+            stockLedger.recordCreated(Collections.singletonList(savedStock));
+        }
         return stockMapper.toDTO(savedStock);
     }
 
     public StockDTO findByName(String name) throws StockNotFoundException {
-        Stock foundStock = stockRepository.findByName(name)
-                .orElseThrow(() -> new StockNotFoundException(name));
-        return stockMapper.toDTO(foundStock);
+        return stockMetrics.record(StockMetrics.FIND_BY_NAME, () -> {
+            Optional<StockDTO> found = stockReadIndex != null && stockReadIndex.isReady()
+                    ? stockReadIndex.findByName(name)
+                    : stockNameCache.get(name, this::loadByName);
+            StockDTO foundStock = found.orElseThrow(() -> new StockNotFoundException(name));
+            return withLedgerQuantity(foundStock);
+        });
     }
 
     public List<StockDTO> listAll() {
-        return stockRepository.findAll()
+        return stockMetrics.record(StockMetrics.LIST_ALL, () -> {
+            if (shardedStockStore != null) {
+                return shardedStockStore.findAll();
+            }
+            return stockRepository.findAll()
+                    .stream()
+                    .map(stockMapper::toDTO)
+                    .map(this::withLedgerQuantity)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    public StockPageDTO listPage(Long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, stockProperties.getListing().getMaxPageSize()));
+        List<StockDTO> content = shardedStockStore != null
+                ? shardedStockStore.findPage(afterId != null ? afterId : 0L, pageSize)
+                : stockRepository.findByIdGreaterThan(afterId != null ? afterId : 0L, PageRequest.of(0, pageSize, Sort.by("id")))
                 .stream()
                 .map(stockMapper::toDTO)
+                .map(this::withLedgerQuantity)
                 .collect(Collectors.toList());
+        Long nextCursor = content.size() == pageSize ? content.get(content.size() - 1).getId() : null;
+        return new StockPageDTO(content, nextCursor);
+    }
+
+    public StockSearchResultDTO search(StockSearchDTO criteria, Pageable pageable) throws StockSortUnsupportedException, StockShardingUnsupportedException {
+        StockMetrics.Timing timing = stockMetrics.start(StockMetrics.SEARCH);
+        try {
+            if (shardedStockStore != null) {
+                throw new StockShardingUnsupportedException("Search");
+            }
+            for (Sort.Order order : pageable.getSort()) {
+                if (!SORTABLE_PROPERTIES.contains(order.getProperty())) {
+                    throw new StockSortUnsupportedException(order.getProperty(), SORTABLE_PROPERTIES);
+                }
+            }
+            int pageSize = Math.max(1, Math.min(pageable.getPageSize(), stockProperties.getListing().getMaxPageSize()));
+            Slice<StockDTO> found = stockRepository.search(criteria, PageRequest.of(pageable.getPageNumber(), pageSize, pageable.getSort()));
+            List<StockDTO> content = found.getContent()
+                    .stream()
+                    .map(this::withLedgerQuantity)
+                    .collect(Collectors.toList());
+            return new StockSearchResultDTO(content, found.getNumber(), found.getSize(), found.hasNext());
+        } catch (Exception e) {
+            timing.failed(e);
+            throw e;
+        } finally {
+            timing.stop();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public StockColumnsDTO listAllColumns() {
+        StockColumnsDTO columns = new StockColumnsDTO();
+        streamAll(columns::add);
+        return columns;
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<StockDTO> stockConsumer) {
+        if (shardedStockStore != null) {
+            shardedStockStore.findAll().forEach(stockConsumer);
+            return;
+        }
+        try (Stream<StockDTO> stocks = stockRepository.streamAllOrderedById()) {
+            stocks.map(this::withLedgerQuantity)
+                    .forEach(stockConsumer);
+        }
+    }
+
+    /**
+     * Stocks created or changed after {@code since}, and the ids of those
+     * deleted after it, or every stock when {@code since} is null. The returned
+     * {@code nextSince} lags the read by {@code stock.sync.overlap} so changes
+     * committing during the read are sent again on the next call rather than
+     * missed; clients apply both lists as idempotent upserts and deletes.
+     */
+    @Transactional(readOnly = true)
+    public StockSyncDTO sync(Instant since) throws StockSyncExpiredException, StockShardingUnsupportedException {
+        StockMetrics.Timing timing = stockMetrics.start(StockMetrics.SYNC);
+        try {
+            StockProperties.Sync syncProperties = stockProperties.getSync();
+            Instant now = Instant.now();
+            Instant nextSince = now.minus(syncProperties.getOverlap());
+            if (since == null) {
+                List<StockDTO> changed = new ArrayList<>();
+                streamAll(changed::add);
+                return new StockSyncDTO(changed, Collections.emptyList(), nextSince);
+            }
+            if (shardedStockStore != null) {
+                throw new StockShardingUnsupportedException("Sync since an instant");
+            }
+            Instant oldestTombstone = now.minus(syncProperties.getTombstoneRetention());
+            if (since.isBefore(oldestTombstone)) {
+                throw new StockSyncExpiredException(since, oldestTombstone);
+            }
+            List<StockDTO> changed = stockRepository.findChangedSince(since)
+                    .stream()
+                    .map(this::withLedgerQuantity)
+                    .collect(Collectors.toList());
+            List<Long> deleted = stockTombstoneRepository.findByDeletedAtAfterOrderByStockId(since)
+                    .stream()
+                    .map(StockTombstone::getStockId)
+                    .collect(Collectors.toList());
+            return new StockSyncDTO(changed, deleted, nextSince);
+        } catch (Exception e) {
+            timing.failed(e);
+            throw e;
+        } finally {
+            timing.stop();
+        }
     }
 
+    @Transactional(rollbackFor = Exception.class)
     public void deleteById(Long id) throws StockNotFoundException {
-        verifyIfExists(id);
+        stockMetrics.record(StockMetrics.DELETE, () -> {
+            StockDTO deletedStock = shardedStockStore != null
+                    ? shardedStockStore.deleteById(id).orElseThrow(() -> new StockNotFoundException(id))
+                    : deleteInDatabase(id);
+            stockLocationRepository.deleteByStockId(id);
+            stockTombstoneRepository.save(new StockTombstone(id, deletedStock.getName(), Instant.now()));
+            stockNameCache.evict(deletedStock.getName());
+            eventPublisher.publishEvent(StockChangedEvent.deleted(deletedStock));
+        });
+    }
+
+    private StockDTO deleteInDatabase(Long id) throws StockNotFoundException {
+        Stock stockToDelete = verifyIfExists(id);
+        if (stockLedger != null) {
+            stockLedger.evict(id);
+        }
         stockRepository.deleteById(id);
+        return stockMapper.toDTO(stockToDelete);
+    }
+
+    public QuantityAtDTO quantityAt(Long id, Instant at) throws StockNotFoundException, StockHistoryUnavailableException {
+        if (stockLedger == null) {
+            throw new StockHistoryUnavailableException();
+        }
+        int quantity = stockLedger.quantityAt(id, at)
+                .orElseThrow(() -> new StockNotFoundException(id));
+        return new QuantityAtDTO(id, at, quantity);
+    }
+
+    /**
+     * Whether a stock holds at least {@code quantity} units, answered from the
+     * read index when it is enabled and built. In ledger mode the ledger's
+     * quantity wins over the indexed one, which may not have caught up yet.
+     */
+    public boolean isInStock(Long id, int quantity) throws StockNotFoundException {
+        if (stockReadIndex != null && stockReadIndex.isReady()) {
+            int indexedQuantity = stockReadIndex.quantityOf(id);
+            if (indexedQuantity == StockReadIndex.NOT_INDEXED) {
+                throw new StockNotFoundException(id);
+            }
+            int currentQuantity = stockLedger != null
+                    ? stockLedger.quantityOf(id).orElse(indexedQuantity)
+                    : indexedQuantity;
+            return currentQuantity >= quantity;
+        }
+        StockDTO stock = shardedStockStore != null
+                ? shardedStockStore.findById(id).orElseThrow(() -> new StockNotFoundException(id))
+                : withLedgerQuantity(stockMapper.toDTO(verifyIfExists(id)));
+        return stock.getQuantity() >= quantity;
+    }
+
+    private Optional<StockDTO> loadByName(String name) {
+        if (shardedStockStore != null) {
+            return shardedStockStore.findByName(name);
+        }
+        return stockRepository.findByName(name)
+                .map(stockMapper::toDTO);
     }
 
     private void verifyIfIsAlreadyRegistered(String name) throws StockAlreadyRegisteredException {
@@ -59,14 +313,66 @@ public class StockService {
                 .orElseThrow(() -> new StockNotFoundException(id));
     }
 
-    public StockDTO increment(Long id, int quantityToIncrement) throws StockNotFoundException, StockExceededException {
-        Stock stockToIncrementStock = verifyIfExists(id);
-        int quantityAfterIncrement = quantityToIncrement + stockToIncrementStock.getQuantity();
-        if (quantityAfterIncrement <= stockToIncrementStock.getMax()) {
-            stockToIncrementStock.setQuantity(stockToIncrementStock.getQuantity() + quantityToIncrement);
-            Stock incrementedStockStock = stockRepository.save(stockToIncrementStock);
-            return stockMapper.toDTO(incrementedStockStock);
+    public StockDTO increment(Long id, int quantityToIncrement) throws StockNotFoundException, StockExceededException, StockInsufficientException {
+        StockMetrics.Timing timing = stockMetrics.start(StockMetrics.INCREMENT);
+        try {
+            StockDTO incrementedStock;
+            if (stockLedger != null) {
+                incrementedStock = stockLedger.increment(id, quantityToIncrement);
+            } else if (shardedStockStore != null) {
+                incrementedStock = shardedStockStore.increment(id, quantityToIncrement);
+            } else if (stockCommandEngine != null) {
+                incrementedStock = stockCommandEngine.increment(id, quantityToIncrement);
+            } else {
+                incrementedStock = incrementInDatabase(id, quantityToIncrement);
+            }
+            stockNameCache.evict(incrementedStock.getName());
+            eventPublisher.publishEvent(StockChangedEvent.updated(incrementedStock));
+            return incrementedStock;
+        } catch (Exception e) {
+            timing.failed(e);
+            throw e;
+        } finally {
+            timing.stop();
         }
-        throw new StockExceededException(id, quantityToIncrement);
+    }
+
+    /**
+     * Conflicting writers make the conditional update either fail on a lock or
+     * match no row although the limits allow the increment. Both count against
+     * the same {@code stock.increment.max-attempts}.
+     */
+    private StockDTO incrementInDatabase(Long id, int quantityToIncrement) throws StockNotFoundException, StockExceededException, StockInsufficientException {
+        int maxAttempts = stockProperties.getIncrement().getMaxAttempts();
+        int attempt = 1;
+        try {
+            while (true) {
+                try {
+                    Optional<StockDTO> incrementedStock = stockRepository.incrementQuantity(id, quantityToIncrement);
+                    if (incrementedStock.isPresent()) {
+                        return incrementedStock.get();
+                    }
+                } catch (ConcurrencyFailureException e) {
+                    if (attempt >= maxAttempts) {
+                        throw e;
+                    }
+                    attempt++;
+                    continue;
+                }
+                Stock stockToIncrement = verifyIfExists(id);
+                StockQuantityChecks.verifyAdjustment(id, stockToIncrement.getQuantity(), stockToIncrement.getReserved(), stockToIncrement.getMax(), quantityToIncrement);
+                // the limits allow it, so the row changed between the update and the read
+                if (attempt >= maxAttempts) {
+                    throw new StockConcurrentUpdateException(id, maxAttempts);
+                }
+                attempt++;
+            }
+        } finally {
+            stockMetrics.recordIncrementRetries(attempt - 1);
+        }
+    }
+
+    private StockDTO withLedgerQuantity(StockDTO stockDTO) {
+        return stockLedger != null ? stockLedger.overlay(stockDTO) : stockDTO;
     }
 }
@@ -0,0 +1,250 @@
+package pw.angelo.stock.service.aggregate;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockAggregateDTO;
+import pw.angelo.stock.dto.StockAggregatesDTO;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.enums.AggregateGrouping;
+import pw.angelo.stock.enums.StockType;
+import pw.angelo.stock.event.StockChangedEvent;
+import pw.angelo.stock.service.StockService;
+import pw.angelo.stock.service.snapshot.StockSnapshots;
+import pw.angelo.stock.service.view.StockView;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+
+/**
+ * Inventory totals per type and brand, kept up to date from
+ * {@link StockChangedEvent}s so that reads cost O(groups) instead of a table
+ * scan. Each stock's last known contribution is kept, so an event replaces it
+ * rather than adding a delta, unless it is older than the contribution, and a
+ * periodic rebuild from the repository corrects any drift.
+ */
+@Component
+public class StockAggregates {
+
+    private static final long NO_VERSION = Long.MIN_VALUE;
+
+    private final StockService stockService;
+    private final StockProperties stockProperties;
+    private final StockView<Tallies> view;
+
+    @Autowired
+    public StockAggregates(StockService stockService, StockProperties stockProperties, ObjectProvider<StockSnapshots> stockSnapshots) {
+        this.stockService = stockService;
+        this.stockProperties = stockProperties;
+        this.view = new StockView<>(new Tallies(), this::apply, stockSnapshots);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        view.apply(event);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${stock.aggregates.reconcile-interval-ms:60000}",
+            fixedDelayString = "${stock.aggregates.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        view.rebuild(tallies -> new Tallies(),
+                tallies -> stockService.streamAll(stock -> apply(tallies, StockChangedEvent.updated(stock))));
+    }
+
+    public StockAggregatesDTO aggregate(AggregateGrouping grouping) {
+        List<Map.Entry<GroupKey, Totals>> snapshot;
+        Lock readLock = view.readLock();
+        readLock.lock();
+        try {
+            snapshot = view.current().totalsByGroup.entrySet()
+                    .stream()
+                    .map(entry -> Map.entry(entry.getKey(), entry.getValue().copy()))
+                    .collect(Collectors.toList());
+        } finally {
+            readLock.unlock();
+        }
+
+        Totals overall = new Totals();
+        Map<GroupKey, Totals> groups = new LinkedHashMap<>();
+        snapshot.stream()
+                .sorted(Map.Entry.comparingByKey(GroupKey.ORDER))
+                .forEach(entry -> {
+                    overall.add(entry.getValue());
+                    groups.computeIfAbsent(entry.getKey().groupedBy(grouping), key -> new Totals())
+                            .add(entry.getValue());
+                });
+
+        return StockAggregatesDTO.builder()
+                .totals(overall.toDTO(null))
+                .groups(groups.entrySet()
+                        .stream()
+                        .map(entry -> entry.getValue().toDTO(entry.getKey()))
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    private void apply(Tallies tallies, StockChangedEvent event) {
+        StockDTO stock = event.getStock();
+        Contribution previous = tallies.contributions.get(stock.getId());
+        if (previous != null && !event.isDeleted() && versionOf(stock) < previous.version) {
+            return;
+        }
+        if (previous != null) {
+            tallies.contributions.remove(stock.getId());
+            Totals totals = tallies.totalsByGroup.get(previous.group);
+            totals.subtract(previous);
+            if (totals.items == 0) {
+                tallies.totalsByGroup.remove(previous.group);
+            }
+        }
+        if (!event.isDeleted()) {
+            Contribution current = contributionOf(stock);
+            tallies.contributions.put(stock.getId(), current);
+            tallies.totalsByGroup.computeIfAbsent(current.group, key -> new Totals())
+                    .add(current);
+        }
+    }
+
+    private Contribution contributionOf(StockDTO stock) {
+        int quantity = stock.getQuantity() != null ? stock.getQuantity() : 0;
+        int max = stock.getMax() != null ? stock.getMax() : 0;
+        boolean nearCapacity = max > 0 && quantity >= max * stockProperties.getAggregates().getNearCapacityRatio();
+        return new Contribution(new GroupKey(stock.getType(), stock.getBrand()), quantity, max, quantity == 0, nearCapacity, versionOf(stock));
+    }
+
+    private static long versionOf(StockDTO stock) {
+        return stock.getVersion() != null ? stock.getVersion() : NO_VERSION;
+    }
+
+    private static class Tallies {
+
+        private final Map<Long, Contribution> contributions = new HashMap<>();
+        private final Map<GroupKey, Totals> totalsByGroup = new HashMap<>();
+    }
+
+    private static class Contribution {
+
+        private final GroupKey group;
+        private final int quantity;
+        private final int max;
+        private final boolean empty;
+        private final boolean nearCapacity;
+        private final long version;
+
+        private Contribution(GroupKey group, int quantity, int max, boolean empty, boolean nearCapacity, long version) {
+            this.group = group;
+            this.quantity = quantity;
+            this.max = max;
+            this.empty = empty;
+            this.nearCapacity = nearCapacity;
+            this.version = version;
+        }
+    }
+
+    private static class GroupKey {
+
+        private static final Comparator<GroupKey> ORDER = Comparator
+                .comparing((GroupKey key) -> key.type, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(key -> key.brand, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        private final StockType type;
+        private final String brand;
+
+        private GroupKey(StockType type, String brand) {
+            this.type = type;
+            this.brand = brand;
+        }
+
+        private GroupKey groupedBy(AggregateGrouping grouping) {
+            switch (grouping) {
+                case TYPE:
+                    return new GroupKey(type, null);
+                case BRAND:
+                    return new GroupKey(null, brand);
+                default:
+                    return this;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof GroupKey)) {
+                return false;
+            }
+            GroupKey other = (GroupKey) o;
+            return type == other.type && Objects.equals(brand, other.brand);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, brand);
+        }
+    }
+
+    private static class Totals {
+
+        private long items;
+        private long quantity;
+        private long max;
+        private long empty;
+        private long nearCapacity;
+
+        private void add(Contribution contribution) {
+            items++;
+            quantity += contribution.quantity;
+            max += contribution.max;
+            empty += contribution.empty ? 1 : 0;
+            nearCapacity += contribution.nearCapacity ? 1 : 0;
+        }
+
+        private void subtract(Contribution contribution) {
+            items--;
+            quantity -= contribution.quantity;
+            max -= contribution.max;
+            empty -= contribution.empty ? 1 : 0;
+            nearCapacity -= contribution.nearCapacity ? 1 : 0;
+        }
+
+        private void add(Totals totals) {
+            items += totals.items;
+            quantity += totals.quantity;
+            max += totals.max;
+            empty += totals.empty;
+            nearCapacity += totals.nearCapacity;
+        }
+
+        private Totals copy() {
+            Totals copy = new Totals();
+            copy.add(this);
+            return copy;
+        }
+
+        private StockAggregateDTO toDTO(GroupKey group) {
+            return StockAggregateDTO.builder()
+                    .type(group != null ? group.type : null)
+                    .brand(group != null ? group.brand : null)
+                    .items(items)
+                    .quantity(quantity)
+                    .max(max)
+                    .fillRatio(max > 0 ? (double) quantity / max : 0)
+                    .empty(empty)
+                    .nearCapacity(nearCapacity)
+                    .build();
+        }
+    }
+}
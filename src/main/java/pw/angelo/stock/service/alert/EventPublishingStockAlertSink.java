@@ -0,0 +1,23 @@
+package pw.angelo.stock.service.alert;
+
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import pw.angelo.stock.dto.StockAlertDTO;
+
+/**
+ * Republishes alerts as application events, so in-process code can react with
+ * a plain {@code @EventListener} on {@link StockAlertDTO}.
+ */
+@Component
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class EventPublishingStockAlertSink implements StockAlertSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void send(StockAlertDTO alert) {
+        eventPublisher.publishEvent(alert);
+    }
+}
@@ -0,0 +1,16 @@
+package pw.angelo.stock.service.alert;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import pw.angelo.stock.dto.StockAlertDTO;
+
+@Slf4j
+@Component
+public class LoggingStockAlertSink implements StockAlertSink {
+
+    @Override
+    public void send(StockAlertDTO alert) {
+        log.warn("Stock {} ({}) is {}: quantity {}, watermarks {}/{}",
+                alert.getName(), alert.getStockId(), alert.getAlert(), alert.getQuantity(), alert.getLowWatermark(), alert.getHighWatermark());
+    }
+}
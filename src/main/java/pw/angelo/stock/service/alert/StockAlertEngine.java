@@ -0,0 +1,132 @@
+package pw.angelo.stock.service.alert;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockAlertDTO;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.enums.StockAlertType;
+import pw.angelo.stock.event.StockChangedEvent;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Raises an alert when a stock crosses its low watermark and another when it
+ * recovers to its high watermark. Between the two the stock stays low, so a
+ * quantity bouncing around the low watermark alerts once. Each change looks
+ * only at the stock it concerns, so the cost does not grow with the catalog,
+ * and changes older than the last one seen for the stock are ignored.
+ *
+ * <p>Watermarks set on the stock win over the per type defaults in
+ * {@code stock.alerts.type-watermarks}. Without a high watermark the stock
+ * recovers as soon as it is above the low watermark.
+ */
+@Slf4j
+@Component
+public class StockAlertEngine {
+
+    private static final long NO_VERSION = Long.MIN_VALUE;
+
+    private final StockProperties.Alerts alertsProperties;
+    private final List<StockAlertSink> stockAlertSinks;
+    private final ConcurrentMap<Long, StockLevel> levels = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StockAlertEngine(StockProperties stockProperties, List<StockAlertSink> stockAlertSinks) {
+        this.alertsProperties = stockProperties.getAlerts();
+        this.stockAlertSinks = stockAlertSinks;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        StockDTO stock = event.getStock();
+        if (event.isDeleted()) {
+            levels.remove(stock.getId());
+            return;
+        }
+        long version = stock.getVersion() != null ? stock.getVersion() : NO_VERSION;
+        StockProperties.Watermarks watermarks = alertsProperties.isEnabled() ? watermarksOf(stock) : null;
+        if (watermarks == null) {
+            levels.compute(stock.getId(), (id, level) -> level != null && version < level.version ? level.withoutAlert() : new StockLevel(version, false, null));
+            return;
+        }
+        int lowWatermark = watermarks.getLow();
+        int highWatermark = watermarks.getHigh() != null ? watermarks.getHigh() : lowWatermark + 1;
+        int quantity = stock.getQuantity();
+        StockLevel changed = levels.compute(stock.getId(), (id, level) -> {
+            if (level != null && version < level.version) {
+                return level.withoutAlert();
+            }
+            boolean low = level != null && level.low;
+            if (quantity <= lowWatermark) {
+                return new StockLevel(version, true, low ? null : StockAlertType.LOW);
+            }
+            if (quantity >= highWatermark && low) {
+                return new StockLevel(version, false, StockAlertType.RECOVERED);
+            }
+            return new StockLevel(version, low, null);
+        });
+        if (changed.raised != null) {
+            raise(stock, changed.raised, lowWatermark, highWatermark);
+        }
+    }
+
+    public boolean isLow(Long stockId) {
+        StockLevel level = levels.get(stockId);
+        return level != null && level.low;
+    }
+
+    private StockProperties.Watermarks watermarksOf(StockDTO stock) {
+        if (stock.getLowWatermark() != null) {
+            StockProperties.Watermarks watermarks = new StockProperties.Watermarks();
+            watermarks.setLow(stock.getLowWatermark());
+            watermarks.setHigh(stock.getHighWatermark());
+            return watermarks;
+        }
+        StockProperties.Watermarks typeWatermarks = alertsProperties.getTypeWatermarks().get(stock.getType());
+        return typeWatermarks != null && typeWatermarks.getLow() != null ? typeWatermarks : null;
+    }
+
+    private void raise(StockDTO stock, StockAlertType alertType, int lowWatermark, int highWatermark) {
+        StockAlertDTO alert = StockAlertDTO.builder()
+                .stockId(stock.getId())
+                .name(stock.getName())
+                .type(stock.getType())
+                .alert(alertType)
+                .quantity(stock.getQuantity())
+                .lowWatermark(lowWatermark)
+                .highWatermark(highWatermark)
+                .at(Instant.now())
+                .build();
+        for (StockAlertSink sink : stockAlertSinks) {
+            try {
+                sink.send(alert);
+            } catch (RuntimeException e) {
+                log.warn("Stock alert sink {} failed: {}", sink.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    private static class StockLevel {
+
+        private final long version;
+        private final boolean low;
+        // the alert the change that produced this level raises, if any
+        private final StockAlertType raised;
+
+        private StockLevel(long version, boolean low, StockAlertType raised) {
+            this.version = version;
+            this.low = low;
+            this.raised = raised;
+        }
+
+        private StockLevel withoutAlert() {
+            return new StockLevel(version, low, null);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package pw.angelo.stock.service.alert;
+
+import pw.angelo.stock.dto.StockAlertDTO;
+
+/**
+ * Receives the alerts raised by {@link StockAlertEngine}. Every sink bean is
+ * called on the thread that committed the change, so slow deliveries should
+ * hand off to their own thread.
+ */
+public interface StockAlertSink {
+
+    void send(StockAlertDTO alert);
+}
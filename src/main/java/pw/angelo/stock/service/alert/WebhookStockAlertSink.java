@@ -0,0 +1,72 @@
+package pw.angelo.stock.service.alert;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockAlertDTO;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Posts alerts as JSON to {@code stock.alerts.webhook.url} from a single
+ * background thread. Alerts that do not fit the bounded queue, or that the
+ * endpoint rejects, are logged and dropped rather than retried.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "stock.alerts.webhook", name = "enabled", havingValue = "true")
+public class WebhookStockAlertSink implements StockAlertSink {
+
+    private final RestTemplate restTemplate;
+    private final String url;
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public WebhookStockAlertSink(RestTemplateBuilder restTemplateBuilder, StockProperties stockProperties) {
+        StockProperties.Webhook webhook = stockProperties.getAlerts().getWebhook();
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(webhook.getTimeout())
+                .setReadTimeout(webhook.getTimeout())
+                .build();
+        this.url = webhook.getUrl();
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(webhook.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "stock-alert-webhook");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public void send(StockAlertDTO alert) {
+        try {
+            executor.execute(() -> post(alert));
+        } catch (RejectedExecutionException e) {
+            log.warn("Dropping {} alert for stock {}, webhook queue is full", alert.getAlert(), alert.getStockId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void post(StockAlertDTO alert) {
+        try {
+            restTemplate.postForLocation(url, alert);
+        } catch (RestClientException e) {
+            log.warn("Could not deliver {} alert for stock {} to {}: {}", alert.getAlert(), alert.getStockId(), url, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package pw.angelo.stock.service.async;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.exception.StockServiceBusyException;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs blocking stock calls for the controller. When {@code stock.async.enabled}
+ * is set the calls run on a bounded pool so the servlet thread is released while
+ * JDBC blocks, and a full queue is answered with 503 instead of piling up
+ * requests; otherwise they run on the calling thread as before.
+ */
+@Component
+public class StockRequestExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+
+    @Autowired
+    public StockRequestExecutor(StockProperties stockProperties) {
+        StockProperties.Async async = stockProperties.getAsync();
+        this.queueCapacity = async.getQueueCapacity();
+        this.executor = async.isEnabled() ? newExecutor(async.getPoolSize(), queueCapacity) : null;
+    }
+
+    public <T> CompletableFuture<T> submit(BlockingCall<T> call) {
+        if (executor == null) {
+            return callInline(call);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return call.call();
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new StockServiceBusyException(queueCapacity));
+        }
+    }
+
+    public int queuedRequests() {
+        return executor != null ? executor.getQueue().size() : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private <T> CompletableFuture<T> callInline(BlockingCall<T> call) {
+        try {
+            return CompletableFuture.completedFuture(call.call());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static ThreadPoolExecutor newExecutor(int poolSize, int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "stock-request-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @FunctionalInterface
+    public interface BlockingCall<T> {
+
+        T call() throws Exception;
+    }
+}
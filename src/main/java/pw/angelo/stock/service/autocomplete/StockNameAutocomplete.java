@@ -0,0 +1,75 @@
+package pw.angelo.stock.service.autocomplete;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.event.StockChangedEvent;
+import pw.angelo.stock.service.StockService;
+import pw.angelo.stock.service.snapshot.StockSnapshots;
+import pw.angelo.stock.service.view.StockView;
+
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Serves name typeahead from a {@link StockNameTrie} built from every stock
+ * at startup, read through {@link StockService} so sharded catalogs are
+ * covered, and kept in sync through {@link StockChangedEvent}s.
+ */
+@Component
+public class StockNameAutocomplete {
+
+    private final StockService stockService;
+    private final StockProperties stockProperties;
+    private final StockView<StockNameTrie> view;
+
+    @Autowired
+    public StockNameAutocomplete(@Lazy StockService stockService, StockProperties stockProperties, ObjectProvider<StockSnapshots> stockSnapshots) {
+        this.stockService = stockService;
+        this.stockProperties = stockProperties;
+        this.view = new StockView<>(new StockNameTrie(), StockNameAutocomplete::apply, stockSnapshots);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        view.apply(event);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        view.rebuild(names -> new StockNameTrie(),
+                names -> stockService.streamAll(stock -> names.add(stock.getName())));
+    }
+
+    /**
+     * Names starting with the given prefix, ignoring case. A positive
+     * {@code maxDistance} also accepts prefixes that many edits away; it is
+     * capped at a third of the prefix length so short prefixes do not match
+     * everything.
+     */
+    public List<String> complete(String prefix, int maxDistance, int limit) {
+        StockProperties.Autocomplete autocompleteProperties = stockProperties.getAutocomplete();
+        int distance = Math.max(0, Math.min(maxDistance, Math.min(autocompleteProperties.getMaxDistance(), prefix.length() / 3)));
+        int boundedLimit = Math.max(1, Math.min(limit, autocompleteProperties.getMaxLimit()));
+        Lock readLock = view.readLock();
+        readLock.lock();
+        try {
+            return view.current().completeApproximately(prefix, distance, boundedLimit);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private static void apply(StockNameTrie names, StockChangedEvent event) {
+        if (event.isDeleted()) {
+            names.remove(event.getStock().getName());
+        } else {
+            names.add(event.getStock().getName());
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package pw.angelo.stock.service.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Case-insensitive prefix tree of stock names. Children are kept in sorted
+ * arrays, so completions come out in alphabetical order and a node costs two
+ * small arrays instead of a map. Not thread safe.
+ */
+public class StockNameTrie {
+
+    private final Node root = new Node();
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void add(String name) {
+        Node node = root;
+        for (char c : normalize(name).toCharArray()) {
+            node = node.childOrCreate(c);
+        }
+        if (node.addName(name)) {
+            size++;
+        }
+    }
+
+    public void remove(String name) {
+        if (remove(root, normalize(name), 0, name)) {
+            size--;
+        }
+    }
+
+    /**
+     * Names starting with the given prefix, ignoring case.
+     */
+    public List<String> complete(String prefix, int limit) {
+        List<String> completions = new ArrayList<>();
+        Node node = root;
+        for (char c : normalize(prefix).toCharArray()) {
+            node = node.child(c);
+            if (node == null) {
+                return completions;
+            }
+        }
+        collect(node, completions, limit);
+        return completions;
+    }
+
+    /**
+     * Names with a prefix within {@code maxDistance} edits of the given one,
+     * closest first and alphabetically within the same distance. Walks the
+     * tree carrying one Levenshtein row per node and prunes subtrees that can
+     * no longer come within the bound, which tightens as closer matches fill
+     * the limit.
+     */
+    public List<String> completeApproximately(String prefix, int maxDistance, int limit) {
+        if (maxDistance == 0) {
+            return complete(prefix, limit);
+        }
+        char[] query = normalize(prefix).toCharArray();
+        int[] firstRow = new int[query.length + 1];
+        for (int i = 0; i <= query.length; i++) {
+            firstRow[i] = i;
+        }
+        Matches matches = new Matches(maxDistance, limit);
+        search(root, query, firstRow, firstRow[query.length], matches);
+        return matches.toList();
+    }
+
+    private void search(Node node, char[] query, int[] row, int bestDistance, Matches matches) {
+        if (bestDistance <= matches.maxDistance) {
+            matches.add(node.names, bestDistance);
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            int[] childRow = nextRow(row, query, node.keys[i]);
+            int childBest = Math.min(bestDistance, childRow[query.length]);
+            if (min(childRow) <= matches.maxDistance) {
+                search(node.children[i], query, childRow, childBest, matches);
+            } else if (childBest <= matches.maxDistance) {
+                // every name below already matches through an ancestor
+                collectAtDistance(node.children[i], childBest, matches);
+            }
+        }
+    }
+
+    private void collectAtDistance(Node node, int distance, Matches matches) {
+        if (distance > matches.maxDistance) {
+            return;
+        }
+        matches.add(node.names, distance);
+        for (int i = 0; i < node.childCount; i++) {
+            collectAtDistance(node.children[i], distance, matches);
+        }
+    }
+
+    private static int[] nextRow(int[] row, char[] query, char c) {
+        int[] next = new int[row.length];
+        next[0] = row[0] + 1;
+        for (int i = 1; i < row.length; i++) {
+            int substitution = row[i - 1] + (query[i - 1] == c ? 0 : 1);
+            next[i] = Math.min(substitution, Math.min(row[i] + 1, next[i - 1] + 1));
+        }
+        return next;
+    }
+
+    private static int min(int[] row) {
+        int min = Integer.MAX_VALUE;
+        for (int value : row) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    private static void collect(Node node, List<String> completions, int limit) {
+        if (completions.size() >= limit) {
+            return;
+        }
+        if (node.names != null) {
+            for (String name : node.names) {
+                if (completions.size() >= limit) {
+                    return;
+                }
+                completions.add(name);
+            }
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            collect(node.children[i], completions, limit);
+        }
+    }
+
+    private static boolean remove(Node node, String normalizedName, int depth, String name) {
+        if (depth == normalizedName.length()) {
+            return node.removeName(name);
+        }
+        char c = normalizedName.charAt(depth);
+        Node child = node.child(c);
+        if (child == null || !remove(child, normalizedName, depth + 1, name)) {
+            return false;
+        }
+        if (child.isEmpty()) {
+            node.removeChild(c);
+        }
+        return true;
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static class Node {
+
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+        private List<String> names;
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(keys, 0, childCount, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node childOrCreate(char c) {
+            int index = Arrays.binarySearch(keys, 0, childCount, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            if (childCount == keys.length) {
+                int capacity = Math.max(2, childCount * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, insertAt, keys, insertAt + 1, childCount - insertAt);
+            System.arraycopy(children, insertAt, children, insertAt + 1, childCount - insertAt);
+            Node child = new Node();
+            keys[insertAt] = c;
+            children[insertAt] = child;
+            childCount++;
+            return child;
+        }
+
+        private void removeChild(char c) {
+            int index = Arrays.binarySearch(keys, 0, childCount, c);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(keys, index + 1, keys, index, childCount - index - 1);
+            System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+            children[--childCount] = null;
+        }
+
+        private boolean addName(String name) {
+            if (names == null) {
+                names = new ArrayList<>(1);
+            } else if (names.contains(name)) {
+                return false;
+            }
+            int index = 0;
+            while (index < names.size() && names.get(index).compareTo(name) < 0) {
+                index++;
+            }
+            names.add(index, name);
+            return true;
+        }
+
+        private boolean removeName(String name) {
+            if (names == null || !names.remove(name)) {
+                return false;
+            }
+            if (names.isEmpty()) {
+                names = null;
+            }
+            return true;
+        }
+
+        private boolean isEmpty() {
+            return childCount == 0 && names == null;
+        }
+    }
+
+    private static class Matches {
+
+        private final List<List<String>> byDistance = new ArrayList<>();
+        private final int limit;
+        private int maxDistance;
+
+        private Matches(int maxDistance, int limit) {
+            this.maxDistance = maxDistance;
+            this.limit = limit;
+            for (int distance = 0; distance <= maxDistance; distance++) {
+                byDistance.add(new ArrayList<>());
+            }
+        }
+
+        private void add(List<String> names, int distance) {
+            if (names == null) {
+                return;
+            }
+            List<String> matches = byDistance.get(distance);
+            for (String name : names) {
+                if (matches.size() < limit) {
+                    matches.add(name);
+                }
+            }
+            tighten();
+        }
+
+        // once closer distances already fill the limit, farther ones cannot appear in the result
+        private void tighten() {
+            int found = 0;
+            for (int distance = 0; distance < maxDistance; distance++) {
+                found += byDistance.get(distance).size();
+                if (found >= limit) {
+                    maxDistance = distance;
+                    return;
+                }
+            }
+        }
+
+        private List<String> toList() {
+            List<String> result = new ArrayList<>(limit);
+            for (int distance = 0; distance <= maxDistance && result.size() < limit; distance++) {
+                for (String name : byDistance.get(distance)) {
+                    if (result.size() >= limit) {
+                        break;
+                    }
+                    result.add(name);
+                }
+            }
+            return result;
+        }
+    }
+}
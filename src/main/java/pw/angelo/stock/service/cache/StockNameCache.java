@@ -0,0 +1,88 @@
+package pw.angelo.stock.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockDTO;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of stocks by name. Entries expire after
+ * {@code stock.cache.max-staleness}, which bounds how stale a quantity read
+ * through this cache can be, and are invalidated by every local write.
+ */
+@Component
+public class StockNameCache {
+
+    private static final String CACHE_NAME = "stockByName";
+
+    private final Cache<String, Optional<StockDTO>> cache;
+    private final boolean enabled;
+    private final boolean cacheNegativeLookups;
+
+    @Autowired
+    public StockNameCache(StockProperties stockProperties, MeterRegistry meterRegistry) {
+        StockProperties.Cache cacheProperties = stockProperties.getCache();
+        this.enabled = cacheProperties.isEnabled();
+        this.cacheNegativeLookups = cacheProperties.isCacheNegativeLookups();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaximumSize())
+                .expireAfterWrite(cacheProperties.getMaxStaleness())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public Optional<StockDTO> get(String name, Function<String, Optional<StockDTO>> loader) {
+        if (!enabled) {
+            return loader.apply(name);
+        }
+        Optional<StockDTO> cachedStock = cache.get(name, key -> {
+            Optional<StockDTO> loadedStock = loader.apply(key);
+            return loadedStock.isPresent() || cacheNegativeLookups ? loadedStock : null;
+        });
+        return cachedStock == null ? Optional.empty() : cachedStock.map(StockNameCache::copyOf);
+    }
+
+    /**
+     * Evicts once the surrounding transaction commits, or right away outside
+     * one. Evicting before the commit would let a concurrent read cache the
+     * row as it was before the write again.
+     */
+    public void evict(String name) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidate(name);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidate(name);
+            }
+        });
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    private static StockDTO copyOf(StockDTO stockDTO) {
+        return new StockDTO(stockDTO.getId(),
+                stockDTO.getName(),
+                stockDTO.getBrand(),
+                stockDTO.getMax(),
+                stockDTO.getQuantity(),
+                stockDTO.getType(),
+                stockDTO.getLowWatermark(),
+                stockDTO.getHighWatermark(),
+                stockDTO.getVersion());
+    }
+}
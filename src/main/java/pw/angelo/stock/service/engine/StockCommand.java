@@ -0,0 +1,68 @@
+package pw.angelo.stock.service.engine;
+
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.mapper.StockMapper;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An increment queued to the writer of its partition. The outcome is recorded
+ * while the batch is applied, replaced if the batch has to apply it again, and
+ * only handed to the caller once the batch has been committed.
+ */
+class StockCommand {
+
+    private final Long id;
+    private final int quantity;
+    private final CompletableFuture<StockDTO> result = new CompletableFuture<>();
+
+    private Stock stock;
+    private int quantityAfter;
+    private long versionAfter;
+    private Exception failure;
+
+    StockCommand(Long id, int quantity) {
+        this.id = id;
+        this.quantity = quantity;
+    }
+
+    Long getId() {
+        return id;
+    }
+
+    int getQuantity() {
+        return quantity;
+    }
+
+    CompletableFuture<StockDTO> getResult() {
+        return result;
+    }
+
+    void applied(Stock stock, int quantityAfter, long versionAfter) {
+        this.stock = stock;
+        this.quantityAfter = quantityAfter;
+        this.versionAfter = versionAfter;
+        this.failure = null;
+    }
+
+    void rejected(Exception failure) {
+        this.failure = failure;
+    }
+
+    void complete() {
+        if (failure != null) {
+            result.completeExceptionally(failure);
+            return;
+        }
+        // the stock holds the state written by the commit, the quantity and version are the ones this command left
+        StockDTO stockDTO = StockMapper.INSTANCE.toDTO(stock);
+        stockDTO.setQuantity(quantityAfter);
+        stockDTO.setVersion(versionAfter);
+        result.complete(stockDTO);
+    }
+
+    void fail(Throwable cause) {
+        result.completeExceptionally(cause);
+    }
+}
@@ -0,0 +1,106 @@
+package pw.angelo.stock.service.engine;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.repository.StockRepository;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Applies stock increments through one writer thread per partition of stock
+ * ids instead of letting request threads contend on row locks. Increments of
+ * a stock are applied in the order they were submitted, and each partition
+ * commits the commands it drained as one batch, so a hot stock costs one row
+ * update per batch rather than a lock and an update per request.
+ */
+@Component
+@ConditionalOnProperty(prefix = "stock.engine", name = "enabled", havingValue = "true")
+public class StockCommandEngine {
+
+    private final List<StockCommandPartition> partitions = new ArrayList<>();
+
+    @Autowired
+    public StockCommandEngine(StockRepository stockRepository,
+                              StockProperties stockProperties,
+                              MeterRegistry meterRegistry) {
+        if (stockProperties.getLedger().isEnabled() || stockProperties.getSharding().isEnabled()) {
+            throw new IllegalStateException("stock.engine.enabled cannot be combined with stock.ledger.enabled or stock.sharding.enabled");
+        }
+        StockProperties.Engine engineProperties = stockProperties.getEngine();
+        DistributionSummary batchSizes = DistributionSummary.builder("stock.engine.batch.size")
+                .description("Commands committed together by a stock engine writer")
+                .register(meterRegistry);
+        int maxCachedStocks = Math.max(1, engineProperties.getCachedStocks() / engineProperties.getPartitions());
+        for (int index = 0; index < engineProperties.getPartitions(); index++) {
+            partitions.add(new StockCommandPartition(index, engineProperties.getRingSize(), engineProperties.getMaxBatchSize(),
+                    maxCachedStocks, stockProperties.getIncrement().getMaxAttempts(), stockRepository, batchSizes));
+        }
+        Gauge.builder("stock.engine.queued", this, StockCommandEngine::queuedCommands)
+                .description("Commands waiting for a stock engine writer")
+                .register(meterRegistry);
+        partitions.forEach(StockCommandPartition::start);
+    }
+
+    /**
+     * Queues the increment to the writer owning the stock. The future
+     * completes once the increment is committed, or fails with the same
+     * exceptions {@link #increment} throws.
+     */
+    public CompletableFuture<StockDTO> submitIncrement(Long id, int quantityToIncrement) {
+        StockCommand command = new StockCommand(id, quantityToIncrement);
+        partitionOf(id).submit(command);
+        return command.getResult();
+    }
+
+    public StockDTO increment(Long id, int quantityToIncrement) throws StockNotFoundException, StockExceededException, StockInsufficientException {
+        try {
+            return submitIncrement(id, quantityToIncrement).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof StockNotFoundException) {
+                throw (StockNotFoundException) cause;
+            }
+            if (cause instanceof StockExceededException) {
+                throw (StockExceededException) cause;
+            }
+            if (cause instanceof StockInsufficientException) {
+                throw (StockInsufficientException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the increment of stock " + id, e);
+        }
+    }
+
+    public int queuedCommands() {
+        return partitions.stream()
+                .mapToInt(StockCommandPartition::queued)
+                .sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        partitions.forEach(StockCommandPartition::shutdown);
+    }
+
+    private StockCommandPartition partitionOf(Long id) {
+        return partitions.get((int) Math.floorMod(id, (long) partitions.size()));
+    }
+}
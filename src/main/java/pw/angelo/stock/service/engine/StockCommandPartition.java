@@ -0,0 +1,215 @@
+package pw.angelo.stock.service.engine;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import lombok.extern.slf4j.Slf4j;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.exception.StockConcurrentUpdateException;
+import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.StockQuantityChecks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * The single writer of one partition of stock ids. It keeps the stocks it
+ * wrote recently in memory, applies drained commands to them in queue order
+ * without any lock, and commits the resulting quantities of a batch in one
+ * JDBC batch, each row guarded by the version the writer last saw. A stock
+ * changed by anything else in the meantime fails its guard, is read again and
+ * has its commands applied again, so the engine never overwrites other writes.
+ * Callers only see a result once its batch is committed.
+ */
+@Slf4j
+class StockCommandPartition implements Runnable {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final CommandRing<StockCommand> ring;
+    private final int maxBatchSize;
+    private final int maxAttempts;
+    private final StockRepository stockRepository;
+    private final DistributionSummary batchSizes;
+    private final Map<Long, Stock> stocks;
+    private final Thread writer;
+
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    StockCommandPartition(int index, int ringSize, int maxBatchSize, int maxCachedStocks, int maxAttempts,
+                          StockRepository stockRepository, DistributionSummary batchSizes) {
+        this.ring = new CommandRing<>(ringSize);
+        this.maxBatchSize = maxBatchSize;
+        this.maxAttempts = maxAttempts;
+        this.stockRepository = stockRepository;
+        this.batchSizes = batchSizes;
+        this.stocks = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Stock> eldest) {
+                return size() > maxCachedStocks;
+            }
+        };
+        this.writer = new Thread(this, "stock-engine-writer-" + index);
+        this.writer.setDaemon(true);
+    }
+
+    void start() {
+        writer.start();
+    }
+
+    void submit(StockCommand command) {
+        while (!ring.offer(command)) {
+            if (!running) {
+                command.fail(new IllegalStateException("Stock command engine is shut down"));
+                return;
+            }
+            // full ring, wait for the writer to catch up
+            Thread.yield();
+        }
+        if (idle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    int queued() {
+        return ring.size();
+    }
+
+    void shutdown() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        List<StockCommand> batch = new ArrayList<>(maxBatchSize);
+        while (running || !ring.isEmpty()) {
+            if (ring.drainTo(batch, maxBatchSize) == 0) {
+                idle = true;
+                if (running && ring.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+                continue;
+            }
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void commit(List<StockCommand> batch) {
+        batchSizes.record(batch.size());
+        Map<Long, List<StockCommand>> pending = batch.stream()
+                .collect(Collectors.groupingBy(StockCommand::getId, LinkedHashMap::new, Collectors.toList()));
+        try {
+            for (int attempt = 1; !pending.isEmpty(); attempt++) {
+                if (attempt > maxAttempts) {
+                    pending.forEach((id, commands) -> {
+                        StockConcurrentUpdateException failure = new StockConcurrentUpdateException(id, maxAttempts);
+                        commands.forEach(command -> command.rejected(failure));
+                    });
+                    break;
+                }
+                pending = applyAndCommit(pending);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to commit a batch of {} stock commands", batch.size(), e);
+            batch.forEach(command -> {
+                stocks.remove(command.getId());
+                command.fail(e);
+            });
+            return;
+        }
+        batch.forEach(StockCommand::complete);
+    }
+
+    // returns the commands of stocks found changed by someone else, to apply again on their current state
+    private Map<Long, List<StockCommand>> applyAndCommit(Map<Long, List<StockCommand>> commandsById) {
+        // held apart from the cache, which may evict some of them while the others load
+        Map<Long, Stock> batchStocks = new HashMap<>();
+        Set<Long> loadedIds = load(commandsById.keySet(), batchStocks);
+        Map<Long, List<StockCommand>> stale = new LinkedHashMap<>();
+        List<Stock> changedStocks = new ArrayList<>();
+        Map<Long, Integer> versionSteps = new HashMap<>();
+        commandsById.forEach((id, commands) -> {
+            Stock stock = batchStocks.get(id);
+            if (stock == null) {
+                commands.forEach(command -> command.rejected(new StockNotFoundException(id)));
+                return;
+            }
+            int applied = 0;
+            boolean anyRejected = false;
+            for (StockCommand command : commands) {
+                try {
+                    StockQuantityChecks.verifyAdjustment(id, stock.getQuantity(), stock.getReserved(), stock.getMax(), command.getQuantity());
+                    stock.setQuantity(stock.getQuantity() + command.getQuantity());
+                    applied++;
+                    // each command gets a version of its own, so listeners can order their changes
+                    command.applied(stock, stock.getQuantity(), stock.getVersion() + applied);
+                } catch (StockExceededException | StockInsufficientException e) {
+                    command.rejected(e);
+                    anyRejected = true;
+                }
+            }
+            if (anyRejected && !loadedIds.contains(id)) {
+                // a rejection only stands against a state read in this batch
+                stocks.remove(id);
+                stale.put(id, commands);
+            } else if (applied > 0) {
+                changedStocks.add(stock);
+                versionSteps.put(id, applied);
+            }
+        });
+        changedStocks.sort(Comparator.comparing(Stock::getId));
+        int[] steps = changedStocks.stream()
+                .mapToInt(stock -> versionSteps.get(stock.getId()))
+                .toArray();
+        int[] updated = stockRepository.compareAndSetQuantities(changedStocks, steps);
+        for (int i = 0; i < updated.length; i++) {
+            Stock stock = changedStocks.get(i);
+            if (updated[i] > 0) {
+                stock.setVersion(stock.getVersion() + steps[i]);
+            } else {
+                stocks.remove(stock.getId());
+                stale.put(stock.getId(), commandsById.get(stock.getId()));
+            }
+        }
+        return stale;
+    }
+
+    // returns the ids that were not cached and had to be read
+    private Set<Long> load(Set<Long> ids, Map<Long, Stock> batchStocks) {
+        Set<Long> missingIds = new HashSet<>();
+        for (Long id : ids) {
+            Stock stock = stocks.get(id);
+            if (stock != null) {
+                batchStocks.put(id, stock);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            stockRepository.findAllById(missingIds).forEach(stock -> {
+                batchStocks.put(stock.getId(), stock);
+                stocks.put(stock.getId(), stock);
+            });
+        }
+        return missingIds;
+    }
+}
@@ -0,0 +1,101 @@
+package pw.angelo.stock.service.feed;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockChangeFilterDTO;
+import pw.angelo.stock.event.StockChangedEvent;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes stock changes to server-sent event subscribers. Committed changes
+ * are queued per subscriber and flushed every
+ * {@code stock.feed.dispatch-interval-ms} on a small sender pool, so a slow
+ * client only delays itself and sees coalesced changes meanwhile.
+ */
+@Slf4j
+@Component
+public class StockChangeFeed {
+
+    private final Set<StockFeedSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final StockProperties.Feed feedProperties;
+    private final ExecutorService sender;
+
+    @Autowired
+    public StockChangeFeed(StockProperties stockProperties) {
+        this(stockProperties, newSender(stockProperties.getFeed().getSenderPoolSize()));
+    }
+
+    StockChangeFeed(StockProperties stockProperties, ExecutorService sender) {
+        this.feedProperties = stockProperties.getFeed();
+        this.sender = sender;
+    }
+
+    public SseEmitter subscribe(StockChangeFilterDTO filter) {
+        SseEmitter emitter = new SseEmitter(feedProperties.getTimeout().toMillis());
+        register(new StockFeedSubscription(emitter, filter, feedProperties.getMaxPendingPerSubscriber()));
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        subscriptions.forEach(subscription -> subscription.offer(event));
+    }
+
+    @Scheduled(fixedDelayString = "${stock.feed.dispatch-interval-ms:250}")
+    public void dispatch() {
+        for (StockFeedSubscription subscription : subscriptions) {
+            if (subscription.hasPending() && subscription.tryClaim()) {
+                sender.execute(() -> send(subscription));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdown();
+        subscriptions.forEach(subscription -> subscription.getEmitter().complete());
+    }
+
+    void register(StockFeedSubscription subscription) {
+        SseEmitter emitter = subscription.getEmitter();
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(e -> subscriptions.remove(subscription));
+        subscriptions.add(subscription);
+    }
+
+    private void send(StockFeedSubscription subscription) {
+        try {
+            subscription.send();
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping stock feed subscriber: {}", e.getMessage());
+            subscriptions.remove(subscription);
+            subscription.getEmitter().completeWithError(e);
+        }
+    }
+
+    private static ExecutorService newSender(int poolSize) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "stock-feed-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
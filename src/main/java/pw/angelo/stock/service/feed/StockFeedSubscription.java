@@ -0,0 +1,95 @@
+package pw.angelo.stock.service.feed;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pw.angelo.stock.dto.StockChangeFilterDTO;
+import pw.angelo.stock.event.StockChangedEvent;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One feed client. Changes wait in a map keyed by stock id, so repeated
+ * changes to a stock between two sends collapse into the latest one, and the
+ * map is bounded: past the limit the oldest change is dropped and the client
+ * is told how many it missed.
+ */
+class StockFeedSubscription {
+
+    static final String UPDATED = "updated";
+    static final String DELETED = "deleted";
+    static final String DROPPED = "dropped";
+
+    private final SseEmitter emitter;
+    private final StockChangeFilterDTO filter;
+    private final int maxPending;
+    private final Map<Long, StockChangedEvent> pending = new LinkedHashMap<>();
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private long dropped;
+
+    StockFeedSubscription(SseEmitter emitter, StockChangeFilterDTO filter, int maxPending) {
+        this.emitter = emitter;
+        this.filter = filter;
+        this.maxPending = maxPending;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    synchronized void offer(StockChangedEvent event) {
+        if (!filter.matches(event.getStock())) {
+            return;
+        }
+        Long id = event.getStock().getId();
+        pending.remove(id);
+        pending.put(id, event);
+        if (pending.size() > maxPending) {
+            Iterator<StockChangedEvent> oldest = pending.values().iterator();
+            oldest.next();
+            oldest.remove();
+            dropped++;
+        }
+    }
+
+    synchronized boolean hasPending() {
+        return !pending.isEmpty() || dropped > 0;
+    }
+
+    /**
+     * Claims the subscription for one send so a slow client never has two in
+     * flight; changes keep coalescing while it is claimed.
+     */
+    boolean tryClaim() {
+        return sending.compareAndSet(false, true);
+    }
+
+    void send() throws IOException {
+        try {
+            List<StockChangedEvent> events;
+            long droppedEvents;
+            synchronized (this) {
+                events = new ArrayList<>(pending.values());
+                droppedEvents = dropped;
+                pending.clear();
+                dropped = 0;
+            }
+            if (droppedEvents > 0) {
+                emitter.send(SseEmitter.event().name(DROPPED).data(droppedEvents));
+            }
+            for (StockChangedEvent event : events) {
+                emitter.send(SseEmitter.event()
+                        .name(event.isDeleted() ? DELETED : UPDATED)
+                        .id(String.valueOf(event.getStock().getId()))
+                        .data(event.getStock(), MediaType.APPLICATION_JSON));
+            }
+        } finally {
+            sending.set(false);
+        }
+    }
+}
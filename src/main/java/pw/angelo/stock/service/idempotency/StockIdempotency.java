@@ -0,0 +1,189 @@
+package pw.angelo.stock.service.idempotency;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.entity.IdempotencyRecord;
+import pw.angelo.stock.exception.StockIdempotencyInProgressException;
+import pw.angelo.stock.exception.StockIdempotencyKeyReusedException;
+import pw.angelo.stock.repository.IdempotencyRecordRepository;
+
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a stock write at most once per {@code Idempotency-Key}. The response of
+ * a successful call is kept for {@code stock.idempotency.ttl} in a bounded
+ * in-memory store, and also in the {@link IdempotencyRecord} table when
+ * {@code stock.idempotency.persistent} is set, so a retry gets the same
+ * response without running the call again. A duplicate arriving while the
+ * first call is still running waits for its result instead of running too.
+ *
+ * <p>Failed calls are not kept: they changed nothing, so a retry runs again.
+ * Each key is bound to the request it was first used with, and using it for a
+ * different one is rejected.
+ */
+@Slf4j
+@Component
+public class StockIdempotency {
+
+    private final StockProperties.Idempotency idempotencyProperties;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Execution> executions;
+
+    @Autowired
+    public StockIdempotency(StockProperties stockProperties, IdempotencyRecordRepository idempotencyRecordRepository, ObjectMapper objectMapper) {
+        this.idempotencyProperties = stockProperties.getIdempotency();
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        // stored responses are read back whole, the version that clients may not write included
+        this.objectMapper = objectMapper.copy().addMixIn(StockDTO.class, StoredStockDTO.class);
+        this.executions = Caffeine.newBuilder()
+                .maximumSize(idempotencyProperties.getMaximumSize())
+                .expireAfterWrite(idempotencyProperties.getTtl())
+                .build();
+    }
+
+    /**
+     * Runs the call unless a call with the same key already ran or is running,
+     * in which case its response is returned. The fingerprint identifies the
+     * request, such as the operation and its arguments.
+     */
+    public <E extends Exception> StockDTO execute(String idempotencyKey, String fingerprint, IdempotentCall<E> call)
+            throws E, StockIdempotencyKeyReusedException, StockIdempotencyInProgressException {
+        while (true) {
+            Execution execution = new Execution(fingerprint);
+            Execution existing = executions.asMap().putIfAbsent(idempotencyKey, execution);
+            if (existing == null) {
+                Optional<Execution> persisted = loadPersisted(idempotencyKey);
+                if (persisted.isEmpty()) {
+                    return run(idempotencyKey, execution, call);
+                }
+                executions.asMap().replace(idempotencyKey, execution, persisted.get());
+                // duplicates already waiting on this execution look the key up again
+                execution.response.completeExceptionally(new IllegalStateException("Replaced by a persisted response"));
+                existing = persisted.get();
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new StockIdempotencyKeyReusedException(idempotencyKey);
+            }
+            Optional<String> response = await(idempotencyKey, existing);
+            if (response.isPresent()) {
+                return fromJson(response.get());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stock.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpiredRecords() {
+        if (!idempotencyProperties.isPersistent()) {
+            return;
+        }
+        Instant before = Instant.now().minus(idempotencyProperties.getTtl());
+        int purged = idempotencyRecordRepository.deleteByCreatedAtBefore(before);
+        if (purged > 0) {
+            log.debug("Purged {} idempotency records created before {}", purged, before);
+        }
+    }
+
+    private <E extends Exception> StockDTO run(String idempotencyKey, Execution execution, IdempotentCall<E> call) throws E {
+        StockDTO result;
+        try {
+            result = call.call();
+        } catch (Exception e) {
+            executions.asMap().remove(idempotencyKey, execution);
+            execution.response.completeExceptionally(e);
+            throw e;
+        }
+        String response = toJson(result);
+        if (idempotencyProperties.isPersistent()) {
+            try {
+                idempotencyRecordRepository.save(new IdempotencyRecord(idempotencyKey, execution.fingerprint, response, Instant.now()));
+            } catch (RuntimeException e) {
+                log.warn("Failed to persist idempotency key {}, it is only kept in memory", idempotencyKey, e);
+            }
+        }
+        execution.response.complete(response);
+        return result;
+    }
+
+    // empty when the execution failed or was replaced, so the caller should look the key up again
+    private Optional<String> await(String idempotencyKey, Execution execution) throws StockIdempotencyInProgressException {
+        try {
+            return Optional.of(execution.response.get(idempotencyProperties.getInProgressTimeout().toMillis(), TimeUnit.MILLISECONDS));
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        } catch (TimeoutException e) {
+            throw new StockIdempotencyInProgressException(idempotencyKey);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StockIdempotencyInProgressException(idempotencyKey);
+        }
+    }
+
+    private Optional<Execution> loadPersisted(String idempotencyKey) {
+        if (!idempotencyProperties.isPersistent()) {
+            return Optional.empty();
+        }
+        Instant oldest = Instant.now().minus(idempotencyProperties.getTtl());
+        return idempotencyRecordRepository.findById(idempotencyKey)
+                .filter(record -> record.getCreatedAt().isAfter(oldest))
+                .map(record -> {
+                    Execution execution = new Execution(record.getFingerprint());
+                    execution.response.complete(record.getResponse());
+                    return execution;
+                });
+    }
+
+    private String toJson(StockDTO stockDTO) {
+        try {
+            return objectMapper.writeValueAsString(stockDTO);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private StockDTO fromJson(String response) {
+        try {
+            return objectMapper.readValue(response, StockDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface IdempotentCall<E extends Exception> {
+
+        StockDTO call() throws E;
+    }
+
+    // on the setter, which is consulted before the field when reading
+    private abstract static class StoredStockDTO {
+
+        @JsonProperty(access = JsonProperty.Access.READ_WRITE)
+        abstract void setVersion(Long version);
+    }
+
+    private static class Execution {
+
+        private final String fingerprint;
+        private final CompletableFuture<String> response = new CompletableFuture<>();
+
+        private Execution(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
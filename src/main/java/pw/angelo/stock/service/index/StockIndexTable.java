@@ -0,0 +1,281 @@
+package pw.angelo.stock.service.index;
+
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.enums.StockType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column storage behind {@link StockReadIndex}: each stock occupies a slot in
+ * parallel primitive arrays, found through open-addressing tables keyed by
+ * name and by id. Brands are interned in a dictionary so a slot only keeps an
+ * int reference to its brand. Not thread-safe.
+ */
+class StockIndexTable {
+
+    static final int NOT_FOUND = -1;
+
+    private static final StockType[] TYPES = StockType.values();
+    private static final byte NO_TYPE = -1;
+    private static final int NO_WATERMARK = Integer.MIN_VALUE;
+    private static final long NO_VERSION = Long.MIN_VALUE;
+
+    private long[] ids;
+    private String[] names;
+    private int[] brandRefs;
+    private int[] quantities;
+    private int[] maxes;
+    private byte[] typeOrdinals;
+    private int[] lowWatermarks;
+    private int[] highWatermarks;
+    private long[] versions;
+
+    // slots below slotCount are in use unless they are on the free list
+    private int slotCount;
+    private int[] freeSlots;
+    private int freeSlotCount;
+
+    // buckets hold slot + 1, zero marks an empty bucket
+    private int[] slotsByName;
+    private int[] slotsById;
+
+    private String[] brands = new String[16];
+    private int brandCount;
+    private final Map<String, Integer> brandRefsByName = new HashMap<>();
+
+    private final long[] unitsByType = new long[TYPES.length];
+    private final long[] maxByType = new long[TYPES.length];
+    private final int[] itemsByType = new int[TYPES.length];
+
+    StockIndexTable(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        ids = new long[capacity];
+        names = new String[capacity];
+        brandRefs = new int[capacity];
+        quantities = new int[capacity];
+        maxes = new int[capacity];
+        typeOrdinals = new byte[capacity];
+        lowWatermarks = new int[capacity];
+        highWatermarks = new int[capacity];
+        versions = new long[capacity];
+        freeSlots = new int[16];
+        slotsByName = new int[bucketsFor(capacity)];
+        slotsById = new int[bucketsFor(capacity)];
+    }
+
+    int size() {
+        return slotCount - freeSlotCount;
+    }
+
+    int slotOfName(String name) {
+        int mask = slotsByName.length - 1;
+        for (int bucket = hash(name) & mask; ; bucket = (bucket + 1) & mask) {
+            int entry = slotsByName[bucket];
+            if (entry == 0) {
+                return NOT_FOUND;
+            }
+            if (name.equals(names[entry - 1])) {
+                return entry - 1;
+            }
+        }
+    }
+
+    int slotOfId(long id) {
+        int mask = slotsById.length - 1;
+        for (int bucket = hash(id) & mask; ; bucket = (bucket + 1) & mask) {
+            int entry = slotsById[bucket];
+            if (entry == 0) {
+                return NOT_FOUND;
+            }
+            if (ids[entry - 1] == id) {
+                return entry - 1;
+            }
+        }
+    }
+
+    int quantityAt(int slot) {
+        return quantities[slot];
+    }
+
+    long unitsOf(StockType type) {
+        return unitsByType[type.ordinal()];
+    }
+
+    long maxOf(StockType type) {
+        return maxByType[type.ordinal()];
+    }
+
+    int itemsOf(StockType type) {
+        return itemsByType[type.ordinal()];
+    }
+
+    StockDTO toDTO(int slot) {
+        return new StockDTO(ids[slot],
+                names[slot],
+                brands[brandRefs[slot]],
+                maxes[slot],
+                quantities[slot],
+                typeOrdinals[slot] != NO_TYPE ? TYPES[typeOrdinals[slot]] : null,
+                lowWatermarks[slot] != NO_WATERMARK ? lowWatermarks[slot] : null,
+                highWatermarks[slot] != NO_WATERMARK ? highWatermarks[slot] : null,
+                versions[slot] != NO_VERSION ? versions[slot] : null);
+    }
+
+    /**
+     * Stores the state of a stock, unless the stored state has a newer
+     * version, as when change events of the same stock arrive out of order.
+     */
+    void upsert(StockDTO stock) {
+        long version = stock.getVersion() != null ? stock.getVersion() : NO_VERSION;
+        int slot = slotOfId(stock.getId());
+        if (slot == NOT_FOUND) {
+            slot = allocateSlot();
+            ids[slot] = stock.getId();
+            names[slot] = stock.getName();
+            insert(slotsById, hash(ids[slot]), slot);
+            insert(slotsByName, hash(names[slot]), slot);
+        } else {
+            if (version < versions[slot]) {
+                return;
+            }
+            subtractTotals(slot);
+            if (!names[slot].equals(stock.getName())) {
+                remove(slotsByName, hash(names[slot]), slot, true);
+                names[slot] = stock.getName();
+                insert(slotsByName, hash(names[slot]), slot);
+            }
+        }
+        brandRefs[slot] = brandRefOf(stock.getBrand());
+        quantities[slot] = stock.getQuantity() != null ? stock.getQuantity() : 0;
+        maxes[slot] = stock.getMax() != null ? stock.getMax() : 0;
+        typeOrdinals[slot] = stock.getType() != null ? (byte) stock.getType().ordinal() : NO_TYPE;
+        lowWatermarks[slot] = stock.getLowWatermark() != null ? stock.getLowWatermark() : NO_WATERMARK;
+        highWatermarks[slot] = stock.getHighWatermark() != null ? stock.getHighWatermark() : NO_WATERMARK;
+        versions[slot] = version;
+        addTotals(slot);
+    }
+
+    void remove(long id) {
+        int slot = slotOfId(id);
+        if (slot == NOT_FOUND) {
+            return;
+        }
+        subtractTotals(slot);
+        remove(slotsById, hash(id), slot, false);
+        remove(slotsByName, hash(names[slot]), slot, true);
+        names[slot] = null;
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    private int allocateSlot() {
+        if ((size() + 1) * 2 > slotsById.length) {
+            rehash(slotsById.length * 2);
+        }
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (slotCount == ids.length) {
+            grow(ids.length * 2);
+        }
+        return slotCount++;
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        brandRefs = Arrays.copyOf(brandRefs, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        maxes = Arrays.copyOf(maxes, capacity);
+        typeOrdinals = Arrays.copyOf(typeOrdinals, capacity);
+        lowWatermarks = Arrays.copyOf(lowWatermarks, capacity);
+        highWatermarks = Arrays.copyOf(highWatermarks, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+    }
+
+    private void rehash(int buckets) {
+        slotsByName = new int[buckets];
+        slotsById = new int[buckets];
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (names[slot] != null) {
+                insert(slotsById, hash(ids[slot]), slot);
+                insert(slotsByName, hash(names[slot]), slot);
+            }
+        }
+    }
+
+    private int brandRefOf(String brand) {
+        Integer brandRef = brandRefsByName.get(brand);
+        if (brandRef != null) {
+            return brandRef;
+        }
+        if (brandCount == brands.length) {
+            brands = Arrays.copyOf(brands, brands.length * 2);
+        }
+        brands[brandCount] = brand;
+        brandRefsByName.put(brand, brandCount);
+        return brandCount++;
+    }
+
+    private void addTotals(int slot) {
+        byte type = typeOrdinals[slot];
+        if (type != NO_TYPE) {
+            unitsByType[type] += quantities[slot];
+            maxByType[type] += maxes[slot];
+            itemsByType[type]++;
+        }
+    }
+
+    private void subtractTotals(int slot) {
+        byte type = typeOrdinals[slot];
+        if (type != NO_TYPE) {
+            unitsByType[type] -= quantities[slot];
+            maxByType[type] -= maxes[slot];
+            itemsByType[type]--;
+        }
+    }
+
+    private static void insert(int[] table, int hash, int slot) {
+        int mask = table.length - 1;
+        int bucket = hash & mask;
+        while (table[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        table[bucket] = slot + 1;
+    }
+
+    // backward-shift deletion keeps probe sequences intact without tombstones
+    private void remove(int[] table, int hash, int slot, boolean byName) {
+        int mask = table.length - 1;
+        int hole = hash & mask;
+        while (table[hole] != slot + 1) {
+            hole = (hole + 1) & mask;
+        }
+        for (int bucket = (hole + 1) & mask; table[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int movedSlot = table[bucket] - 1;
+            int home = (byName ? hash(names[movedSlot]) : hash(ids[movedSlot])) & mask;
+            if (((bucket - home) & mask) >= ((bucket - hole) & mask)) {
+                table[hole] = table[bucket];
+                hole = bucket;
+            }
+        }
+        table[hole] = 0;
+    }
+
+    private static int bucketsFor(int capacity) {
+        return Integer.highestOneBit(capacity - 1) << 2;
+    }
+
+    private static int hash(String name) {
+        int h = name.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int hash(long id) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+}
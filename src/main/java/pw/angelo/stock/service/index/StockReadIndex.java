@@ -0,0 +1,143 @@
+package pw.angelo.stock.service.index;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.enums.StockType;
+import pw.angelo.stock.event.StockChangedEvent;
+import pw.angelo.stock.service.StockService;
+import pw.angelo.stock.service.snapshot.StockSnapshots;
+import pw.angelo.stock.service.view.StockView;
+
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Every stock's name, brand, quantity, capacity and type held in primitive
+ * columns, so name lookups, availability checks and per-type unit totals are
+ * answered from memory without a query and without allocating per row. Like
+ * the aggregates it is built from the warm snapshot or a repository scan once
+ * the application is ready, kept current from {@link StockChangedEvent}s and
+ * rebuilt periodically to correct drift.
+ *
+ * <p>Until the first build completes {@link #isReady()} is false and callers
+ * read the database instead.
+ */
+@Component
+@ConditionalOnProperty(prefix = "stock.read-index", name = "enabled", havingValue = "true")
+public class StockReadIndex {
+
+    public static final int NOT_INDEXED = StockIndexTable.NOT_FOUND;
+
+    private final StockService stockService;
+    private final StockProperties.ReadIndex readIndexProperties;
+    private final StockView<StockIndexTable> view;
+    private final Lock readLock;
+
+    private volatile boolean ready;
+
+    // lazy, as the stock service reads from this index
+    @Autowired
+    public StockReadIndex(@Lazy StockService stockService, StockProperties stockProperties, ObjectProvider<StockSnapshots> stockSnapshots) {
+        this.stockService = stockService;
+        this.readIndexProperties = stockProperties.getReadIndex();
+        this.view = new StockView<>(new StockIndexTable(readIndexProperties.getInitialCapacity()), StockReadIndex::apply, stockSnapshots);
+        this.readLock = view.readLock();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        view.apply(event);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${stock.read-index.rebuild-interval-ms:600000}",
+            fixedDelayString = "${stock.read-index.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        view.rebuild(table -> new StockIndexTable(Math.max(readIndexProperties.getInitialCapacity(), table.size())),
+                table -> stockService.streamAll(table::upsert));
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Optional<StockDTO> findByName(String name) {
+        readLock.lock();
+        try {
+            StockIndexTable table = view.current();
+            int slot = table.slotOfName(name);
+            return slot != StockIndexTable.NOT_FOUND ? Optional.of(table.toDTO(slot)) : Optional.empty();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * The quantity of a stock, or {@link #NOT_INDEXED} when no stock has the
+     * given id.
+     */
+    public int quantityOf(long id) {
+        readLock.lock();
+        try {
+            StockIndexTable table = view.current();
+            int slot = table.slotOfId(id);
+            return slot != StockIndexTable.NOT_FOUND ? table.quantityAt(slot) : NOT_INDEXED;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public long unitsOf(StockType type) {
+        readLock.lock();
+        try {
+            return view.current().unitsOf(type);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public long maxOf(StockType type) {
+        readLock.lock();
+        try {
+            return view.current().maxOf(type);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public int itemsOf(StockType type) {
+        readLock.lock();
+        try {
+            return view.current().itemsOf(type);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public int size() {
+        readLock.lock();
+        try {
+            return view.current().size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private static void apply(StockIndexTable table, StockChangedEvent event) {
+        if (event.isDeleted()) {
+            table.remove(event.getStock().getId());
+        } else {
+            table.upsert(event.getStock());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package pw.angelo.stock.service.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.entity.StockMovement;
+import pw.angelo.stock.enums.MovementType;
+import pw.angelo.stock.repository.StockMovementRepository;
+import pw.angelo.stock.repository.StockRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only journal of stock movements, used by the ledger instead of
+ * updating stock rows in place. Movements are buffered and written with batched
+ * inserts, and {@code Stock.quantity} is a snapshot that a periodic checkpoint
+ * advances by summing the movements past each stock's {@code journalCheckpoint}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "stock.ledger", name = {"enabled", "journal"}, havingValue = "true")
+public class StockJournal {
+
+    private final StockMovementRepository stockMovementRepository;
+    private final StockRepository stockRepository;
+
+    private final Queue<StockMovement> pendingMovements = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    @Autowired
+    public StockJournal(StockMovementRepository stockMovementRepository, StockRepository stockRepository) {
+        this.stockMovementRepository = stockMovementRepository;
+        this.stockRepository = stockRepository;
+    }
+
+    public int append(Long stockId, int quantity) {
+        MovementType type = quantity < 0 ? MovementType.DECREMENT : MovementType.INCREMENT;
+        pendingMovements.add(new StockMovement(null, stockId, quantity, type, Instant.now()));
+        return pendingCount.incrementAndGet();
+    }
+
+    /**
+     * Drops the movements of a stock that were not written yet, as when the
+     * stock is deleted.
+     */
+    public void discard(Long stockId) {
+        writeLock.lock();
+        try {
+            Iterator<StockMovement> movements = pendingMovements.iterator();
+            while (movements.hasNext()) {
+                if (movements.next().getStockId().equals(stockId)) {
+                    movements.remove();
+                    pendingCount.decrementAndGet();
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Transactional
+    public void recordCreated(Collection<Stock> stocks) {
+        List<StockMovement> movements = new ArrayList<>(stocks.size());
+        Instant now = Instant.now();
+        for (Stock stock : stocks) {
+            movements.add(new StockMovement(null, stock.getId(), stock.getQuantity(), MovementType.CREATE, now));
+        }
+        Map<Long, Long> checkpoints = new HashMap<>();
+        for (StockMovement movement : stockMovementRepository.saveAll(movements)) {
+            checkpoints.put(movement.getStockId(), movement.getId());
+        }
+        stockMovementRepository.flush();
+        stockRepository.advanceJournalCheckpoints(checkpoints);
+    }
+
+    public void flush() {
+        writeLock.lock();
+        try {
+            List<StockMovement> movements = drainPendingMovements();
+            if (movements.isEmpty()) {
+                return;
+            }
+            try {
+                stockMovementRepository.saveAll(movements);
+            } catch (RuntimeException e) {
+                log.warn("Failed to append {} stock movements, they will be retried", movements.size(), e);
+                movements.forEach(movement -> {
+                    movement.setId(null);
+                    pendingMovements.add(movement);
+                    pendingCount.incrementAndGet();
+                });
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stock.ledger.checkpoint-interval-ms:5000}")
+    public void checkpoint() {
+        writeLock.lock();
+        try {
+            Long lastMovementId = stockMovementRepository.findMaxId();
+            if (lastMovementId != null) {
+                stockRepository.checkpointJournal(lastMovementId);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public Optional<Integer> quantityOf(Long stockId) {
+        return stockRepository.findJournaledQuantity(stockId);
+    }
+
+    public Optional<Integer> quantityAt(Long stockId, Instant at) {
+        flush();
+        return stockRepository.findJournaledQuantityAt(stockId, at);
+    }
+
+    private List<StockMovement> drainPendingMovements() {
+        List<StockMovement> movements = new ArrayList<>();
+        StockMovement movement;
+        while ((movement = pendingMovements.poll()) != null) {
+            pendingCount.decrementAndGet();
+            movements.add(movement);
+        }
+        return movements;
+    }
+}
@@ -0,0 +1,96 @@
+package pw.angelo.stock.service.ledger;
+
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.service.StockQuantityChecks;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory quantity of one stock. Every change also advances the version by
+ * one from the version the stock was loaded with, so the events published for
+ * ledger changes keep their order in the version-guarded views even though the
+ * stock row only gets one version per flush.
+ */
+class LedgerEntry {
+
+    private final Stock stock;
+    // the number of changes in the high half and the quantity in the low half, so both move together
+    private final AtomicLong state;
+    private final LongAdder unflushedDelta = new LongAdder();
+
+    LedgerEntry(Stock stock, int quantity) {
+        this.stock = stock;
+        this.state = new AtomicLong(pack(0, quantity));
+    }
+
+    StockDTO add(int delta) throws StockExceededException, StockInsufficientException {
+        long current;
+        long next;
+        do {
+            current = state.get();
+            StockQuantityChecks.verifyAdjustment(stock.getId(), quantityOf(current), stock.getReserved(), stock.getMax(), delta);
+            next = advance(current, delta);
+        } while (!state.compareAndSet(current, next));
+        unflushedDelta.add(delta);
+        return toDTO(next);
+    }
+
+    void forceAdd(int delta) {
+        long current;
+        do {
+            current = state.get();
+        } while (!state.compareAndSet(current, advance(current, delta)));
+        unflushedDelta.add(delta);
+    }
+
+    int drainUnflushedDelta() {
+        return (int) unflushedDelta.sumThenReset();
+    }
+
+    void restoreUnflushedDelta(int delta) {
+        unflushedDelta.add(delta);
+    }
+
+    int getQuantity() {
+        return quantityOf(state.get());
+    }
+
+    StockDTO overlay(StockDTO stockDTO) {
+        long current = state.get();
+        stockDTO.setQuantity(quantityOf(current));
+        stockDTO.setVersion(versionOf(current));
+        return stockDTO;
+    }
+
+    private StockDTO toDTO(long state) {
+        return new StockDTO(stock.getId(),
+                stock.getName(),
+                stock.getBrand(),
+                stock.getMax(),
+                quantityOf(state),
+                stock.getType(),
+                stock.getLowWatermark(),
+                stock.getHighWatermark(),
+                versionOf(state));
+    }
+
+    private long versionOf(long state) {
+        return stock.getVersion() + (state >>> 32);
+    }
+
+    private static int quantityOf(long state) {
+        return (int) state;
+    }
+
+    private static long advance(long state, int delta) {
+        return pack((state >>> 32) + 1, quantityOf(state) + delta);
+    }
+
+    private static long pack(long changes, int quantity) {
+        return changes << 32 | quantity & 0xFFFFFFFFL;
+    }
+}
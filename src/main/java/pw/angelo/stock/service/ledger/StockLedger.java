@@ -0,0 +1,202 @@
+package pw.angelo.stock.service.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.exception.StockHistoryUnavailableException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.journal.StockJournal;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind ledger of stock quantities. Increments are validated against
+ * {@code max} and applied to in-memory counters, and the accumulated deltas are
+ * flushed to the database in JDBC batches on a schedule, when the number of
+ * dirty stocks reaches the configured threshold, and on shutdown. When a
+ * {@link StockJournal} is present every increment is appended to it as a
+ * movement instead, and stock rows are only updated by its checkpoints.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "stock.ledger", name = "enabled", havingValue = "true")
+public class StockLedger {
+
+    private final StockRepository stockRepository;
+    private final StockJournal stockJournal;
+    private final int flushThreshold;
+
+    private final ConcurrentMap<Long, LedgerEntry> entries = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyIds = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-ledger-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public StockLedger(StockRepository stockRepository, StockProperties stockProperties, ObjectProvider<StockJournal> stockJournal) {
+        this.stockRepository = stockRepository;
+        this.flushThreshold = stockProperties.getLedger().getFlushThreshold();
+        this.stockJournal = stockJournal.getIfAvailable();
+    }
+
+    public StockDTO increment(Long id, int quantityToIncrement) throws StockNotFoundException, StockExceededException, StockInsufficientException {
+        StockDTO incremented = entryFor(id).add(quantityToIncrement);
+        record(id, quantityToIncrement);
+        return incremented;
+    }
+
+    public void revert(Long id, int incrementedQuantity) {
+        LedgerEntry entry = entries.get(id);
+        if (entry != null) {
+            entry.forceAdd(-incrementedQuantity);
+            record(id, -incrementedQuantity);
+        }
+    }
+
+    public void recordCreated(Collection<Stock> stocks) {
+        if (stockJournal != null) {
+            stockJournal.recordCreated(stocks);
+        }
+    }
+
+    public Optional<Integer> quantityAt(Long id, Instant at) throws StockHistoryUnavailableException {
+        if (stockJournal == null) {
+            throw new StockHistoryUnavailableException();
+        }
+        return stockJournal.quantityAt(id, at);
+    }
+
+    public Optional<Integer> quantityOf(Long id) {
+        return Optional.ofNullable(entries.get(id))
+                .map(LedgerEntry::getQuantity);
+    }
+
+    /**
+     * Replaces the stored quantity and version with the ledger's, so views
+     * rebuilt from the overlaid stock accept the ledger changes that follow.
+     */
+    public StockDTO overlay(StockDTO stockDTO) {
+        LedgerEntry entry = entries.get(stockDTO.getId());
+        return entry != null ? entry.overlay(stockDTO) : stockDTO;
+    }
+
+    public void evict(Long id) {
+        entries.remove(id);
+        dirtyIds.remove(id);
+        if (stockJournal != null) {
+            stockJournal.discard(id);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stock.ledger.flush-interval-ms:200}")
+    public void flush() {
+        if (stockJournal != null) {
+            stockJournal.flush();
+            return;
+        }
+        flushLock.lock();
+        try {
+            Map<Long, Integer> deltas = drainDirtyDeltas();
+            if (deltas.isEmpty()) {
+                return;
+            }
+            try {
+                stockRepository.applyQuantityDeltas(deltas);
+            } catch (RuntimeException e) {
+                log.warn("Failed to flush {} stock quantity deltas, they will be retried", deltas.size(), e);
+                restore(deltas);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        flush();
+    }
+
+    private LedgerEntry entryFor(Long id) throws StockNotFoundException {
+        LedgerEntry entry = entries.get(id);
+        if (entry != null) {
+            return entry;
+        }
+        Stock stock = stockRepository.findById(id)
+                .orElseThrow(() -> new StockNotFoundException(id));
+        int quantity = stockJournal != null
+                ? stockJournal.quantityOf(id).orElseThrow(() -> new StockNotFoundException(id))
+                : stock.getQuantity();
+        LedgerEntry loadedEntry = new LedgerEntry(stock, quantity);
+        LedgerEntry existingEntry = entries.putIfAbsent(id, loadedEntry);
+        return existingEntry != null ? existingEntry : loadedEntry;
+    }
+
+    private void record(Long id, int delta) {
+        boolean flushDue = stockJournal != null
+                ? stockJournal.append(id, delta) >= flushThreshold
+                : dirtyIds.add(id) && dirtyIds.size() >= flushThreshold;
+        if (flushDue && flushRequested.compareAndSet(false, true)) {
+            try {
+                flushExecutor.execute(() -> {
+                    flushRequested.set(false);
+                    flush();
+                });
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private Map<Long, Integer> drainDirtyDeltas() {
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (Long id : dirtyIds) {
+            dirtyIds.remove(id);
+            LedgerEntry entry = entries.get(id);
+            if (entry == null) {
+                continue;
+            }
+            int delta = entry.drainUnflushedDelta();
+            if (delta != 0) {
+                deltas.put(id, delta);
+            }
+        }
+        return deltas;
+    }
+
+    private void restore(Map<Long, Integer> deltas) {
+        deltas.forEach((id, delta) -> {
+            LedgerEntry entry = entries.get(id);
+            if (entry != null) {
+                entry.restoreUnflushedDelta(delta);
+                dirtyIds.add(id);
+            }
+        });
+    }
+}
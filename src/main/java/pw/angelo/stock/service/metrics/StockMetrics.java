@@ -0,0 +1,177 @@
+package pw.angelo.stock.service.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import pw.angelo.stock.exception.StockAlreadyRegisteredException;
+import pw.angelo.stock.exception.StockConcurrentUpdateException;
+import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.exception.StockLedgerUnsupportedException;
+import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.exception.StockShardingUnsupportedException;
+import pw.angelo.stock.exception.StockSortUnsupportedException;
+import pw.angelo.stock.exception.StockSyncExpiredException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Times stock operations as {@code stock.operations}, tagged by operation and
+ * outcome, and records how many times each database increment was retried.
+ */
+@Component
+public class StockMetrics {
+
+    public static final String CREATE = "create";
+    public static final String FIND_BY_NAME = "findByName";
+    public static final String LIST_ALL = "listAll";
+    public static final String DELETE = "delete";
+    public static final String INCREMENT = "increment";
+    public static final String SEARCH = "search";
+    public static final String SYNC = "sync";
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary incrementRetries;
+    private final ConcurrentMap<String, Timer[]> operationTimers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StockMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.incrementRetries = DistributionSummary.builder("stock.increment.retries")
+                .description("Retries of a database increment caused by lock conflicts or concurrent updates")
+                .serviceLevelObjectives(1, 2, 3, 5, 10)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the call and times it as the given operation, tagged with the
+     * outcome the exception it throws stands for, if any. The compiler infers
+     * a single exception type for the call, so bodies throwing several checked
+     * exceptions time themselves through {@link #start} instead.
+     */
+    public <T, E extends Exception> T record(String operation, TimedCall<T, E> call) throws E {
+        Timing timing = start(operation);
+        try {
+            return call.call();
+        } catch (Exception e) {
+            timing.failed(e);
+            throw e;
+        } finally {
+            timing.stop();
+        }
+    }
+
+    public <E extends Exception> void record(String operation, TimedRunnable<E> call) throws E {
+        record(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Starts timing the given operation. The caller reports a thrown exception
+     * through {@link Timing#failed} and always calls {@link Timing#stop}.
+     */
+    public Timing start(String operation) {
+        return new Timing(operation, Timer.start(meterRegistry));
+    }
+
+    public void recordIncrementRetries(int retries) {
+        incrementRetries.record(retries);
+    }
+
+    // registered on first use instead of looked up by name and tags on every call
+    private Timer timerFor(String operation, Outcome outcome) {
+        Timer[] timers = operationTimers.computeIfAbsent(operation, key -> new Timer[OUTCOMES.length]);
+        Timer timer = timers[outcome.ordinal()];
+        if (timer == null) {
+            // racing threads register the same meter, the registry hands both the same timer
+            timer = Timer.builder("stock.operations")
+                    .description("Stock operations by outcome")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome.tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            timers[outcome.ordinal()] = timer;
+        }
+        return timer;
+    }
+
+    @FunctionalInterface
+    public interface TimedCall<T, E extends Exception> {
+
+        T call() throws E;
+    }
+
+    @FunctionalInterface
+    public interface TimedRunnable<E extends Exception> {
+
+        void run() throws E;
+    }
+
+    public final class Timing {
+
+        private final String operation;
+        private final Timer.Sample sample;
+        private Outcome outcome = Outcome.SUCCESS;
+
+        private Timing(String operation, Timer.Sample sample) {
+            this.operation = operation;
+            this.sample = sample;
+        }
+
+        public void failed(Exception failure) {
+            outcome = Outcome.of(failure);
+        }
+
+        public void stop() {
+            sample.stop(timerFor(operation, outcome));
+        }
+    }
+
+    private enum Outcome {
+
+        SUCCESS("success"),
+        NOT_FOUND("not-found"),
+        EXCEEDED("exceeded"),
+        INSUFFICIENT("insufficient"),
+        ALREADY_REGISTERED("already-registered"),
+        UNSUPPORTED_SORT("unsupported-sort"),
+        CONCURRENT_UPDATE("concurrent-update"),
+        UNSUPPORTED_MODE("unsupported-mode"),
+        SYNC_EXPIRED("sync-expired"),
+        ERROR("error");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+
+        private static Outcome of(Exception failure) {
+            if (failure instanceof StockNotFoundException) {
+                return NOT_FOUND;
+            } else if (failure instanceof StockExceededException) {
+                return EXCEEDED;
+            } else if (failure instanceof StockInsufficientException) {
+                return INSUFFICIENT;
+            } else if (failure instanceof StockAlreadyRegisteredException) {
+                return ALREADY_REGISTERED;
+            } else if (failure instanceof StockSortUnsupportedException) {
+                return UNSUPPORTED_SORT;
+            } else if (failure instanceof StockConcurrentUpdateException) {
+                return CONCURRENT_UPDATE;
+            } else if (failure instanceof StockShardingUnsupportedException || failure instanceof StockLedgerUnsupportedException) {
+                return UNSUPPORTED_MODE;
+            } else if (failure instanceof StockSyncExpiredException) {
+                return SYNC_EXPIRED;
+            }
+            return ERROR;
+        }
+    }
+}
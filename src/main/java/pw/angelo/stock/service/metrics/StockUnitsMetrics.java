@@ -0,0 +1,58 @@
+package pw.angelo.stock.service.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pw.angelo.stock.dto.StockTypeUnitsDTO;
+import pw.angelo.stock.enums.StockType;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.index.StockReadIndex;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gauges of the total units stored per {@link StockType}. The totals are
+ * refreshed on a schedule rather than queried on every scrape, and reflect the
+ * database, so unflushed ledger deltas are not included, unless the read index
+ * is enabled, in which case they are its running totals.
+ */
+@Component
+public class StockUnitsMetrics {
+
+    private final StockRepository stockRepository;
+    private final ObjectProvider<StockReadIndex> stockReadIndex;
+    private final Map<StockType, AtomicLong> unitsByType = new EnumMap<>(StockType.class);
+
+    @Autowired
+    public StockUnitsMetrics(StockRepository stockRepository, ObjectProvider<StockReadIndex> stockReadIndex, MeterRegistry meterRegistry) {
+        this.stockRepository = stockRepository;
+        this.stockReadIndex = stockReadIndex;
+        for (StockType type : StockType.values()) {
+            AtomicLong units = new AtomicLong();
+            unitsByType.put(type, units);
+            Gauge.builder("stock.units", units, AtomicLong::get)
+                    .description("Units in stock per type")
+                    .tag("type", type.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stock.metrics.units-refresh-interval-ms:10000}")
+    public void refresh() {
+        StockReadIndex index = stockReadIndex.getIfAvailable();
+        if (index != null && index.isReady()) {
+            unitsByType.forEach((type, units) -> units.set(index.unitsOf(type)));
+            return;
+        }
+        Map<StockType, Long> refreshedUnits = new EnumMap<>(StockType.class);
+        for (StockTypeUnitsDTO typeUnits : stockRepository.sumQuantityByType()) {
+            refreshedUnits.put(typeUnits.getType(), typeUnits.getUnits());
+        }
+        unitsByType.forEach((type, units) -> units.set(refreshedUnits.getOrDefault(type, 0L)));
+    }
+}
@@ -0,0 +1,85 @@
+package pw.angelo.stock.service.ratelimit;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.exception.StockServiceBusyException;
+import pw.angelo.stock.service.async.StockRequestExecutor;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Turns writes away with 503 before they reach the database when it is
+ * already saturated: when more threads than
+ * {@code stock.load-shedding.max-pending-connections} are waiting for a pooled
+ * connection, or more than {@code stock.load-shedding.max-queued-requests}
+ * calls are queued on the {@link StockRequestExecutor}. Both are read on every
+ * write, so shedding stops as soon as the backlog drains.
+ */
+@Component
+public class StockLoadShedder {
+
+    static final String DB_POOL = "db-pool";
+    static final String REQUEST_QUEUE = "request-queue";
+
+    private final StockProperties.LoadShedding loadSheddingProperties;
+    private final HikariDataSource hikariDataSource;
+    private final StockRequestExecutor stockRequestExecutor;
+    private final Counter shedByDbPool;
+    private final Counter shedByRequestQueue;
+
+    @Autowired
+    public StockLoadShedder(StockProperties stockProperties, DataSource dataSource, StockRequestExecutor stockRequestExecutor,
+                            MeterRegistry meterRegistry) {
+        this.loadSheddingProperties = stockProperties.getLoadShedding();
+        this.hikariDataSource = unwrapHikari(dataSource);
+        this.stockRequestExecutor = stockRequestExecutor;
+        this.shedByDbPool = shedCounter(meterRegistry, DB_POOL);
+        this.shedByRequestQueue = shedCounter(meterRegistry, REQUEST_QUEUE);
+        Gauge.builder("stock.requests.queued", stockRequestExecutor, StockRequestExecutor::queuedRequests)
+                .description("Stock calls waiting for a request thread")
+                .register(meterRegistry);
+    }
+
+    public void admit() throws StockServiceBusyException {
+        if (!loadSheddingProperties.isEnabled()) {
+            return;
+        }
+        int pendingConnections = pendingConnections();
+        if (pendingConnections > loadSheddingProperties.getMaxPendingConnections()) {
+            shedByDbPool.increment();
+            throw new StockServiceBusyException(String.format("%s threads are waiting for a database connection", pendingConnections));
+        }
+        int queuedRequests = stockRequestExecutor.queuedRequests();
+        if (queuedRequests > loadSheddingProperties.getMaxQueuedRequests()) {
+            shedByRequestQueue.increment();
+            throw new StockServiceBusyException(String.format("%s stock calls are queued", queuedRequests));
+        }
+    }
+
+    private int pendingConnections() {
+        HikariPoolMXBean pool = hikariDataSource != null ? hikariDataSource.getHikariPoolMXBean() : null;
+        return pool != null ? pool.getThreadsAwaitingConnection() : 0;
+    }
+
+    private static HikariDataSource unwrapHikari(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private static Counter shedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("stock.loadshedding.rejected")
+                .description("Write requests rejected with 503 because the service was saturated")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
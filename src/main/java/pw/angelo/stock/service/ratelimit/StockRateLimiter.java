@@ -0,0 +1,116 @@
+package pw.angelo.stock.service.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.exception.StockRateLimitedException;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * One {@link TokenBucket} per client and endpoint. Buckets are created on
+ * first use and dropped once they have refilled, so idle clients cost
+ * nothing. Past {@code stock.rate-limit.max-tracked-clients} buckets, new
+ * clients share one bucket per endpoint instead of growing the map further.
+ */
+@Component
+public class StockRateLimiter {
+
+    private static final String OVERFLOW_CLIENT = "";
+
+    private final StockProperties.RateLimit rateLimitProperties;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoClock;
+    private final ConcurrentMap<BucketKey, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StockRateLimiter(StockProperties stockProperties, MeterRegistry meterRegistry) {
+        this(stockProperties, meterRegistry, System::nanoTime);
+    }
+
+    StockRateLimiter(StockProperties stockProperties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.rateLimitProperties = stockProperties.getRateLimit();
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+        Gauge.builder("stock.ratelimit.buckets", buckets, ConcurrentMap::size)
+                .description("Client and endpoint pairs with a partly used rate limit")
+                .register(meterRegistry);
+    }
+
+    public void acquire(String clientId, String endpoint) throws StockRateLimitedException {
+        if (!rateLimitProperties.isEnabled()) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        long waitNanos = bucketOf(clientId, endpoint, now).tryAcquire(now);
+        if (waitNanos > 0) {
+            rejected(endpoint).increment();
+            throw new StockRateLimitedException(clientId, endpoint, waitNanos);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stock.rate-limit.eviction-interval-ms:10000}")
+    public void evictRefilledBuckets() {
+        long now = nanoClock.getAsLong();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    int trackedBuckets() {
+        return buckets.size();
+    }
+
+    private TokenBucket bucketOf(String clientId, String endpoint, long now) {
+        BucketKey key = new BucketKey(clientId, endpoint);
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= rateLimitProperties.getMaxTrackedClients()) {
+            key = new BucketKey(OVERFLOW_CLIENT, endpoint);
+        }
+        StockProperties.Limit limit = rateLimitProperties.getEndpoints().getOrDefault(endpoint, rateLimitProperties.getDefaultLimit());
+        return buckets.computeIfAbsent(key, ignored -> new TokenBucket(limit.getPermitsPerSecond(), limit.getBurst(), now));
+    }
+
+    private Counter rejected(String endpoint) {
+        return Counter.builder("stock.ratelimit.rejected")
+                .description("Write requests rejected with 429 because the client exceeded its rate limit")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+    }
+
+    private static class BucketKey {
+
+        private final String clientId;
+        private final String endpoint;
+
+        private BucketKey(String clientId, String endpoint) {
+            this.clientId = clientId;
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BucketKey)) {
+                return false;
+            }
+            BucketKey other = (BucketKey) o;
+            return clientId.equals(other.clientId) && endpoint.equals(other.endpoint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(clientId, endpoint);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package pw.angelo.stock.service.reservation;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+@Getter
+@EqualsAndHashCode
+class ExpiringReservation implements Delayed {
+
+    private final Long reservationId;
+    private final long expiresAtMillis;
+
+    ExpiringReservation(Long reservationId, Instant expiresAt) {
+        this.reservationId = reservationId;
+        this.expiresAtMillis = expiresAt.toEpochMilli();
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(expiresAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+    }
+}
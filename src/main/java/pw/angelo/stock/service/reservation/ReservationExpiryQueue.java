@@ -0,0 +1,37 @@
+package pw.angelo.stock.service.reservation;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Expiry times of active reservations, ordered by deadline. Draining only
+ * touches reservations whose deadline has passed, so a sweep costs
+ * O(expired * log n) no matter how many holds are outstanding. Confirmed and
+ * released reservations are left to expire here and are ignored by the sweeper.
+ */
+@Component
+public class ReservationExpiryQueue {
+
+    private final DelayQueue<ExpiringReservation> queue = new DelayQueue<>();
+
+    public void schedule(Long reservationId, Instant expiresAt) {
+        queue.add(new ExpiringReservation(reservationId, expiresAt));
+    }
+
+    public List<Long> drainExpired() {
+        List<ExpiringReservation> expiredReservations = new ArrayList<>();
+        queue.drainTo(expiredReservations);
+        return expiredReservations.stream()
+                .map(ExpiringReservation::getReservationId)
+                .collect(Collectors.toList());
+    }
+
+    public int size() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,166 @@
+package pw.angelo.stock.service.reservation;
+
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.AvailabilityDTO;
+import pw.angelo.stock.dto.ReservationDTO;
+import pw.angelo.stock.dto.ReservationRequestDTO;
+import pw.angelo.stock.entity.Reservation;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.enums.ReservationStatus;
+import pw.angelo.stock.event.StockChangedEvent;
+import pw.angelo.stock.exception.ReservationNotFoundException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.exception.StockLedgerUnsupportedException;
+import pw.angelo.stock.exception.StockShardingUnsupportedException;
+import pw.angelo.stock.mapper.ReservationMapper;
+import pw.angelo.stock.mapper.StockMapper;
+import pw.angelo.stock.repository.ReservationRepository;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.cache.StockNameCache;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Holds stock for a limited time without taking it out. Holds are counted in
+ * {@code Stock.reserved} through conditional updates, so the available
+ * quantity ({@code quantity - reserved}) can never be oversold by concurrent
+ * reservations and decrements are not allowed to take reserved units.
+ * Sharded stocks have no reserved count and the write-behind ledger keeps
+ * quantities the reserved count is not checked against, so reservations are
+ * refused while {@code stock.sharding.enabled} or {@code stock.ledger.enabled}
+ * is set.
+ */
+@Service
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class ReservationService {
+
+    private final ReservationRepository reservationRepository;
+    private final StockRepository stockRepository;
+    private final ReservationExpiryQueue reservationExpiryQueue;
+    private final StockNameCache stockNameCache;
+    private final StockProperties stockProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReservationMapper reservationMapper = ReservationMapper.INSTANCE;
+    private final StockMapper stockMapper = StockMapper.INSTANCE;
+
+    @Transactional(rollbackFor = Exception.class)
+    public ReservationDTO reserve(Long stockId, ReservationRequestDTO reservationRequest)
+            throws StockNotFoundException, StockInsufficientException, StockShardingUnsupportedException, StockLedgerUnsupportedException {
+        verifySupported();
+        int quantity = reservationRequest.getQuantity();
+        if (stockRepository.reserveQuantity(stockId, quantity) == 0) {
+            verifyIfStockExists(stockId);
+            throw new StockInsufficientException(stockId, quantity);
+        }
+        Instant expiresAt = Instant.now().plus(ttlOf(reservationRequest));
+        Reservation reservation = reservationRepository.save(new Reservation(null, stockId, quantity, ReservationStatus.ACTIVE, expiresAt));
+        // a rolled back reservation must not be expired, and its id may be reused
+        afterCommit(() -> reservationExpiryQueue.schedule(reservation.getId(), expiresAt));
+        return reservationMapper.toDTO(reservation);
+    }
+
+    @Transactional(rollbackFor = Exception.class)
+    public ReservationDTO confirm(Long reservationId) throws ReservationNotFoundException, StockShardingUnsupportedException, StockLedgerUnsupportedException {
+        verifySupported();
+        // a hold past its expiry is the expiry queue's to release, even while it is still active
+        int confirmed = reservationRepository.updateStatusBeforeExpiry(reservationId, ReservationStatus.ACTIVE, ReservationStatus.CONFIRMED, Instant.now());
+        Reservation reservation = finishedReservation(reservationId, confirmed);
+        if (stockRepository.consumeReservedQuantity(reservation.getStockId(), reservation.getQuantity()) == 0) {
+            throw new IllegalStateException(String.format("Stock with id %s holds less than the reserved quantity", reservation.getStockId()));
+        }
+        stockChangedAfterCommit(reservation.getStockId());
+        return reservationMapper.toDTO(reservation);
+    }
+
+    @Transactional(rollbackFor = Exception.class)
+    public void release(Long reservationId) throws ReservationNotFoundException, StockShardingUnsupportedException, StockLedgerUnsupportedException {
+        verifySupported();
+        Reservation reservation = finishActiveReservation(reservationId, ReservationStatus.RELEASED);
+        stockRepository.releaseReservedQuantity(reservation.getStockId(), reservation.getQuantity());
+    }
+
+    @Transactional
+    public boolean expire(Long reservationId) {
+        try {
+            Reservation reservation = finishActiveReservation(reservationId, ReservationStatus.EXPIRED);
+            stockRepository.releaseReservedQuantity(reservation.getStockId(), reservation.getQuantity());
+            return true;
+        } catch (ReservationNotFoundException e) {
+            return false;
+        }
+    }
+
+    public AvailabilityDTO availability(Long stockId) throws StockNotFoundException, StockShardingUnsupportedException, StockLedgerUnsupportedException {
+        verifySupported();
+        Stock stock = verifyIfStockExists(stockId);
+        return new AvailabilityDTO(stock.getId(),
+                stock.getQuantity(),
+                stock.getReserved(),
+                stock.getQuantity() - stock.getReserved());
+    }
+
+    private void verifySupported() throws StockShardingUnsupportedException, StockLedgerUnsupportedException {
+        if (stockProperties.getSharding().isEnabled()) {
+            throw new StockShardingUnsupportedException("Reservation");
+        }
+        // ledger entries check decrements against the reserved count they were loaded with
+        if (stockProperties.getLedger().isEnabled()) {
+            throw new StockLedgerUnsupportedException("Reservation");
+        }
+    }
+
+    private Reservation finishActiveReservation(Long reservationId, ReservationStatus status) throws ReservationNotFoundException {
+        return finishedReservation(reservationId, reservationRepository.updateStatus(reservationId, ReservationStatus.ACTIVE, status));
+    }
+
+    private Reservation finishedReservation(Long reservationId, int updated) throws ReservationNotFoundException {
+        if (updated == 0) {
+            throw new ReservationNotFoundException(reservationId);
+        }
+        return reservationRepository.findById(reservationId)
+                .orElseThrow(() -> new ReservationNotFoundException(reservationId));
+    }
+
+    private Duration ttlOf(ReservationRequestDTO reservationRequest) {
+        StockProperties.Reservation reservationProperties = stockProperties.getReservation();
+        if (reservationRequest.getTtlSeconds() == null) {
+            return reservationProperties.getDefaultTtl();
+        }
+        Duration requestedTtl = Duration.ofSeconds(reservationRequest.getTtlSeconds());
+        return requestedTtl.compareTo(reservationProperties.getMaxTtl()) > 0 ? reservationProperties.getMaxTtl() : requestedTtl;
+    }
+
+    private Stock verifyIfStockExists(Long stockId) throws StockNotFoundException {
+        return stockRepository.findById(stockId)
+                .orElseThrow(() -> new StockNotFoundException(stockId));
+    }
+
+    private void stockChangedAfterCommit(Long stockId) {
+        stockRepository.findById(stockId).ifPresent(stock -> {
+            eventPublisher.publishEvent(StockChangedEvent.updated(stockMapper.toDTO(stock)));
+            stockNameCache.evict(stock.getName());
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
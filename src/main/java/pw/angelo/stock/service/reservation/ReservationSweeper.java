@@ -0,0 +1,41 @@
+package pw.angelo.stock.service.reservation;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pw.angelo.stock.enums.ReservationStatus;
+import pw.angelo.stock.repository.ReservationRepository;
+
+import java.time.Instant;
+
+@Slf4j
+@Component
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class ReservationSweeper {
+
+    private final ReservationService reservationService;
+    private final ReservationRepository reservationRepository;
+    private final ReservationExpiryQueue reservationExpiryQueue;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleActiveReservations() {
+        reservationRepository.findByStatus(ReservationStatus.ACTIVE)
+                .forEach(reservation -> reservationExpiryQueue.schedule(reservation.getId(), reservation.getExpiresAt()));
+    }
+
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-interval-ms:1000}")
+    public void sweepExpiredReservations() {
+        for (Long reservationId : reservationExpiryQueue.drainExpired()) {
+            try {
+                reservationService.expire(reservationId);
+            } catch (RuntimeException e) {
+                log.warn("Failed to expire reservation {}, it will be retried", reservationId, e);
+                reservationExpiryQueue.schedule(reservationId, Instant.now());
+            }
+        }
+    }
+}
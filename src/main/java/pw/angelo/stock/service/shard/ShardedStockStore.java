@@ -0,0 +1,173 @@
+package pw.angelo.stock.service.shard;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.exception.StockAlreadyRegisteredException;
+import pw.angelo.stock.exception.StockConcurrentUpdateException;
+import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.service.StockQuantityChecks;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps stocks in {@code stock.sharding.shards} independent databases instead
+ * of the application datasource, so writes to different shards share no pool,
+ * lock or log. A stock lives on the shard its name hashes to, and the ids a
+ * shard assigns are congruent to its index, so lookups by name and by id both
+ * go straight to the owning shard. Listing queries every shard in parallel
+ * and merges their id ordered results.
+ */
+@Component
+@ConditionalOnProperty(prefix = "stock.sharding", name = "enabled", havingValue = "true")
+public class ShardedStockStore {
+
+    private final List<StockShard> shards = new ArrayList<>();
+    private final ExecutorService scatterExecutor;
+    private final int maxIncrementAttempts;
+
+    @Autowired
+    public ShardedStockStore(StockProperties stockProperties) {
+        if (stockProperties.getLedger().isEnabled()) {
+            throw new IllegalStateException("stock.sharding.enabled cannot be combined with stock.ledger.enabled");
+        }
+        this.maxIncrementAttempts = stockProperties.getIncrement().getMaxAttempts();
+        StockProperties.Sharding shardingProperties = stockProperties.getSharding();
+        for (int index = 0; index < shardingProperties.getShards(); index++) {
+            shards.add(new StockShard(index, shardingProperties));
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.scatterExecutor = Executors.newFixedThreadPool(shards.size(), runnable -> {
+            Thread thread = new Thread(runnable, "stock-shard-scatter-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public StockDTO create(StockDTO stockDTO) throws StockAlreadyRegisteredException {
+        return shardOf(stockDTO.getName()).insert(stockDTO);
+    }
+
+    public Optional<StockDTO> findByName(String name) {
+        return shardOf(name).findByName(name);
+    }
+
+    public Optional<StockDTO> findById(Long id) {
+        return shardOf(id).findById(id);
+    }
+
+    public StockDTO increment(Long id, int quantityToIncrement) throws StockNotFoundException, StockExceededException, StockInsufficientException {
+        StockShard shard = shardOf(id);
+        int attempt = 1;
+        while (!shard.increment(id, quantityToIncrement)) {
+            StockDTO stockDTO = shard.findById(id)
+                    .orElseThrow(() -> new StockNotFoundException(id));
+            // passes only when the quantity changed between the update and the read
+            StockQuantityChecks.verifyAdjustment(id, stockDTO.getQuantity(), 0, stockDTO.getMax(), quantityToIncrement);
+            if (attempt++ >= maxIncrementAttempts) {
+                throw new StockConcurrentUpdateException(id, maxIncrementAttempts);
+            }
+        }
+        return shard.findById(id)
+                .orElseThrow(() -> new StockNotFoundException(id));
+    }
+
+    public Optional<StockDTO> deleteById(Long id) {
+        StockShard shard = shardOf(id);
+        return shard.findById(id)
+                .filter(stockDTO -> shard.delete(id));
+    }
+
+    /**
+     * Every stock, ordered by id, read from all shards in parallel.
+     */
+    public List<StockDTO> findAll() {
+        List<CompletableFuture<List<StockDTO>>> perShard = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(shard::findAllOrderedById, scatterExecutor))
+                .collect(Collectors.toList());
+        return merge(perShard.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Up to {@code size} stocks with ids above {@code afterId}, ordered by id.
+     * Each shard returns its own first page and the merge keeps the lowest.
+     */
+    public List<StockDTO> findPage(long afterId, int size) {
+        List<CompletableFuture<List<StockDTO>>> perShard = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> shard.findPageOrderedById(afterId, size), scatterExecutor))
+                .collect(Collectors.toList());
+        List<StockDTO> merged = merge(perShard.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList()));
+        return merged.size() > size ? new ArrayList<>(merged.subList(0, size)) : merged;
+    }
+
+    @PreDestroy
+    public void close() {
+        scatterExecutor.shutdown();
+        shards.forEach(StockShard::close);
+    }
+
+    // k-way merge of lists already ordered by id
+    private static List<StockDTO> merge(List<List<StockDTO>> sortedLists) {
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(Comparator.comparing(cursor -> cursor.current.getId()));
+        int total = 0;
+        for (List<StockDTO> sortedList : sortedLists) {
+            total += sortedList.size();
+            Iterator<StockDTO> iterator = sortedList.iterator();
+            if (iterator.hasNext()) {
+                cursors.add(new Cursor(iterator));
+            }
+        }
+        List<StockDTO> merged = new ArrayList<>(total);
+        while (!cursors.isEmpty()) {
+            Cursor cursor = cursors.poll();
+            merged.add(cursor.current);
+            if (cursor.iterator.hasNext()) {
+                cursor.current = cursor.iterator.next();
+                cursors.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private StockShard shardOf(String name) {
+        return shards.get(Math.floorMod(name.hashCode(), shards.size()));
+    }
+
+    private StockShard shardOf(Long id) {
+        return shards.get((int) Math.floorMod(id, (long) shards.size()));
+    }
+
+    private static class Cursor {
+
+        private final Iterator<StockDTO> iterator;
+        private StockDTO current;
+
+        private Cursor(Iterator<StockDTO> iterator) {
+            this.iterator = iterator;
+            this.current = iterator.next();
+        }
+    }
+}
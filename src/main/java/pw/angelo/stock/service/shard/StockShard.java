@@ -0,0 +1,118 @@
+package pw.angelo.stock.service.shard;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.enums.StockType;
+import pw.angelo.stock.exception.StockAlreadyRegisteredException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One shard of the {@link ShardedStockStore}: its own connection pool and
+ * stock table. Ids it assigns are congruent to its index modulo the shard
+ * count, so the owner of an id is known without a lookup.
+ */
+class StockShard implements AutoCloseable {
+
+    private static final String CREATE_TABLE_SQL =
+            "create table if not exists stock (" +
+                    "id bigint primary key, " +
+                    "name varchar(200) not null unique, " +
+                    "brand varchar(200) not null, " +
+                    "max int not null, " +
+                    "quantity int not null, " +
+                    "type varchar(20) not null, " +
+                    "low_watermark int, " +
+                    "high_watermark int, " +
+                    "version bigint not null)";
+    private static final String SELECT_SQL = "select id, name, brand, max, quantity, type, low_watermark, high_watermark, version from stock ";
+    private static final String INSERT_SQL =
+            "insert into stock (id, name, brand, max, quantity, type, low_watermark, high_watermark, version) values (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String INCREMENT_SQL =
+            "update stock set quantity = quantity + ?, version = version + 1 where id = ? and quantity + ? between 0 and max";
+
+    private static final RowMapper<StockDTO> STOCK_ROW_MAPPER = (resultSet, rowNum) -> new StockDTO(
+            resultSet.getLong("id"),
+            resultSet.getString("name"),
+            resultSet.getString("brand"),
+            resultSet.getInt("max"),
+            resultSet.getInt("quantity"),
+            StockType.valueOf(resultSet.getString("type")),
+            (Integer) resultSet.getObject("low_watermark"),
+            (Integer) resultSet.getObject("high_watermark"),
+            resultSet.getLong("version"));
+
+    private final int index;
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final int shardCount;
+    private final AtomicLong lastLocalId;
+
+    StockShard(int index, StockProperties.Sharding shardingProperties) {
+        this.index = index;
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("stock-shard-" + index);
+        config.setJdbcUrl(String.format(shardingProperties.getUrlTemplate(), index));
+        config.setUsername(shardingProperties.getUsername());
+        config.setPassword(shardingProperties.getPassword());
+        config.setMaximumPoolSize(shardingProperties.getPoolSize());
+        this.dataSource = new HikariDataSource(config);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.shardCount = shardingProperties.getShards();
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from stock", Long.class);
+        this.lastLocalId = new AtomicLong(maxId != null ? maxId / shardCount : 0);
+    }
+
+    StockDTO insert(StockDTO stockDTO) throws StockAlreadyRegisteredException {
+        long id = lastLocalId.incrementAndGet() * shardCount + index;
+        try {
+            jdbcTemplate.update(INSERT_SQL, id, stockDTO.getName(), stockDTO.getBrand(), stockDTO.getMax(), stockDTO.getQuantity(),
+                    stockDTO.getType().name(), stockDTO.getLowWatermark(), stockDTO.getHighWatermark());
+        } catch (DuplicateKeyException e) {
+            throw new StockAlreadyRegisteredException(stockDTO.getName());
+        }
+        return new StockDTO(id, stockDTO.getName(), stockDTO.getBrand(), stockDTO.getMax(), stockDTO.getQuantity(),
+                stockDTO.getType(), stockDTO.getLowWatermark(), stockDTO.getHighWatermark(), 0L);
+    }
+
+    Optional<StockDTO> findByName(String name) {
+        return single(jdbcTemplate.query(SELECT_SQL + "where name = ?", STOCK_ROW_MAPPER, name));
+    }
+
+    Optional<StockDTO> findById(long id) {
+        return single(jdbcTemplate.query(SELECT_SQL + "where id = ?", STOCK_ROW_MAPPER, id));
+    }
+
+    boolean increment(long id, int quantity) {
+        return jdbcTemplate.update(INCREMENT_SQL, quantity, id, quantity) > 0;
+    }
+
+    boolean delete(long id) {
+        return jdbcTemplate.update("delete from stock where id = ?", id) > 0;
+    }
+
+    List<StockDTO> findPageOrderedById(long afterId, int size) {
+        return jdbcTemplate.query(SELECT_SQL + "where id > ? order by id limit ?", STOCK_ROW_MAPPER, afterId, size);
+    }
+
+    List<StockDTO> findAllOrderedById() {
+        return jdbcTemplate.query(SELECT_SQL + "order by id", STOCK_ROW_MAPPER);
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+
+    private static Optional<StockDTO> single(List<StockDTO> stocks) {
+        return stocks.isEmpty() ? Optional.empty() : Optional.of(stocks.get(0));
+    }
+}
@@ -0,0 +1,174 @@
+package pw.angelo.stock.service.snapshot;
+
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.enums.StockType;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A catalog snapshot file, read through a memory mapping. The layout is a
+ * header with a magic number, the format version and the time the snapshot
+ * is consistent up to, then one fixed-order binary record per stock, and a
+ * trailer with the record count and a CRC32 of everything before it.
+ *
+ * <p>Reserved quantities are left out, as the reservations holding them are
+ * not part of the snapshot; restored stocks start with nothing reserved.
+ */
+class StockSnapshot {
+
+    static final int MAGIC = 0x53544B53;
+    static final int FORMAT_VERSION = 2;
+
+    private static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES;
+    private static final int TRAILER_BYTES = Integer.BYTES * 2;
+    private static final int NULL_WATERMARK = Integer.MIN_VALUE;
+    private static final StockType[] TYPES = StockType.values();
+
+    private final Instant takenAt;
+    private final int count;
+    private final ByteBuffer records;
+
+    private StockSnapshot(Instant takenAt, int count, ByteBuffer records) {
+        this.takenAt = takenAt;
+        this.count = count;
+        this.records = records;
+    }
+
+    Instant getTakenAt() {
+        return takenAt;
+    }
+
+    int size() {
+        return count;
+    }
+
+    void forEach(Consumer<Stock> stockConsumer) {
+        ByteBuffer buffer = records.duplicate();
+        for (int i = 0; i < count; i++) {
+            stockConsumer.accept(readRecord(buffer));
+        }
+    }
+
+    /**
+     * Writes the rows the producer hands out to a temporary file and moves it
+     * over the snapshot, so readers never see a partial file. Returns the
+     * number of stocks written.
+     */
+    static int write(Path path, Instant takenAt, Consumer<Consumer<Stock>> rowProducer) throws IOException {
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32 checksum = new CRC32();
+        int[] count = new int[1];
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new CheckedOutputStream(Files.newOutputStream(temporaryPath), checksum), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(takenAt.toEpochMilli());
+            try {
+                rowProducer.accept(stock -> {
+                    try {
+                        writeRecord(out, stock);
+                        count[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.writeInt(count[0]);
+            out.flush();
+            out.writeInt((int) checksum.getValue());
+        }
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count[0];
+    }
+
+    /**
+     * Maps the file and verifies its format and checksum. Records are decoded
+     * from the mapping as they are iterated, not up front.
+     */
+    static StockSnapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Stock snapshot %s has an invalid size of %d bytes", path, size));
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException(String.format("%s is not a stock snapshot", path));
+            }
+            int formatVersion = buffer.getInt(Integer.BYTES);
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException(String.format("Stock snapshot %s has format version %d, expected %d", path, formatVersion, FORMAT_VERSION));
+            }
+            int checksummedBytes = (int) size - Integer.BYTES;
+            CRC32 checksum = new CRC32();
+            checksum.update(buffer.duplicate().position(0).limit(checksummedBytes));
+            if ((int) checksum.getValue() != buffer.getInt(checksummedBytes)) {
+                throw new IOException(String.format("Stock snapshot %s fails its checksum", path));
+            }
+            Instant takenAt = Instant.ofEpochMilli(buffer.getLong(Integer.BYTES * 2));
+            int count = buffer.getInt((int) size - TRAILER_BYTES);
+            ByteBuffer records = buffer.duplicate()
+                    .position(HEADER_BYTES)
+                    .limit((int) size - TRAILER_BYTES)
+                    .slice();
+            return new StockSnapshot(takenAt, count, records);
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, Stock stock) throws IOException {
+        out.writeLong(stock.getId());
+        out.writeInt(stock.getMax());
+        out.writeInt(stock.getQuantity());
+        out.writeByte(stock.getType().ordinal());
+        out.writeInt(stock.getLowWatermark() != null ? stock.getLowWatermark() : NULL_WATERMARK);
+        out.writeInt(stock.getHighWatermark() != null ? stock.getHighWatermark() : NULL_WATERMARK);
+        out.writeLong(stock.getVersion());
+        writeString(out, stock.getName());
+        writeString(out, stock.getBrand());
+    }
+
+    private static Stock readRecord(ByteBuffer buffer) {
+        Stock stock = new Stock();
+        stock.setId(buffer.getLong());
+        stock.setMax(buffer.getInt());
+        stock.setQuantity(buffer.getInt());
+        stock.setType(TYPES[buffer.get()]);
+        int lowWatermark = buffer.getInt();
+        stock.setLowWatermark(lowWatermark != NULL_WATERMARK ? lowWatermark : null);
+        int highWatermark = buffer.getInt();
+        stock.setHighWatermark(highWatermark != NULL_WATERMARK ? highWatermark : null);
+        stock.setVersion(buffer.getLong());
+        stock.setName(readString(buffer));
+        stock.setBrand(readString(buffer));
+        return stock;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
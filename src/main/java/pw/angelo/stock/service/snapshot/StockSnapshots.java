@@ -0,0 +1,200 @@
+package pw.angelo.stock.service.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.dto.StockSyncDTO;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.exception.StockShardingUnsupportedException;
+import pw.angelo.stock.exception.StockSyncExpiredException;
+import pw.angelo.stock.mapper.StockMapper;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.StockService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically writes the stock catalog to a {@link StockSnapshot} file and
+ * uses it to start warm. At startup, before the application reports ready, an
+ * empty catalog is restored from the snapshot, and the in-memory indexes built
+ * on {@code ApplicationReadyEvent} read the snapshot plus only the changes
+ * committed since it was taken, as {@link StockService#sync} returns them,
+ * instead of scanning the whole table. Snapshots are read from stock rows,
+ * so they cannot be combined with sharding or with the write-behind ledger.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "stock.snapshot", name = "enabled", havingValue = "true")
+public class StockSnapshots {
+
+    // stock_seq hands out ids in blocks of this size, see Stock
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private final StockRepository stockRepository;
+    private final StockService stockService;
+    private final StockProperties stockProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final StockMapper stockMapper = StockMapper.INSTANCE;
+
+    private volatile StockSnapshot warmSnapshot;
+
+    @Autowired
+    public StockSnapshots(StockRepository stockRepository,
+                          StockService stockService,
+                          StockProperties stockProperties,
+                          PlatformTransactionManager transactionManager) {
+        if (stockProperties.getSharding().isEnabled()) {
+            throw new IllegalStateException("stock.snapshot.enabled cannot be combined with stock.sharding.enabled");
+        }
+        // stock rows lag the ledger's unflushed deltas and unfolded journal movements
+        if (stockProperties.getLedger().isEnabled()) {
+            throw new IllegalStateException("stock.snapshot.enabled cannot be combined with stock.ledger.enabled");
+        }
+        this.stockRepository = stockRepository;
+        this.stockService = stockService;
+        this.stockProperties = stockProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void restore() {
+        Path path = snapshotPath();
+        if (!Files.exists(path)) {
+            log.info("No stock snapshot at {}, starting cold", path);
+            return;
+        }
+        long startedAt = System.nanoTime();
+        StockSnapshot snapshot;
+        try {
+            snapshot = StockSnapshot.read(path);
+        } catch (IOException e) {
+            log.warn("Ignoring unusable stock snapshot, starting cold", e);
+            return;
+        }
+        boolean restored = stockRepository.count() == 0;
+        if (restored) {
+            restoreCatalog(snapshot);
+        }
+        warmSnapshot = snapshot;
+        log.info("{} stock snapshot of {} stocks taken at {} in {} ms", restored ? "Restored" : "Loaded",
+                snapshot.size(), snapshot.getTakenAt(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    /**
+     * Hands the current catalog to the consumer from the snapshot loaded at
+     * startup, with the changes since it applied, and returns true; or returns
+     * false when there is no such snapshot, or no longer, and the caller should
+     * read the repository instead.
+     */
+    public boolean forEachWarmStock(Consumer<StockDTO> stockConsumer) {
+        StockSnapshot snapshot = warmSnapshot;
+        if (snapshot == null) {
+            return false;
+        }
+        StockSyncDTO changes;
+        try {
+            changes = stockService.sync(snapshot.getTakenAt());
+        } catch (StockSyncExpiredException e) {
+            log.info("Stock snapshot taken at {} is older than the tombstone retention, reading the repository", snapshot.getTakenAt());
+            warmSnapshot = null;
+            return false;
+        } catch (StockShardingUnsupportedException e) {
+            // refused at startup, snapshots cannot be combined with sharding
+            throw new IllegalStateException(e);
+        }
+        Map<Long, StockDTO> changedById = changes.getChanged()
+                .stream()
+                .collect(Collectors.toMap(StockDTO::getId, Function.identity()));
+        Set<Long> skippedIds = new HashSet<>(changes.getDeleted());
+        skippedIds.addAll(changedById.keySet());
+        snapshot.forEach(stock -> {
+            if (!skippedIds.contains(stock.getId())) {
+                stockConsumer.accept(stockMapper.toDTO(stock));
+            }
+        });
+        changedById.values().forEach(stockConsumer);
+        return true;
+    }
+
+    @EventListener
+    public void onReadinessChanged(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+            // every index is built by now, release the mapping
+            warmSnapshot = null;
+        }
+    }
+
+    @Scheduled(initialDelayString = "${stock.snapshot.interval-ms:300000}", fixedDelayString = "${stock.snapshot.interval-ms:300000}")
+    public void write() {
+        Path path = snapshotPath();
+        long startedAt = System.nanoTime();
+        // rows committing while the table is read are replayed from the next snapshot's changes
+        Instant takenAt = Instant.now().minus(stockProperties.getSync().getOverlap());
+        try {
+            Path directory = path.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            int written = StockSnapshot.write(path, takenAt, stockRepository::forEachSnapshotRow);
+            log.info("Wrote stock snapshot of {} stocks to {} in {} ms", written, path, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to write stock snapshot to {}", path, e);
+        }
+    }
+
+    // before any bean is destroyed, the repository is still usable
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        if (stockProperties.getSnapshot().isWriteOnShutdown()) {
+            write();
+        }
+    }
+
+    private void restoreCatalog(StockSnapshot snapshot) {
+        int chunkSize = stockProperties.getBulk().getChunkSize();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Stock> chunk = new ArrayList<>(chunkSize);
+            long[] maxId = new long[1];
+            snapshot.forEach(stock -> {
+                chunk.add(stock);
+                maxId[0] = Math.max(maxId[0], stock.getId());
+                if (chunk.size() == chunkSize) {
+                    stockRepository.insertSnapshotRows(chunk, snapshot.getTakenAt());
+                    chunk.clear();
+                }
+            });
+            if (!chunk.isEmpty()) {
+                stockRepository.insertSnapshotRows(chunk, snapshot.getTakenAt());
+            }
+            stockRepository.restartIdSequence(maxId[0] + ID_ALLOCATION_SIZE + 1);
+        });
+    }
+
+    private Path snapshotPath() {
+        return Paths.get(stockProperties.getSnapshot().getPath());
+    }
+}
@@ -0,0 +1,34 @@
+package pw.angelo.stock.service.sync;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.repository.StockTombstoneRepository;
+
+import java.time.Instant;
+
+/**
+ * Drops tombstones older than {@code stock.sync.tombstone-retention}. Clients
+ * that last synced before then get a 410 and have to start over from a full
+ * snapshot.
+ */
+@Slf4j
+@Component
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class StockTombstoneSweeper {
+
+    private final StockTombstoneRepository stockTombstoneRepository;
+    private final StockProperties stockProperties;
+
+    @Scheduled(fixedDelayString = "${stock.sync.purge-interval-ms:3600000}")
+    public void purgeExpiredTombstones() {
+        Instant before = Instant.now().minus(stockProperties.getSync().getTombstoneRetention());
+        int purged = stockTombstoneRepository.deleteByDeletedAtBefore(before);
+        if (purged > 0) {
+            log.debug("Purged {} stock tombstones deleted before {}", purged, before);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package pw.angelo.stock.service.view;
+
+import org.springframework.beans.factory.ObjectProvider;
+import pw.angelo.stock.event.StockChangedEvent;
+import pw.angelo.stock.service.snapshot.StockSnapshots;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * An in-memory structure derived from every stock, such as the aggregates,
+ * the read index or the name trie. Changes are applied to it as they commit,
+ * and {@link #rebuild} replaces it with one filled from the warm snapshot or
+ * a scan, replaying the changes committed while that was streaming.
+ *
+ * <p>Readers hold {@link #readLock()} while they read {@link #current()}.
+ */
+public class StockView<T> {
+
+    private final BiConsumer<T, StockChangedEvent> applier;
+    private final ObjectProvider<StockSnapshots> stockSnapshots;
+    private final StampedLock lock = new StampedLock();
+    private final Lock readLock = lock.asReadLock();
+
+    private T current;
+    private List<StockChangedEvent> eventsDuringRebuild;
+
+    public StockView(T initial, BiConsumer<T, StockChangedEvent> applier, ObjectProvider<StockSnapshots> stockSnapshots) {
+        this.current = initial;
+        this.applier = applier;
+        this.stockSnapshots = stockSnapshots;
+    }
+
+    public void apply(StockChangedEvent event) {
+        long stamp = lock.writeLock();
+        try {
+            if (eventsDuringRebuild != null) {
+                eventsDuringRebuild.add(event);
+            }
+            applier.accept(current, event);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Replaces the structure with an empty one made by {@code emptyLike} from
+     * the current one, filled from the warm snapshot or, without one, by
+     * {@code scan}. If filling fails the current structure is kept.
+     */
+    public void rebuild(UnaryOperator<T> emptyLike, Consumer<T> scan) {
+        T rebuilt;
+        long stamp = lock.writeLock();
+        try {
+            eventsDuringRebuild = new ArrayList<>();
+            rebuilt = emptyLike.apply(current);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        try {
+            StockSnapshots snapshots = stockSnapshots.getIfAvailable();
+            if (snapshots == null || !snapshots.forEachWarmStock(stock -> applier.accept(rebuilt, StockChangedEvent.updated(stock)))) {
+                scan.accept(rebuilt);
+            }
+        } catch (RuntimeException e) {
+            stamp = lock.writeLock();
+            eventsDuringRebuild = null;
+            lock.unlockWrite(stamp);
+            throw e;
+        }
+        stamp = lock.writeLock();
+        try {
+            // changes committed while the rebuild was streaming may be missing from it
+            eventsDuringRebuild.forEach(event -> applier.accept(rebuilt, event));
+            eventsDuringRebuild = null;
+            current = rebuilt;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public Lock readLock() {
+        return readLock;
+    }
+
+    /**
+     * The current structure, only to be read while holding
+     * {@link #readLock()}.
+     */
+    public T current() {
+        return current;
+    }
+}
@@ -25,12 +25,24 @@ public class StockDTOBuilder {
     @Builder.Default
     private StockType type = StockType.LAGER;
 
+    @Builder.Default
+    private Integer lowWatermark = null;
+
+    @Builder.Default
+    private Integer highWatermark = null;
+
+    @Builder.Default
+    private Long version = 0L;
+
     public StockDTO toStockDTO() {
         return new StockDTO(id,
                 name,
                 brand,
                 max,
                 quantity,
-                type);
+                type,
+                lowWatermark,
+                highWatermark,
+                version);
     }
 }
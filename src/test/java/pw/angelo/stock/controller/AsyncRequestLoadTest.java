@@ -0,0 +1,131 @@
+package pw.angelo.stock.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import pw.angelo.stock.StockApplication;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.utils.JsonConvertionUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Compares requests/sec and p99 latency of the increment endpoint between the
+ * blocking controller and {@code stock.async.enabled=true}, with the same small
+ * Tomcat pool in both runs. Run with {@code -Dstock.load-test=true}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "stock.load-test", matches = "true")
+public class AsyncRequestLoadTest {
+
+    private static final int CLIENTS = 64;
+    private static final int REQUESTS_PER_CLIENT = 200;
+    private static final int TOMCAT_THREADS = 8;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newFixedThreadPool(CLIENTS))
+            .build();
+
+    @Test
+    void compareBlockingAndAsyncExecution() throws Exception {
+        LoadResult blocking = run(false);
+        LoadResult async = run(true);
+
+        log.info("increment over HTTP, {} clients, {} tomcat threads: blocking={} req/s p99={} ms, async={} req/s p99={} ms",
+                CLIENTS, TOMCAT_THREADS, Math.round(blocking.requestsPerSecond), String.format("%.1f", blocking.p99Millis),
+                Math.round(async.requestsPerSecond), String.format("%.1f", async.p99Millis));
+    }
+
+    private LoadResult run(boolean asyncEnabled) throws Exception {
+        // run arguments, as properties set on the builder lose to application.properties
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(StockApplication.class)
+                .run("--server.port=0",
+                        "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                        "--stock.async.enabled=" + asyncEnabled)) {
+            String baseUrl = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort() + "/api/v1/stock";
+            List<Long> stockIds = createStocks(baseUrl);
+            return measure(baseUrl, stockIds);
+        }
+    }
+
+    private List<Long> createStocks(String baseUrl) throws Exception {
+        List<Long> stockIds = new ArrayList<>();
+        for (int client = 0; client < CLIENTS; client++) {
+            StockDTO stockDTO = StockDTOBuilder.builder()
+                    .id(null)
+                    .name("load-" + client)
+                    .max(REQUESTS_PER_CLIENT)
+                    .quantity(0)
+                    .build()
+                    .toStockDTO();
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(JsonConvertionUtils.asJsonString(stockDTO)))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(response.statusCode(), is(equalTo(201)));
+            stockIds.add(Long.valueOf(response.body().replaceAll(".*\"id\":(\\d+).*", "$1")));
+        }
+        return stockIds;
+    }
+
+    private LoadResult measure(String baseUrl, List<Long> stockIds) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                int clientIndex = client;
+                HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + stockIds.get(client) + "/increment"))
+                        .header("Content-Type", "application/json")
+                        .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"quantity\":1}"))
+                        .build();
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        long requestStart = System.nanoTime();
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[clientIndex * REQUESTS_PER_CLIENT + i] = System.nanoTime() - requestStart;
+                        assertThat(response.statusCode(), is(equalTo(200)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Arrays.sort(latencies);
+            return new LoadResult(latencies.length / seconds, latencies[(int) (latencies.length * 0.99) - 1] / 1e6);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static class LoadResult {
+
+        private final double requestsPerSecond;
+        private final double p99Millis;
+
+        private LoadResult(double requestsPerSecond, double p99Millis) {
+            this.requestsPerSecond = requestsPerSecond;
+            this.p99Millis = p99Millis;
+        }
+    }
+}
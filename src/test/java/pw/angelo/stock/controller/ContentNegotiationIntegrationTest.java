@@ -0,0 +1,102 @@
+package pw.angelo.stock.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.mapper.StockMapper;
+import pw.angelo.stock.repository.StockRepository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:negotiation;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class ContentNegotiationIntegrationTest {
+
+    private static final String STOCK_API_URL_PATH = "/api/v1/stock";
+    private static final MediaType APPLICATION_CBOR = MediaType.parseMediaType("application/cbor");
+    private static final int STOCKS = 100;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    private StockMapper stockMapper = StockMapper.INSTANCE;
+
+    @BeforeEach
+    void setUp() {
+        stockRepository.saveAll(IntStream.range(0, STOCKS)
+                .mapToObj(i -> {
+                    Stock stock = stockMapper.toModel(StockDTOBuilder.builder().name("Beer " + i).build().toStockDTO());
+                    stock.setId(null);
+                    return stock;
+                })
+                .collect(Collectors.toList()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stockRepository.deleteAll();
+    }
+
+    @Test
+    void whenCborIsAcceptedThenTheCatalogIsEncodedAsCbor() throws Exception {
+        // when
+        ResponseEntity<byte[]> response = get(APPLICATION_CBOR, null);
+
+        // then
+        assertThat(response.getHeaders().getContentType(), is(equalTo(APPLICATION_CBOR)));
+        List<StockDTO> stocks = new ObjectMapper(new CBORFactory()).readValue(response.getBody(), new TypeReference<List<StockDTO>>() {
+        });
+        assertThat(stocks.size(), is(equalTo(STOCKS)));
+    }
+
+    @Test
+    void whenAnyTypeIsAcceptedThenTheCatalogIsStillJson() {
+        // when
+        ResponseEntity<byte[]> response = get(MediaType.ALL, null);
+
+        // then
+        assertThat(response.getHeaders().getContentType().isCompatibleWith(MediaType.APPLICATION_JSON), is(true));
+    }
+
+    @Test
+    void whenGzipIsAcceptedThenTheCatalogIsCompressed() {
+        // when
+        ResponseEntity<byte[]> response = get(MediaType.APPLICATION_JSON, "gzip");
+
+        // then
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), is(equalTo("gzip")));
+    }
+
+    private ResponseEntity<byte[]> get(MediaType accept, String acceptEncoding) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(accept));
+        if (acceptEncoding != null) {
+            headers.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return restTemplate.exchange(STOCK_API_URL_PATH, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+    }
+}
@@ -1,32 +1,81 @@
 package pw.angelo.stock.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.BulkCreateResultDTO;
+import pw.angelo.stock.dto.StockChangeFilterDTO;
+import pw.angelo.stock.dto.StockColumnsDTO;
+import pw.angelo.stock.dto.RejectedStockDTO;
 import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.dto.StockLocationDTO;
+import pw.angelo.stock.dto.StockLocationsDTO;
+import pw.angelo.stock.dto.StockTransferDTO;
 import pw.angelo.stock.dto.QuantityDTO;
+import pw.angelo.stock.dto.StockAdjustmentDTO;
+import pw.angelo.stock.dto.StockAdjustmentRequestDTO;
+import pw.angelo.stock.dto.StockAdjustmentResultDTO;
+import pw.angelo.stock.dto.StockAggregateDTO;
+import pw.angelo.stock.dto.StockAggregatesDTO;
+import pw.angelo.stock.enums.AdjustmentMode;
+import pw.angelo.stock.enums.AggregateGrouping;
+import pw.angelo.stock.enums.StockType;
+import pw.angelo.stock.exception.StockAdjustmentRejectedException;
+import pw.angelo.stock.dto.StockPageDTO;
+import pw.angelo.stock.dto.StockSearchDTO;
+import pw.angelo.stock.dto.StockSearchResultDTO;
+import pw.angelo.stock.dto.StockSyncDTO;
 import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.service.StockAdjustmentService;
+import pw.angelo.stock.service.StockBulkService;
+import pw.angelo.stock.service.StockLocationService;
 import pw.angelo.stock.service.StockService;
+import pw.angelo.stock.service.aggregate.StockAggregates;
+import pw.angelo.stock.service.async.StockRequestExecutor;
+import pw.angelo.stock.service.autocomplete.StockNameAutocomplete;
+import pw.angelo.stock.service.feed.StockChangeFeed;
+import pw.angelo.stock.service.idempotency.StockIdempotency;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.view.json.MappingJackson2JsonView;
 import pw.angelo.stock.utils.JsonConvertionUtils;
 
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.function.Consumer;
 
 import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,6 +92,33 @@ public class ControllerTest {
     @Mock
     private StockService stockService;
 
+    @Mock
+    private StockBulkService stockBulkService;
+
+    @Mock
+    private StockAdjustmentService stockAdjustmentService;
+
+    @Mock
+    private StockLocationService stockLocationService;
+
+    @Mock
+    private StockAggregates stockAggregates;
+
+    @Mock
+    private StockNameAutocomplete stockNameAutocomplete;
+
+    @Mock
+    private StockChangeFeed stockChangeFeed;
+
+    @Spy
+    private StockIdempotency stockIdempotency = new StockIdempotency(new StockProperties(), null, new ObjectMapper());
+
+    @Spy
+    private StockRequestExecutor stockRequestExecutor = new StockRequestExecutor(new StockProperties());
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private Controller controller;
 
@@ -57,7 +133,7 @@ public class ControllerTest {
     @Test
     void whenPOSTIsCalledThenAStockIsCreated() throws Exception {
         // given
-        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        StockDTO stockDTO = StockDTOBuilder.builder().version(null).build().toStockDTO();
 
         // when
         when(stockService.createStock(stockDTO)).thenReturn(stockDTO);
@@ -85,6 +161,51 @@ public class ControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void whenPOSTBulkIsCalledWithJsonArrayThenCreatedAndRejectedStocksAreReturned() throws Exception {
+        // given
+        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        StockDTO duplicatedStockDTO = StockDTOBuilder.builder().name("Skol").build().toStockDTO();
+        BulkCreateResultDTO result = new BulkCreateResultDTO(Collections.singletonList(stockDTO),
+                Collections.singletonList(new RejectedStockDTO(duplicatedStockDTO.getName(), "already registered")));
+
+        // when
+        when(stockBulkService.createStocks(any())).thenReturn(result);
+
+        // then
+        mockMvc.perform(post(STOCK_API_URL_PATH + "/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(JsonConvertionUtils.asJsonString(Arrays.asList(stockDTO, duplicatedStockDTO))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created[0].name", is(stockDTO.getName())))
+                .andExpect(jsonPath("$.rejected[0].name", is(duplicatedStockDTO.getName())))
+                .andExpect(jsonPath("$.rejected[0].reason", is("already registered")));
+    }
+
+    @Test
+    void whenPOSTBulkIsCalledWithNewlineDelimitedJsonThenEveryLineIsRead() throws Exception {
+        // given
+        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        StockDTO otherStockDTO = StockDTOBuilder.builder().name("Skol").build().toStockDTO();
+        String content = JsonConvertionUtils.asJsonString(stockDTO) + "\n" + JsonConvertionUtils.asJsonString(otherStockDTO) + "\n";
+
+        // when
+        when(stockBulkService.createStocks(any())).thenAnswer(invocation -> {
+            Iterator<StockDTO> stockDTOs = invocation.getArgument(0);
+            BulkCreateResultDTO result = new BulkCreateResultDTO();
+            stockDTOs.forEachRemaining(result.getCreated()::add);
+            return result;
+        });
+
+        // then
+        mockMvc.perform(post(STOCK_API_URL_PATH + "/bulk")
+                .contentType("application/x-ndjson")
+                .content(content))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created[0].name", is(stockDTO.getName())))
+                .andExpect(jsonPath("$.created[1].name", is(otherStockDTO.getName())));
+    }
+
     @Test
     void whenGETIsCalledWithValidNameThenOkStatusIsReturned() throws Exception {
         // given
@@ -94,12 +215,61 @@ public class ControllerTest {
         when(stockService.findByName(stockDTO.getName())).thenReturn(stockDTO);
 
         // then
-        mockMvc.perform(MockMvcRequestBuilders.get(STOCK_API_URL_PATH + "/" + stockDTO.getName())
+        performAsync(MockMvcRequestBuilders.get(STOCK_API_URL_PATH + "/" + stockDTO.getName())
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.name", is(stockDTO.getName())))
                 .andExpect(jsonPath("$.brand", is(stockDTO.getBrand())))
-                .andExpect(jsonPath("$.type", is(stockDTO.getType().toString())));
+                .andExpect(jsonPath("$.type", is(stockDTO.getType().toString())))
+                .andExpect(header().string("ETag", is("\"0-10\"")));
+    }
+
+    @Test
+    void whenGETIsCalledWithMatchingETagThenNotModifiedStatusIsReturned() throws Exception {
+        // given
+        StockDTO stockDTO = StockDTOBuilder.builder().version(4L).build().toStockDTO();
+
+        //when
+        when(stockService.findByName(stockDTO.getName())).thenReturn(stockDTO);
+
+        // then
+        performAsync(MockMvcRequestBuilders.get(STOCK_API_URL_PATH + "/" + stockDTO.getName())
+                .header("If-None-Match", "\"4-10\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", is("\"4-10\"")))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void whenGETIsCalledWithNameOfACatalogEndpointThenBeerIsReturned() throws Exception {
+        // given
+        StockDTO stockDTO = StockDTOBuilder.builder().name("search").build().toStockDTO();
+
+        //when
+        when(stockService.findByName(stockDTO.getName())).thenReturn(stockDTO);
+
+        // then
+        performAsync(MockMvcRequestBuilders.get(STOCK_API_URL_PATH + "/" + stockDTO.getName()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is(stockDTO.getName())));
+    }
+
+    @Test
+    void whenGETSyncIsCalledThenChangedAndDeletedStocksAreReturned() throws Exception {
+        // given
+        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        Instant since = Instant.parse("2020-06-01T10:00:00Z");
+        StockSyncDTO sync = new StockSyncDTO(Collections.singletonList(stockDTO), Collections.singletonList(2L), Instant.parse("2020-06-01T10:05:00Z"));
+
+        //when
+        when(stockService.sync(since)).thenReturn(sync);
+
+        // then
+        performAsync(MockMvcRequestBuilders.get(STOCK_API_URL_PATH + "/catalog/sync")
+                .param("since", since.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed[0].name", is(stockDTO.getName())))
+                .andExpect(jsonPath("$.deleted[0]", is(2)));
     }
 
     @Test
@@ -111,11 +281,57 @@ public class ControllerTest {
         when(stockService.findByName(stockDTO.getName())).thenThrow(StockNotFoundException.class);
 
         // then
-        mockMvc.perform(MockMvcRequestBuilders.get(STOCK_API_URL_PATH + "/" + stockDTO.getName())
+        performAsync(MockMvcRequestBuilders.get(STOCK_API_URL_PATH + "/" + stockDTO.getName())
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void whenGETInStockIsCalledThenAvailabilityIsReturned() throws Exception {
+        //when
+        when(stockService.isInStock(VALID_STOCK_ID, 5)).thenReturn(true);
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(STOCK_API_URL_PATH + "/" + VALID_STOCK_ID + "/in-stock")
+                .param("quantity", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", is(true)));
+    }
+
+    @Test
+    void whenGETInStockIsCalledWithInvalidIdThenNotFoundStatusIsReturned() throws Exception {
+        //when
+        when(stockService.isInStock(INVALID_STOCK_ID, 1)).thenThrow(StockNotFoundException.class);
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(STOCK_API_URL_PATH + "/" + INVALID_STOCK_ID + "/in-stock"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void whenGETAggregatesIsCalledThenTotalsPerGroupAreReturned() throws Exception {
+        // given
+        StockAggregateDTO lagerAggregate = StockAggregateDTO.builder()
+                .type(StockType.LAGER)
+                .items(2)
+                .quantity(30)
+                .max(100)
+                .fillRatio(0.3)
+                .build();
+        StockAggregatesDTO aggregates = new StockAggregatesDTO(lagerAggregate, Collections.singletonList(lagerAggregate));
+
+        // when
+        when(stockAggregates.aggregate(AggregateGrouping.TYPE)).thenReturn(aggregates);
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(STOCK_API_URL_PATH + "/catalog/aggregates")
+                .param("groupBy", AggregateGrouping.TYPE.name()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totals.items", is(2)))
+                .andExpect(jsonPath("$.groups[0].type", is(StockType.LAGER.name())))
+                .andExpect(jsonPath("$.groups[0].fillRatio", is(0.3)));
+    }
+
     @Test
     void whenGETListWithStockIsCalledThenOkStatusIsReturned() throws Exception {
         // given
@@ -125,7 +341,7 @@ public class ControllerTest {
         when(stockService.listAll()).thenReturn(Collections.singletonList(stockDTO));
 
         // then
-        mockMvc.perform(MockMvcRequestBuilders.get(STOCK_API_URL_PATH)
+        performAsync(MockMvcRequestBuilders.get(STOCK_API_URL_PATH)
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].name", is(stockDTO.getName())))
@@ -142,11 +358,139 @@ public class ControllerTest {
         when(stockService.listAll()).thenReturn(Collections.singletonList(stockDTO));
 
         // then
-        mockMvc.perform(MockMvcRequestBuilders.get(STOCK_API_URL_PATH)
+        performAsync(MockMvcRequestBuilders.get(STOCK_API_URL_PATH)
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void whenGETPageIsCalledThenPageAndNextCursorAreReturned() throws Exception {
+        // given
+        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        StockPageDTO stockPageDTO = new StockPageDTO(Collections.singletonList(stockDTO), stockDTO.getId());
+
+        //when
+        when(stockService.listPage(null, 1)).thenReturn(stockPageDTO);
+
+        // then
+        performAsync(MockMvcRequestBuilders.get(STOCK_API_URL_PATH)
+                .param("size", "1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name", is(stockDTO.getName())))
+                .andExpect(jsonPath("$.nextCursor", is(stockDTO.getId().intValue())));
+    }
+
+    @Test
+    void whenGETChangesIsCalledThenAnEventStreamIsOpenedWithTheFilter() throws Exception {
+        // given
+        StockChangeFilterDTO filter = new StockChangeFilterDTO();
+        filter.setIds(Collections.singleton(1L));
+        filter.setTypes(Collections.singleton(StockType.IPA));
+
+        // when
+        when(stockChangeFeed.subscribe(filter)).thenReturn(new SseEmitter());
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(STOCK_API_URL_PATH + "/catalog/changes")
+                .param("ids", "1")
+                .param("types", StockType.IPA.name())
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void whenGETAutocompleteIsCalledThenMatchingNamesAreReturned() throws Exception {
+        // given
+        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+
+        // when
+        when(stockNameAutocomplete.complete("bra", 1, 10)).thenReturn(Collections.singletonList(stockDTO.getName()));
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(STOCK_API_URL_PATH + "/catalog/autocomplete")
+                .param("prefix", "bra")
+                .param("maxDistance", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]", is(stockDTO.getName())));
+    }
+
+    @Test
+    void whenGETSearchIsCalledThenFiltersAndPageAreBound() throws Exception {
+        // given
+        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        StockSearchDTO criteria = StockSearchDTO.builder()
+                .type(stockDTO.getType())
+                .belowPercentOfMax(25)
+                .build();
+        StockSearchResultDTO searchResult = new StockSearchResultDTO(Collections.singletonList(stockDTO), 1, 10, false);
+
+        // when
+        when(stockService.search(criteria, PageRequest.of(1, 10, Sort.by(Sort.Direction.DESC, "quantity")))).thenReturn(searchResult);
+
+        // then
+        performAsync(MockMvcRequestBuilders.get(STOCK_API_URL_PATH + "/catalog/search")
+                .param("type", stockDTO.getType().name())
+                .param("belowPercentOfMax", "25")
+                .param("page", "1")
+                .param("size", "10")
+                .param("sort", "quantity,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name", is(stockDTO.getName())))
+                .andExpect(jsonPath("$.hasNext", is(false)));
+    }
+
+    @Test
+    void whenGETSearchIsCalledWithInvalidFillLevelThenBadRequestIsReturned() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get(STOCK_API_URL_PATH + "/catalog/search")
+                .param("belowPercentOfMax", "101"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenGETColumnarIsCalledThenEachFieldIsAnArray() throws Exception {
+        // given
+        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        StockColumnsDTO stockColumnsDTO = new StockColumnsDTO();
+        stockColumnsDTO.add(stockDTO);
+
+        // when
+        when(stockService.listAllColumns()).thenReturn(stockColumnsDTO);
+
+        // then
+        performAsync(MockMvcRequestBuilders.get(STOCK_API_URL_PATH)
+                .param("shape", "columnar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name[0]", is(stockDTO.getName())))
+                .andExpect(jsonPath("$.type[0]", is(stockDTO.getType().name())));
+    }
+
+    @Test
+    void whenGETStreamIsCalledThenStockIsWrittenAsNewlineDelimitedJson() throws Exception {
+        // given
+        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+
+        //when
+        doAnswer(invocation -> {
+            Consumer<StockDTO> stockConsumer = invocation.getArgument(0);
+            stockConsumer.accept(stockDTO);
+            stockConsumer.accept(stockDTO);
+            return null;
+        }).when(stockService).streamAll(any());
+
+        // then
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(STOCK_API_URL_PATH)
+                .param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String line = JsonConvertionUtils.asJsonString(stockDTO) + "\n";
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(line + line));
+    }
+
     @Test
     void whenDELETEIsCalledWithValidIdThenNoContentStatusIsReturned() throws Exception {
         // given
@@ -183,7 +527,7 @@ public class ControllerTest {
 
         when(stockService.increment(VALID_STOCK_ID, quantityDTO.getQuantity())).thenReturn(stockDTO);
 
-        mockMvc.perform(MockMvcRequestBuilders.patch(STOCK_API_URL_PATH + "/" + VALID_STOCK_ID + STOCK_API_SUBPATH_INCREMENT_URL)
+        performAsync(MockMvcRequestBuilders.patch(STOCK_API_URL_PATH + "/" + VALID_STOCK_ID + STOCK_API_SUBPATH_INCREMENT_URL)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(JsonConvertionUtils.asJsonString(quantityDTO))).andExpect(status().isOk())
                 .andExpect(jsonPath("$.name", is(stockDTO.getName())))
@@ -192,4 +536,111 @@ public class ControllerTest {
                 .andExpect(jsonPath("$.quantity", is(stockDTO.getQuantity())));
     }
 
+    @Test
+    void whenPATCHIncrementIsRetriedWithSameIdempotencyKeyThenItIsAppliedOnce() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(10)
+                .build();
+
+        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        stockDTO.setQuantity(stockDTO.getQuantity() + quantityDTO.getQuantity());
+
+        when(stockService.increment(VALID_STOCK_ID, quantityDTO.getQuantity())).thenReturn(stockDTO);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            performAsync(MockMvcRequestBuilders.patch(STOCK_API_URL_PATH + "/" + VALID_STOCK_ID + STOCK_API_SUBPATH_INCREMENT_URL)
+                    .header("Idempotency-Key", "retry-1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(JsonConvertionUtils.asJsonString(quantityDTO))).andExpect(status().isOk())
+                    .andExpect(jsonPath("$.quantity", is(stockDTO.getQuantity())));
+        }
+
+        verify(stockService, times(1)).increment(VALID_STOCK_ID, quantityDTO.getQuantity());
+    }
+
+    @Test
+    void whenIdempotencyKeyIsReusedForADifferentRequestThenUnprocessableEntityIsReturned() throws Exception {
+        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+
+        when(stockService.increment(VALID_STOCK_ID, 10)).thenReturn(stockDTO);
+
+        performAsync(MockMvcRequestBuilders.patch(STOCK_API_URL_PATH + "/" + VALID_STOCK_ID + STOCK_API_SUBPATH_INCREMENT_URL)
+                .header("Idempotency-Key", "retry-2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(JsonConvertionUtils.asJsonString(QuantityDTO.builder().quantity(10).build()))).andExpect(status().isOk());
+        performAsync(MockMvcRequestBuilders.patch(STOCK_API_URL_PATH + "/" + VALID_STOCK_ID + STOCK_API_SUBPATH_INCREMENT_URL)
+                .header("Idempotency-Key", "retry-2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(JsonConvertionUtils.asJsonString(QuantityDTO.builder().quantity(20).build()))).andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void whenPOSTTransferIsCalledThenQuantitiesPerWarehouseAreReturned() throws Exception {
+        StockTransferDTO transferDTO = new StockTransferDTO("north", "south", 5);
+        StockLocationsDTO locations = new StockLocationsDTO(VALID_STOCK_ID, 50, 150,
+                Arrays.asList(new StockLocationDTO("north", 100, 35), new StockLocationDTO("south", 50, 15)));
+
+        when(stockLocationService.transfer(VALID_STOCK_ID, transferDTO)).thenReturn(locations);
+
+        performAsync(MockMvcRequestBuilders.post(STOCK_API_URL_PATH + "/" + VALID_STOCK_ID + "/transfers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(JsonConvertionUtils.asJsonString(transferDTO))).andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalQuantity", is(50)))
+                .andExpect(jsonPath("$.locations[1].quantity", is(15)));
+    }
+
+    @Test
+    void whenPOSTTransferIsCalledWithinTheSameWarehouseThenBadRequestIsReturned() throws Exception {
+        mockMvc.perform(post(STOCK_API_URL_PATH + "/" + VALID_STOCK_ID + "/transfers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(JsonConvertionUtils.asJsonString(new StockTransferDTO("north", "north", 5))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenPATCHAdjustmentsIsCalledThenAdjustedStocksAreReturned() throws Exception {
+        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        StockAdjustmentRequestDTO adjustmentRequest = new StockAdjustmentRequestDTO(AdjustmentMode.ALL_OR_NOTHING,
+                Collections.singletonList(new StockAdjustmentDTO(VALID_STOCK_ID, -5)));
+        StockAdjustmentResultDTO result = new StockAdjustmentResultDTO(Collections.singletonList(stockDTO), Collections.emptyList());
+
+        when(stockAdjustmentService.adjust(adjustmentRequest)).thenReturn(result);
+
+        performAsync(MockMvcRequestBuilders.patch(STOCK_API_URL_PATH + "/adjustments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(JsonConvertionUtils.asJsonString(adjustmentRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.adjusted[0].name", is(stockDTO.getName())));
+    }
+
+    @Test
+    void whenPATCHAdjustmentsIsRejectedThenBadRequestStatusIsReturned() throws Exception {
+        StockAdjustmentRequestDTO adjustmentRequest = new StockAdjustmentRequestDTO(AdjustmentMode.ALL_OR_NOTHING,
+                Collections.singletonList(new StockAdjustmentDTO(INVALID_STOCK_ID, -5)));
+
+        when(stockAdjustmentService.adjust(adjustmentRequest)).thenThrow(StockAdjustmentRejectedException.class);
+
+        performAsync(MockMvcRequestBuilders.patch(STOCK_API_URL_PATH + "/adjustments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(JsonConvertionUtils.asJsonString(adjustmentRequest)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenPATCHAdjustmentsIsCalledWithoutAdjustmentsThenBadRequestStatusIsReturned() throws Exception {
+        StockAdjustmentRequestDTO adjustmentRequest = new StockAdjustmentRequestDTO(AdjustmentMode.ALL_OR_NOTHING,
+                Collections.emptyList());
+
+        mockMvc.perform(MockMvcRequestBuilders.patch(STOCK_API_URL_PATH + "/adjustments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(JsonConvertionUtils.asJsonString(adjustmentRequest)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(mvcResult));
+    }
 }
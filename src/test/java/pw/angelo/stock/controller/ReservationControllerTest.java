@@ -0,0 +1,113 @@
+package pw.angelo.stock.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import pw.angelo.stock.dto.AvailabilityDTO;
+import pw.angelo.stock.dto.ReservationDTO;
+import pw.angelo.stock.dto.ReservationRequestDTO;
+import pw.angelo.stock.enums.ReservationStatus;
+import pw.angelo.stock.exception.ReservationNotFoundException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.service.reservation.ReservationService;
+import pw.angelo.stock.utils.JsonConvertionUtils;
+
+import java.time.Instant;
+
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+public class ReservationControllerTest {
+
+    private static final String STOCK_API_URL_PATH = "/api/v1/stock";
+    private static final long VALID_STOCK_ID = 1L;
+    private static final long VALID_RESERVATION_ID = 10L;
+    private static final long INVALID_RESERVATION_ID = 11L;
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private ReservationService reservationService;
+
+    @InjectMocks
+    private ReservationController reservationController;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(reservationController).build();
+    }
+
+    @Test
+    void whenPOSTReservationIsCalledThenAReservationIsCreated() throws Exception {
+        ReservationRequestDTO reservationRequestDTO = new ReservationRequestDTO(5, null);
+        ReservationDTO reservationDTO = new ReservationDTO(VALID_RESERVATION_ID, VALID_STOCK_ID, 5, ReservationStatus.ACTIVE, Instant.now());
+
+        when(reservationService.reserve(VALID_STOCK_ID, reservationRequestDTO)).thenReturn(reservationDTO);
+
+        mockMvc.perform(MockMvcRequestBuilders.post(STOCK_API_URL_PATH + "/" + VALID_STOCK_ID + "/reservations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(JsonConvertionUtils.asJsonString(reservationRequestDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is((int) VALID_RESERVATION_ID)))
+                .andExpect(jsonPath("$.status", is(ReservationStatus.ACTIVE.toString())));
+    }
+
+    @Test
+    void whenPOSTReservationIsCalledWithoutQuantityThenBadRequestStatusIsReturned() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post(STOCK_API_URL_PATH + "/" + VALID_STOCK_ID + "/reservations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(JsonConvertionUtils.asJsonString(new ReservationRequestDTO())))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenPOSTReservationExceedsAvailableStockThenBadRequestStatusIsReturned() throws Exception {
+        ReservationRequestDTO reservationRequestDTO = new ReservationRequestDTO(50, null);
+
+        when(reservationService.reserve(VALID_STOCK_ID, reservationRequestDTO)).thenThrow(StockInsufficientException.class);
+
+        mockMvc.perform(MockMvcRequestBuilders.post(STOCK_API_URL_PATH + "/" + VALID_STOCK_ID + "/reservations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(JsonConvertionUtils.asJsonString(reservationRequestDTO)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenPOSTConfirmIsCalledThenConfirmedReservationIsReturned() throws Exception {
+        ReservationDTO reservationDTO = new ReservationDTO(VALID_RESERVATION_ID, VALID_STOCK_ID, 5, ReservationStatus.CONFIRMED, Instant.now());
+
+        when(reservationService.confirm(VALID_RESERVATION_ID)).thenReturn(reservationDTO);
+
+        mockMvc.perform(MockMvcRequestBuilders.post(STOCK_API_URL_PATH + "/reservations/" + VALID_RESERVATION_ID + "/confirm"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is(ReservationStatus.CONFIRMED.toString())));
+    }
+
+    @Test
+    void whenDELETEReservationIsCalledWithInactiveIdThenNotFoundStatusIsReturned() throws Exception {
+        doThrow(ReservationNotFoundException.class).when(reservationService).release(INVALID_RESERVATION_ID);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete(STOCK_API_URL_PATH + "/reservations/" + INVALID_RESERVATION_ID))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void whenGETAvailabilityIsCalledThenAvailableQuantityIsReturned() throws Exception {
+        when(reservationService.availability(VALID_STOCK_ID)).thenReturn(new AvailabilityDTO(VALID_STOCK_ID, 10, 4, 6));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(STOCK_API_URL_PATH + "/" + VALID_STOCK_ID + "/availability"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.available", is(6)));
+    }
+}
@@ -0,0 +1,117 @@
+package pw.angelo.stock.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.QuantityDTO;
+import pw.angelo.stock.exception.StockRateLimitedException;
+import pw.angelo.stock.exception.StockServiceBusyException;
+import pw.angelo.stock.service.ratelimit.StockLoadShedder;
+import pw.angelo.stock.service.ratelimit.StockRateLimiter;
+
+import javax.servlet.DispatcherType;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+public class WriteThrottlingInterceptorTest {
+
+    @Mock
+    private StockRateLimiter stockRateLimiter;
+
+    @Mock
+    private StockLoadShedder stockLoadShedder;
+
+    private WriteThrottlingInterceptor interceptor;
+
+    private HandlerMethod incrementHandler;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        interceptor = new WriteThrottlingInterceptor(stockRateLimiter, stockLoadShedder, new StockProperties());
+        incrementHandler = new HandlerMethod(new Object(), Controller.class.getMethod("increment", Long.class, QuantityDTO.class, String.class));
+    }
+
+    @Test
+    void whenWriteIsRequestedThenRemoteAddressIsChargedWhateverTheHeaderSays() throws Exception {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/api/v1/stock/1/increment");
+        request.addHeader("X-Client-Id", "client-a");
+
+        // when
+        interceptor.preHandle(request, new MockHttpServletResponse(), incrementHandler);
+
+        // then
+        verify(stockRateLimiter).acquire("127.0.0.1", "increment");
+        verify(stockLoadShedder).admit();
+    }
+
+    @Test
+    void whenClientHeaderIsTrustedThenClientFromHeaderIsCharged() throws Exception {
+        // given
+        StockProperties stockProperties = new StockProperties();
+        stockProperties.getRateLimit().setTrustClientHeader(true);
+        interceptor = new WriteThrottlingInterceptor(stockRateLimiter, stockLoadShedder, stockProperties);
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/api/v1/stock/1/increment");
+        request.addHeader("X-Client-Id", "client-a");
+
+        // when
+        interceptor.preHandle(request, new MockHttpServletResponse(), incrementHandler);
+
+        // then
+        verify(stockRateLimiter).acquire("client-a", "increment");
+        verify(stockLoadShedder).admit();
+    }
+
+    @Test
+    void whenClientIsRateLimitedThenRetryAfterIsSet() throws Exception {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/api/v1/stock/1/increment");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        doThrow(new StockRateLimitedException("127.0.0.1", "increment", 2_500_000_000L)).when(stockRateLimiter).acquire("127.0.0.1", "increment");
+
+        // then
+        assertThrows(StockRateLimitedException.class, () -> interceptor.preHandle(request, response, incrementHandler));
+        assertThat(response.getHeader("Retry-After"), is(equalTo("3")));
+    }
+
+    @Test
+    void whenWriteIsShedThenClientIsNotCharged() throws Exception {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/api/v1/stock/1/increment");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        doThrow(new StockServiceBusyException("too many connections pending")).when(stockLoadShedder).admit();
+
+        // then
+        assertThrows(StockServiceBusyException.class, () -> interceptor.preHandle(request, response, incrementHandler));
+        assertThat(response.getHeader("Retry-After"), is(equalTo("1")));
+        verifyNoInteractions(stockRateLimiter);
+    }
+
+    @Test
+    void whenAsyncResultIsDispatchedOrRequestIsAReadThenNothingIsCharged() throws Exception {
+        // given
+        MockHttpServletRequest asyncDispatch = new MockHttpServletRequest("PATCH", "/api/v1/stock/1/increment");
+        asyncDispatch.setDispatcherType(DispatcherType.ASYNC);
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/api/v1/stock/Brahma");
+
+        // when
+        interceptor.preHandle(asyncDispatch, new MockHttpServletResponse(), incrementHandler);
+        interceptor.preHandle(read, new MockHttpServletResponse(), incrementHandler);
+
+        // then
+        verifyNoInteractions(stockRateLimiter, stockLoadShedder);
+    }
+}
@@ -0,0 +1,89 @@
+package pw.angelo.stock.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.dto.StockSearchDTO;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.enums.StockType;
+import pw.angelo.stock.mapper.StockMapper;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:search;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class StockRepositorySearchTest {
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    private StockMapper stockMapper = StockMapper.INSTANCE;
+
+    @BeforeEach
+    void setUp() {
+        stockRepository.saveAll(Arrays.asList(
+                stockMapper.toModel(StockDTOBuilder.builder().id(null).name("Brahma").brand("Ambev").type(StockType.LAGER).quantity(5).build().toStockDTO()),
+                stockMapper.toModel(StockDTOBuilder.builder().id(null).name("Skol").brand("Ambev").type(StockType.LAGER).quantity(40).build().toStockDTO()),
+                stockMapper.toModel(StockDTOBuilder.builder().id(null).name("Colorado Indica").brand("Ambev").type(StockType.IPA).quantity(2).build().toStockDTO()),
+                stockMapper.toModel(StockDTOBuilder.builder().id(null).name("Heineken").brand("Heineken").type(StockType.LAGER).quantity(1).build().toStockDTO())));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stockRepository.deleteAll();
+    }
+
+    @Test
+    void whenSearchingByBrandTypeAndFillLevelThenOnlyMatchingStocksAreReturned() {
+        // given
+        StockSearchDTO criteria = StockSearchDTO.builder()
+                .brand("Ambev")
+                .type(StockType.LAGER)
+                .belowPercentOfMax(50)
+                .build();
+
+        // when
+        Slice<StockDTO> found = stockRepository.search(criteria, PageRequest.of(0, 10));
+
+        // then
+        assertThat(namesOf(found), contains("Brahma"));
+        assertThat(found.hasNext(), is(false));
+    }
+
+    @Test
+    void whenSearchingWithSortAndPageThenTheNextPageIsReported() {
+        // given
+        StockSearchDTO criteria = StockSearchDTO.builder()
+                .maxQuantity(10)
+                .build();
+
+        // when
+        Slice<StockDTO> firstPage = stockRepository.search(criteria, PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "quantity")));
+        Slice<StockDTO> secondPage = stockRepository.search(criteria, firstPage.nextPageable());
+
+        // then
+        assertThat(namesOf(firstPage), contains("Brahma", "Colorado Indica"));
+        assertThat(firstPage.hasNext(), is(true));
+        assertThat(namesOf(secondPage), contains("Heineken"));
+        assertThat(secondPage.hasNext(), is(false));
+    }
+
+    private List<String> namesOf(Slice<StockDTO> stocks) {
+        return stocks.getContent()
+                .stream()
+                .map(StockDTO::getName)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,199 @@
+package pw.angelo.stock.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockAdjustmentDTO;
+import pw.angelo.stock.dto.StockAdjustmentRequestDTO;
+import pw.angelo.stock.dto.StockAdjustmentResultDTO;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.enums.AdjustmentMode;
+import pw.angelo.stock.exception.StockAdjustmentRejectedException;
+import pw.angelo.stock.exception.StockShardingUnsupportedException;
+import pw.angelo.stock.mapper.StockMapper;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.cache.StockNameCache;
+import pw.angelo.stock.service.journal.StockJournal;
+import pw.angelo.stock.service.ledger.StockLedger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StockAdjustmentServiceTest {
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @Mock
+    private ObjectProvider<StockLedger> stockLedger;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ObjectProvider<StockJournal> stockJournal;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private StockMapper stockMapper = StockMapper.INSTANCE;
+
+    private StockProperties stockProperties;
+
+    private StockAdjustmentService stockAdjustmentService;
+
+    @BeforeEach
+    void setUp() {
+        stockProperties = new StockProperties();
+        stockAdjustmentService = new StockAdjustmentService(stockRepository,
+                stockProperties,
+                stockLedger,
+                new StockNameCache(stockProperties, new SimpleMeterRegistry()),
+                eventPublisher,
+                transactionManager);
+    }
+
+    @Test
+    void whenAdjustmentsAreValidThenAllOfThemAreApplied() throws StockAdjustmentRejectedException, StockShardingUnsupportedException {
+        // given
+        Stock brahma = stockMapper.toModel(StockDTOBuilder.builder().build().toStockDTO());
+        Stock skol = stockMapper.toModel(StockDTOBuilder.builder().id(2L).name("Skol").build().toStockDTO());
+        StockAdjustmentRequestDTO adjustmentRequest = requestOf(AdjustmentMode.ALL_OR_NOTHING,
+                new StockAdjustmentDTO(2L, -4),
+                new StockAdjustmentDTO(1L, 5));
+
+        // when
+        when(stockRepository.findAllByIdForUpdate(anyCollection())).thenReturn(Arrays.asList(brahma, skol));
+
+        // then
+        StockAdjustmentResultDTO result = stockAdjustmentService.adjust(adjustmentRequest);
+
+        assertThat(brahma.getQuantity(), is(equalTo(15)));
+        assertThat(skol.getQuantity(), is(equalTo(6)));
+        assertThat(result.getAdjusted(), hasSize(2));
+        assertThat(result.getRejected(), is(empty()));
+    }
+
+    @Test
+    void whenAdjustmentsAreInformedThenRowsAreLockedInAscendingIdOrderAndLinesAreSummed() throws StockAdjustmentRejectedException, StockShardingUnsupportedException {
+        // given
+        Stock brahma = stockMapper.toModel(StockDTOBuilder.builder().build().toStockDTO());
+        Stock skol = stockMapper.toModel(StockDTOBuilder.builder().id(3L).name("Skol").build().toStockDTO());
+        StockAdjustmentRequestDTO adjustmentRequest = requestOf(AdjustmentMode.ALL_OR_NOTHING,
+                new StockAdjustmentDTO(3L, 1),
+                new StockAdjustmentDTO(1L, 2),
+                new StockAdjustmentDTO(3L, 4));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> lockedIds = ArgumentCaptor.forClass(Collection.class);
+
+        // when
+        when(stockRepository.findAllByIdForUpdate(lockedIds.capture())).thenReturn(Arrays.asList(brahma, skol));
+
+        // then
+        stockAdjustmentService.adjust(adjustmentRequest);
+
+        assertThat(new ArrayList<>(lockedIds.getValue()), contains(1L, 3L));
+        assertThat(skol.getQuantity(), is(equalTo(15)));
+    }
+
+    @Test
+    void whenAnyAdjustmentIsRejectedInAllOrNothingModeThenNothingIsApplied() {
+        // given
+        Stock brahma = stockMapper.toModel(StockDTOBuilder.builder().build().toStockDTO());
+        Stock skol = stockMapper.toModel(StockDTOBuilder.builder().id(2L).name("Skol").build().toStockDTO());
+        StockAdjustmentRequestDTO adjustmentRequest = requestOf(AdjustmentMode.ALL_OR_NOTHING,
+                new StockAdjustmentDTO(1L, 5),
+                new StockAdjustmentDTO(2L, -11));
+
+        // when
+        when(stockRepository.findAllByIdForUpdate(anyCollection())).thenReturn(Arrays.asList(brahma, skol));
+
+        // then
+        assertThrows(StockAdjustmentRejectedException.class, () -> stockAdjustmentService.adjust(adjustmentRequest));
+        assertThat(brahma.getQuantity(), is(equalTo(10)));
+        assertThat(skol.getQuantity(), is(equalTo(10)));
+    }
+
+    @Test
+    void whenAdjustmentsAreRejectedInBestEffortModeThenTheOthersAreApplied() throws StockAdjustmentRejectedException, StockShardingUnsupportedException {
+        // given
+        Stock brahma = stockMapper.toModel(StockDTOBuilder.builder().build().toStockDTO());
+        Stock skol = stockMapper.toModel(StockDTOBuilder.builder().id(2L).name("Skol").build().toStockDTO());
+        StockAdjustmentRequestDTO adjustmentRequest = requestOf(AdjustmentMode.BEST_EFFORT,
+                new StockAdjustmentDTO(1L, 5),
+                new StockAdjustmentDTO(2L, 45),
+                new StockAdjustmentDTO(3L, 1));
+
+        // when
+        when(stockRepository.findAllByIdForUpdate(anyCollection())).thenReturn(Arrays.asList(brahma, skol));
+
+        // then
+        StockAdjustmentResultDTO result = stockAdjustmentService.adjust(adjustmentRequest);
+
+        assertThat(brahma.getQuantity(), is(equalTo(15)));
+        assertThat(skol.getQuantity(), is(equalTo(10)));
+        assertThat(result.getAdjusted(), hasSize(1));
+        assertThat(result.getRejected(), hasSize(2));
+        assertThat(result.getRejected().get(0).getId(), is(equalTo(2L)));
+        assertThat(result.getRejected().get(1).getId(), is(equalTo(3L)));
+    }
+
+    @Test
+    void whenLedgerIsEnabledAndAdjustmentIsRejectedInAllOrNothingModeThenAppliedLinesAreReverted() throws Exception {
+        // given
+        StockLedger ledger = new StockLedger(stockRepository, new StockProperties(), stockJournal);
+        Stock brahma = stockMapper.toModel(StockDTOBuilder.builder().build().toStockDTO());
+        Stock skol = stockMapper.toModel(StockDTOBuilder.builder().id(2L).name("Skol").build().toStockDTO());
+        StockAdjustmentRequestDTO adjustmentRequest = requestOf(AdjustmentMode.ALL_OR_NOTHING,
+                new StockAdjustmentDTO(1L, 5),
+                new StockAdjustmentDTO(2L, -11));
+
+        // when
+        when(stockLedger.getIfAvailable()).thenReturn(ledger);
+        when(stockRepository.findById(1L)).thenReturn(Optional.of(brahma));
+        when(stockRepository.findById(2L)).thenReturn(Optional.of(skol));
+
+        // then
+        assertThrows(StockAdjustmentRejectedException.class, () -> stockAdjustmentService.adjust(adjustmentRequest));
+        assertThat(ledger.overlay(stockMapper.toDTO(brahma)).getQuantity(), is(equalTo(10)));
+    }
+
+    @Test
+    void whenShardingIsEnabledThenAdjustmentsAreRefused() {
+        // given
+        stockProperties.getSharding().setEnabled(true);
+        StockAdjustmentRequestDTO adjustmentRequest = requestOf(AdjustmentMode.BEST_EFFORT, new StockAdjustmentDTO(1L, 5));
+
+        // then
+        assertThrows(StockShardingUnsupportedException.class, () -> stockAdjustmentService.adjust(adjustmentRequest));
+        verify(stockRepository, never()).findAllByIdForUpdate(anyCollection());
+    }
+
+    private StockAdjustmentRequestDTO requestOf(AdjustmentMode mode, StockAdjustmentDTO... adjustments) {
+        return new StockAdjustmentRequestDTO(mode, Arrays.asList(adjustments));
+    }
+}
@@ -0,0 +1,215 @@
+package pw.angelo.stock.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.BulkCreateResultDTO;
+import pw.angelo.stock.dto.RejectedStockDTO;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.exception.StockAlreadyRegisteredException;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.cache.StockNameCache;
+import pw.angelo.stock.service.ledger.StockLedger;
+import pw.angelo.stock.service.shard.ShardedStockStore;
+
+import javax.validation.Validation;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StockBulkServiceTest {
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ObjectProvider<StockLedger> stockLedger;
+
+    @Mock
+    private ObjectProvider<ShardedStockStore> shardedStockStore;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private StockProperties stockProperties;
+
+    private StockBulkService stockBulkService;
+
+    @BeforeEach
+    void setUp() {
+        stockProperties = new StockProperties();
+        stockProperties.getBulk().setChunkSize(2);
+        stockBulkService = new StockBulkService(stockRepository,
+                stockProperties,
+                new StockNameCache(stockProperties, new SimpleMeterRegistry()),
+                stockLedger,
+                shardedStockStore,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                eventPublisher,
+                transactionManager);
+    }
+
+    @Test
+    void whenNewStocksAreInformedThenTheyAreCreatedInChunks() {
+        // given
+        List<StockDTO> stockDTOs = Arrays.asList(
+                StockDTOBuilder.builder().id(null).name("Brahma").build().toStockDTO(),
+                StockDTOBuilder.builder().id(null).name("Skol").build().toStockDTO(),
+                StockDTOBuilder.builder().id(null).name("Bohemia").build().toStockDTO());
+
+        // when
+        when(stockRepository.findExistingNames(anyCollection())).thenReturn(Collections.emptySet());
+        when(stockRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // then
+        BulkCreateResultDTO result = stockBulkService.createStocks(stockDTOs.iterator());
+
+        assertThat(createdNames(result), contains("Brahma", "Skol", "Bohemia"));
+        assertThat(result.getRejected(), is(empty()));
+        verify(stockRepository, times(2)).findExistingNames(anyCollection());
+        verify(stockRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void whenShardingIsEnabledThenStocksAreCreatedInTheirShards() throws StockAlreadyRegisteredException {
+        // given
+        List<StockDTO> stockDTOs = Arrays.asList(
+                StockDTOBuilder.builder().id(null).name("Brahma").build().toStockDTO(),
+                StockDTOBuilder.builder().id(null).name("Skol").build().toStockDTO());
+        ShardedStockStore shards = mock(ShardedStockStore.class);
+
+        // when
+        when(shardedStockStore.getIfAvailable()).thenReturn(shards);
+        when(shards.create(stockDTOs.get(0))).thenReturn(stockDTOs.get(0));
+        when(shards.create(stockDTOs.get(1))).thenThrow(new StockAlreadyRegisteredException("Skol"));
+
+        // then
+        BulkCreateResultDTO result = stockBulkService.createStocks(stockDTOs.iterator());
+
+        assertThat(createdNames(result), contains("Brahma"));
+        assertThat(result.getRejected(), contains(new RejectedStockDTO("Skol", "already registered")));
+        verify(stockRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void whenRegisteredStockIsInformedThenItIsRejected() {
+        // given
+        List<StockDTO> stockDTOs = Arrays.asList(
+                StockDTOBuilder.builder().id(null).name("Brahma").build().toStockDTO(),
+                StockDTOBuilder.builder().id(null).name("Skol").build().toStockDTO());
+
+        // when
+        when(stockRepository.findExistingNames(Set.of("Brahma", "Skol"))).thenReturn(Collections.singleton("Brahma"));
+        when(stockRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // then
+        BulkCreateResultDTO result = stockBulkService.createStocks(stockDTOs.iterator());
+
+        assertThat(createdNames(result), contains("Skol"));
+        assertThat(result.getRejected(), contains(new RejectedStockDTO("Brahma", "already registered")));
+    }
+
+    @Test
+    void whenSameNameIsInformedTwiceThenSecondOccurrenceIsRejected() {
+        // given
+        List<StockDTO> stockDTOs = Arrays.asList(
+                StockDTOBuilder.builder().id(null).name("Brahma").build().toStockDTO(),
+                StockDTOBuilder.builder().id(null).name("Brahma").build().toStockDTO());
+
+        // when
+        when(stockRepository.findExistingNames(Set.of("Brahma"))).thenReturn(Collections.emptySet());
+        when(stockRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // then
+        BulkCreateResultDTO result = stockBulkService.createStocks(stockDTOs.iterator());
+
+        assertThat(createdNames(result), contains("Brahma"));
+        assertThat(result.getRejected(), contains(new RejectedStockDTO("Brahma", "duplicated in request")));
+    }
+
+    @Test
+    void whenInvalidStockIsInformedThenItIsRejectedWithItsViolations() {
+        // given
+        StockDTO invalidStockDTO = StockDTOBuilder.builder().id(null).build().toStockDTO();
+        invalidStockDTO.setBrand(null);
+
+        // then
+        BulkCreateResultDTO result = stockBulkService.createStocks(Collections.singletonList(invalidStockDTO).iterator());
+
+        assertThat(result.getCreated(), is(empty()));
+        assertThat(result.getRejected(), contains(new RejectedStockDTO("Brahma", "brand must not be null")));
+    }
+
+    @Test
+    void whenWatermarksAreOutOfOrderThenStockIsRejected() {
+        // given
+        StockDTO inverted = StockDTOBuilder.builder().id(null).name("Inverted").lowWatermark(20).highWatermark(10).build().toStockDTO();
+        StockDTO aboveMax = StockDTOBuilder.builder().id(null).name("Above max").max(50).highWatermark(60).build().toStockDTO();
+
+        // then
+        BulkCreateResultDTO result = stockBulkService.createStocks(Arrays.asList(inverted, aboveMax).iterator());
+
+        assertThat(result.getCreated(), is(empty()));
+        assertThat(result.getRejected(), contains(
+                new RejectedStockDTO("Inverted", "lowWatermark must satisfy lowWatermark <= highWatermark <= max"),
+                new RejectedStockDTO("Above max", "highWatermark must satisfy lowWatermark <= highWatermark <= max")));
+    }
+
+    @Test
+    void whenBatchInsertHitsConcurrentDuplicateThenChunkIsRetriedOneByOne() {
+        // given
+        List<StockDTO> stockDTOs = Arrays.asList(
+                StockDTOBuilder.builder().id(null).name("Brahma").build().toStockDTO(),
+                StockDTOBuilder.builder().id(null).name("Skol").build().toStockDTO());
+
+        // when
+        when(stockRepository.findExistingNames(anyCollection())).thenReturn(Collections.emptySet());
+        when(stockRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("unique name"));
+        when(stockRepository.saveAndFlush(any(Stock.class)))
+                .thenThrow(new DataIntegrityViolationException("unique name"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // then
+        BulkCreateResultDTO result = stockBulkService.createStocks(stockDTOs.iterator());
+
+        assertThat(createdNames(result), contains("Skol"));
+        assertThat(result.getRejected(), contains(new RejectedStockDTO("Brahma", "already registered")));
+    }
+
+    private List<String> createdNames(BulkCreateResultDTO result) {
+        return result.getCreated()
+                .stream()
+                .map(StockDTO::getName)
+                .collect(Collectors.toList());
+    }
+}
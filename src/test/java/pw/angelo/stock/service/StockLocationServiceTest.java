@@ -0,0 +1,127 @@
+package pw.angelo.stock.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.dto.StockLocationDTO;
+import pw.angelo.stock.dto.StockLocationsDTO;
+import pw.angelo.stock.dto.StockTransferDTO;
+import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.exception.StockLocationNotFoundException;
+import pw.angelo.stock.repository.StockLocationRepository;
+import pw.angelo.stock.repository.StockRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:locations;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class StockLocationServiceTest {
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockLocationService stockLocationService;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private StockLocationRepository stockLocationRepository;
+
+    private Long stockId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        StockDTO createdStockDTO = stockService.createStock(StockDTOBuilder.builder().id(null).build().toStockDTO());
+        stockId = createdStockDTO.getId();
+        stockLocationService.saveLocation(stockId, "north", StockLocationDTO.builder().max(100).quantity(40).build());
+        stockLocationService.saveLocation(stockId, "south", StockLocationDTO.builder().max(50).quantity(10).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        stockLocationRepository.deleteAll();
+        stockRepository.deleteAll();
+    }
+
+    @Test
+    void whenLocationsAreAdjustedThenTotalsFollowTheirQuantities() throws Exception {
+        // when
+        stockLocationService.increment(stockId, "north", 5);
+        stockLocationService.increment(stockId, "south", -3);
+
+        // then
+        StockLocationsDTO locations = stockLocationService.findLocations(stockId);
+        assertThat(locations.getTotalQuantity(), is(equalTo(52L)));
+        assertThat(locations.getTotalMax(), is(equalTo(150L)));
+        assertThat(locations.getLocations(), contains(
+                new StockLocationDTO("north", 100, 45),
+                new StockLocationDTO("south", 50, 7)));
+    }
+
+    @Test
+    void whenAdjustmentLeavesTheLimitsOfALocationThenAnExceptionShouldBeThrown() {
+        // then
+        assertThrows(StockExceededException.class, () -> stockLocationService.increment(stockId, "south", 41));
+        assertThrows(StockInsufficientException.class, () -> stockLocationService.increment(stockId, "south", -11));
+        assertThrows(StockLocationNotFoundException.class, () -> stockLocationService.increment(stockId, "east", 1));
+    }
+
+    @Test
+    void whenTransferCannotBeCompletedThenNoLocationIsChanged() throws Exception {
+        // given
+        stockLocationService.increment(stockId, "south", 5);
+
+        // when
+        assertThrows(StockExceededException.class, () -> stockLocationService.transfer(stockId, new StockTransferDTO("north", "south", 40)));
+
+        // then
+        StockLocationsDTO locations = stockLocationService.findLocations(stockId);
+        assertThat(locations.getLocations(), contains(
+                new StockLocationDTO("north", 100, 40),
+                new StockLocationDTO("south", 50, 15)));
+    }
+
+    @Test
+    void whenTransfersRunConcurrentlyInBothDirectionsThenTotalIsKept() throws Exception {
+        // given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> transfers = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 200; i++) {
+            StockTransferDTO transferDTO = i % 2 == 0 ? new StockTransferDTO("north", "south", 1) : new StockTransferDTO("south", "north", 1);
+            transfers.add(executor.submit(() -> {
+                try {
+                    stockLocationService.transfer(stockId, transferDTO);
+                } catch (StockExceededException | StockInsufficientException e) {
+                    // a side ran out or filled up, the transfer is skipped
+                }
+                return null;
+            }));
+        }
+        for (Future<?> transfer : transfers) {
+            transfer.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertThat(stockLocationService.findLocations(stockId).getTotalQuantity(), is(equalTo(50L)));
+    }
+}
@@ -0,0 +1,151 @@
+package pw.angelo.stock.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.dto.StockAdjustmentDTO;
+import pw.angelo.stock.dto.StockAdjustmentRequestDTO;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.enums.AdjustmentMode;
+import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.repository.StockRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+@SpringBootTest
+public class StockServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int INCREMENTS_PER_THREAD = 50;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockAdjustmentService stockAdjustmentService;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @AfterEach
+    void tearDown() {
+        stockRepository.deleteAll();
+    }
+
+    @Test
+    void whenHotStockIsIncrementedConcurrentlyThenNoUpdateIsLost() throws Exception {
+        // given
+        StockDTO createdStockDTO = stockService.createStock(StockDTOBuilder.builder()
+                .id(null)
+                .max(500)
+                .quantity(0)
+                .build()
+                .toStockDTO());
+
+        // when
+        runConcurrently(() -> {
+            stockService.increment(createdStockDTO.getId(), 1);
+            return null;
+        });
+
+        // then
+        StockDTO foundStockDTO = stockService.findByName(createdStockDTO.getName());
+        assertThat(foundStockDTO.getQuantity(), is(equalTo(THREADS * INCREMENTS_PER_THREAD)));
+    }
+
+    @Test
+    void whenConcurrentIncrementsPassTheMaxThenQuantityStopsExactlyAtMax() throws Exception {
+        // given
+        int max = 300;
+        StockDTO createdStockDTO = stockService.createStock(StockDTOBuilder.builder()
+                .id(null)
+                .max(max)
+                .quantity(0)
+                .build()
+                .toStockDTO());
+        AtomicInteger rejectedIncrements = new AtomicInteger();
+
+        // when
+        runConcurrently(() -> {
+            try {
+                stockService.increment(createdStockDTO.getId(), 1);
+            } catch (StockExceededException e) {
+                rejectedIncrements.incrementAndGet();
+            }
+            return null;
+        });
+
+        // then
+        StockDTO foundStockDTO = stockService.findByName(createdStockDTO.getName());
+        assertThat(foundStockDTO.getQuantity(), is(equalTo(max)));
+        assertThat(rejectedIncrements.get(), is(equalTo(THREADS * INCREMENTS_PER_THREAD - max)));
+    }
+
+    @Test
+    void whenBatchesAdjustTheSameStocksInOppositeOrdersThenNoneDeadlocksOrIsLost() throws Exception {
+        // given
+        StockDTO firstStockDTO = stockService.createStock(StockDTOBuilder.builder()
+                .id(null)
+                .name("first")
+                .max(500)
+                .quantity(0)
+                .build()
+                .toStockDTO());
+        StockDTO secondStockDTO = stockService.createStock(StockDTOBuilder.builder()
+                .id(null)
+                .name("second")
+                .max(500)
+                .quantity(500)
+                .build()
+                .toStockDTO());
+        AtomicInteger batches = new AtomicInteger();
+
+        // when
+        runConcurrently(() -> {
+            boolean forward = batches.incrementAndGet() % 2 == 0;
+            StockAdjustmentDTO increment = new StockAdjustmentDTO(firstStockDTO.getId(), 1);
+            StockAdjustmentDTO decrement = new StockAdjustmentDTO(secondStockDTO.getId(), -1);
+            stockAdjustmentService.adjust(new StockAdjustmentRequestDTO(AdjustmentMode.ALL_OR_NOTHING,
+                    forward ? Arrays.asList(increment, decrement) : Arrays.asList(decrement, increment)));
+            return null;
+        });
+
+        // then
+        int adjustments = THREADS * INCREMENTS_PER_THREAD;
+        assertThat(stockService.findByName(firstStockDTO.getName()).getQuantity(), is(equalTo(adjustments)));
+        assertThat(stockService.findByName(secondStockDTO.getName()).getQuantity(), is(equalTo(500 - adjustments)));
+    }
+
+    private void runConcurrently(Callable<Void> increment) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                        increment.call();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
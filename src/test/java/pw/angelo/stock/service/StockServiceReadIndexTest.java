@@ -0,0 +1,116 @@
+package pw.angelo.stock.service;
+
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.mapper.StockMapper;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.cache.StockNameCache;
+import pw.angelo.stock.service.index.StockReadIndex;
+import pw.angelo.stock.service.ledger.StockLedger;
+import pw.angelo.stock.service.metrics.StockMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StockServiceReadIndexTest {
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @Mock
+    private StockReadIndex stockReadIndex;
+
+    @Spy
+    private StockProperties stockProperties = new StockProperties();
+
+    @Spy
+    private StockNameCache stockNameCache = new StockNameCache(stockProperties, new SimpleMeterRegistry());
+
+    @Spy
+    private StockMetrics stockMetrics = new StockMetrics(new SimpleMeterRegistry());
+
+    private StockMapper stockMapper = StockMapper.INSTANCE;
+
+    @InjectMocks
+    private StockService stockService;
+
+    @Test
+    void whenReadIndexIsReadyThenLookupsAreServedFromIt() throws StockNotFoundException {
+        // given
+        StockDTO expectedFoundStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+
+        // when
+        when(stockReadIndex.isReady()).thenReturn(true);
+        when(stockReadIndex.findByName(expectedFoundStockDTO.getName())).thenReturn(Optional.of(expectedFoundStockDTO));
+        when(stockReadIndex.quantityOf(expectedFoundStockDTO.getId())).thenReturn(expectedFoundStockDTO.getQuantity());
+
+        // then
+        assertThat(stockService.findByName(expectedFoundStockDTO.getName()), is(equalTo(expectedFoundStockDTO)));
+        assertTrue(stockService.isInStock(expectedFoundStockDTO.getId(), expectedFoundStockDTO.getQuantity()));
+        assertFalse(stockService.isInStock(expectedFoundStockDTO.getId(), expectedFoundStockDTO.getQuantity() + 1));
+        verify(stockRepository, times(0)).findByName(expectedFoundStockDTO.getName());
+        verify(stockRepository, times(0)).findById(expectedFoundStockDTO.getId());
+    }
+
+    @Test
+    void whenStockIsMissingFromReadyIndexThenAnExceptionShouldBeThrown() {
+        // when
+        when(stockReadIndex.isReady()).thenReturn(true);
+        when(stockReadIndex.quantityOf(1L)).thenReturn(StockReadIndex.NOT_INDEXED);
+
+        // then
+        assertThrows(StockNotFoundException.class, () -> stockService.isInStock(1L, 1));
+        verify(stockRepository, times(0)).findById(1L);
+    }
+
+    @Test
+    void whenLedgerIsEnabledThenItsQuantityWinsOverTheIndexedOne() throws StockNotFoundException {
+        // given
+        StockLedger stockLedger = mock(StockLedger.class);
+        StockService ledgerStockService = new StockService(stockRepository, null, null, stockProperties,
+                stockLedger, null, null, stockReadIndex, stockNameCache, stockMetrics, null);
+
+        // when
+        when(stockReadIndex.isReady()).thenReturn(true);
+        when(stockReadIndex.quantityOf(1L)).thenReturn(10);
+        when(stockLedger.quantityOf(1L)).thenReturn(Optional.of(2));
+
+        // then
+        assertFalse(ledgerStockService.isInStock(1L, 5));
+        assertTrue(ledgerStockService.isInStock(1L, 2));
+    }
+
+    @Test
+    void whenReadIndexIsNotReadyThenLookupsAreServedFromTheDatabase() throws StockNotFoundException {
+        // given
+        StockDTO expectedFoundStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+
+        // when
+        when(stockReadIndex.isReady()).thenReturn(false);
+        when(stockRepository.findByName(expectedFoundStockDTO.getName())).thenReturn(Optional.of(stockMapper.toModel(expectedFoundStockDTO)));
+
+        // then
+        assertThat(stockService.findByName(expectedFoundStockDTO.getName()), is(equalTo(expectedFoundStockDTO)));
+        verify(stockReadIndex, times(0)).findByName(expectedFoundStockDTO.getName());
+    }
+}
@@ -0,0 +1,77 @@
+package pw.angelo.stock.service;
+
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.dto.StockSearchDTO;
+import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.exception.StockShardingUnsupportedException;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.cache.StockNameCache;
+import pw.angelo.stock.service.metrics.StockMetrics;
+import pw.angelo.stock.service.shard.ShardedStockStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StockServiceShardingTest {
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @Mock
+    private ShardedStockStore shardedStockStore;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private StockProperties stockProperties = new StockProperties();
+
+    @Spy
+    private StockNameCache stockNameCache = new StockNameCache(stockProperties, new SimpleMeterRegistry());
+
+    @Spy
+    private StockMetrics stockMetrics = new StockMetrics(new SimpleMeterRegistry());
+
+    @InjectMocks
+    private StockService stockService;
+
+    @Test
+    void whenShardingIsEnabledThenIncrementIsRoutedToTheShardedStore() throws StockNotFoundException, StockExceededException, StockInsufficientException {
+        // given
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+
+        // when
+        when(shardedStockStore.increment(expectedStockDTO.getId(), 10)).thenReturn(expectedStockDTO);
+
+        // then
+        StockDTO incrementedStockDTO = stockService.increment(expectedStockDTO.getId(), 10);
+
+        assertThat(incrementedStockDTO, is(equalTo(expectedStockDTO)));
+        verify(stockRepository, times(0)).incrementQuantity(expectedStockDTO.getId(), 10);
+    }
+
+    @Test
+    void whenShardingIsEnabledThenSearchIsRefused() {
+        // then
+        assertThrows(StockShardingUnsupportedException.class, () -> stockService.search(new StockSearchDTO(), PageRequest.of(0, 10)));
+    }
+}
@@ -1,22 +1,51 @@
 package pw.angelo.stock.service;
 
 import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.config.StockProperties;
 import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.dto.StockPageDTO;
+import pw.angelo.stock.dto.StockSearchDTO;
+import pw.angelo.stock.dto.StockSearchResultDTO;
+import pw.angelo.stock.dto.StockSyncDTO;
 import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.entity.StockTombstone;
+import pw.angelo.stock.event.StockChangedEvent;
 import pw.angelo.stock.exception.StockAlreadyRegisteredException;
+import pw.angelo.stock.exception.StockConcurrentUpdateException;
 import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.exception.StockInsufficientException;
 import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.exception.StockShardingUnsupportedException;
+import pw.angelo.stock.exception.StockSortUnsupportedException;
+import pw.angelo.stock.exception.StockSyncExpiredException;
 import pw.angelo.stock.mapper.StockMapper;
+import pw.angelo.stock.repository.StockLocationRepository;
 import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.repository.StockTombstoneRepository;
+import pw.angelo.stock.service.cache.StockNameCache;
+import pw.angelo.stock.service.metrics.StockMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -39,6 +68,26 @@ public class StockServiceTest {
     @Mock
     private StockRepository stockRepository;
 
+    @Mock
+    private StockTombstoneRepository stockTombstoneRepository;
+
+    @Mock
+    private StockLocationRepository stockLocationRepository;
+
+    @Spy
+    private StockProperties stockProperties = new StockProperties();
+
+    @Spy
+    private StockNameCache stockNameCache = new StockNameCache(stockProperties, new SimpleMeterRegistry());
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private StockMetrics stockMetrics = new StockMetrics(meterRegistry);
+
     private StockMapper stockMapper = StockMapper.INSTANCE;
 
     @InjectMocks
@@ -73,6 +122,7 @@ public class StockServiceTest {
 
         // then
         assertThrows(StockAlreadyRegisteredException.class, () -> stockService.createStock(expectedStockDTO));
+        assertThat(meterRegistry.get("stock.operations").tags("operation", StockMetrics.CREATE, "outcome", "already-registered").timer().count(), is(equalTo(1L)));
     }
 
     @Test
@@ -90,6 +140,49 @@ public class StockServiceTest {
         assertThat(foundStockDTO, is(equalTo(expectedFoundStockDTO)));
     }
 
+    @Test
+    void whenSameStockNameIsGivenTwiceThenSecondLookupIsServedFromCache() throws StockNotFoundException {
+        // given
+        StockDTO expectedFoundStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        Stock expectedFoundStock = stockMapper.toModel(expectedFoundStockDTO);
+
+        // when
+        when(stockRepository.findByName(expectedFoundStock.getName())).thenReturn(Optional.of(expectedFoundStock));
+
+        // then
+        stockService.findByName(expectedFoundStockDTO.getName());
+        StockDTO foundStockDTO = stockService.findByName(expectedFoundStockDTO.getName());
+
+        assertThat(foundStockDTO, is(equalTo(expectedFoundStockDTO)));
+        verify(stockRepository, times(1)).findByName(expectedFoundStockDTO.getName());
+    }
+
+    @Test
+    void whenStockIsIncrementedThenItsCachedEntryIsEvicted() throws StockNotFoundException, StockExceededException, StockInsufficientException {
+        // given
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        Stock expectedStock = stockMapper.toModel(expectedStockDTO);
+        when(stockRepository.findByName(expectedStockDTO.getName())).thenReturn(Optional.of(expectedStock));
+        when(stockRepository.incrementQuantity(expectedStockDTO.getId(), 10)).thenReturn(Optional.of(expectedStockDTO));
+
+        // when
+        stockService.findByName(expectedStockDTO.getName());
+        stockService.increment(expectedStockDTO.getId(), 10);
+        stockService.findByName(expectedStockDTO.getName());
+
+        // then
+        verify(stockRepository, times(2)).findByName(expectedStockDTO.getName());
+    }
+
+    @Test
+    void whenInStockIsCheckedWithInvalidIdThenThrowAnException() {
+        // when
+        when(stockRepository.findById(INVALID_STOCK_ID)).thenReturn(Optional.empty());
+
+        // then
+        assertThrows(StockNotFoundException.class, () -> stockService.isInStock(INVALID_STOCK_ID, 1));
+    }
+
     @Test
     void whenNotRegisteredStockNameIsGivenThenThrowAnException() {
         // given
@@ -129,6 +222,90 @@ public class StockServiceTest {
         assertThat(foundListStockDTO, is(empty()));
     }
 
+    @Test
+    void whenFullPageIsListedThenNextCursorPointsToItsLastStock() {
+        // given
+        Stock firstStock = stockMapper.toModel(StockDTOBuilder.builder().id(5L).build().toStockDTO());
+        Stock secondStock = stockMapper.toModel(StockDTOBuilder.builder().id(7L).name("Skol").build().toStockDTO());
+
+        //when
+        when(stockRepository.findByIdGreaterThan(3L, PageRequest.of(0, 2, Sort.by("id"))))
+                .thenReturn(Arrays.asList(firstStock, secondStock));
+
+        //then
+        StockPageDTO stockPageDTO = stockService.listPage(3L, 2);
+
+        assertThat(stockPageDTO.getContent().size(), is(equalTo(2)));
+        assertThat(stockPageDTO.getNextCursor(), is(equalTo(secondStock.getId())));
+    }
+
+    @Test
+    void whenLastPageIsListedThenThereIsNoNextCursor() {
+        // given
+        Stock lastStock = stockMapper.toModel(StockDTOBuilder.builder().build().toStockDTO());
+
+        //when
+        when(stockRepository.findByIdGreaterThan(0L, PageRequest.of(0, 10, Sort.by("id"))))
+                .thenReturn(Collections.singletonList(lastStock));
+
+        //then
+        StockPageDTO stockPageDTO = stockService.listPage(null, 10);
+
+        assertThat(stockPageDTO.getContent().size(), is(equalTo(1)));
+        assertThat(stockPageDTO.getNextCursor(), is(nullValue()));
+    }
+
+    @Test
+    void whenPageSizeIsAboveLimitThenItIsClamped() {
+        int maxPageSize = stockProperties.getListing().getMaxPageSize();
+
+        when(stockRepository.findByIdGreaterThan(0L, PageRequest.of(0, maxPageSize, Sort.by("id"))))
+                .thenReturn(Collections.emptyList());
+
+        StockPageDTO stockPageDTO = stockService.listPage(null, maxPageSize + 1);
+
+        assertThat(stockPageDTO.getContent(), is(empty()));
+    }
+
+    @Test
+    void whenSearchIsCalledThenMatchingPageIsReturned() throws StockSortUnsupportedException, StockShardingUnsupportedException {
+        // given
+        StockDTO expectedFoundStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        StockSearchDTO criteria = StockSearchDTO.builder().brand(expectedFoundStockDTO.getBrand()).build();
+        PageRequest pageRequest = PageRequest.of(0, 1, Sort.by("quantity"));
+
+        // when
+        when(stockRepository.search(criteria, pageRequest))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(expectedFoundStockDTO), pageRequest, true));
+
+        // then
+        StockSearchResultDTO searchResult = stockService.search(criteria, pageRequest);
+
+        assertThat(searchResult.getContent(), is(equalTo(Collections.singletonList(expectedFoundStockDTO))));
+        assertThat(searchResult.isHasNext(), is(true));
+    }
+
+    @Test
+    void whenSearchIsSortedByUnsupportedPropertyThenAnExceptionShouldBeThrown() {
+        assertThrows(StockSortUnsupportedException.class,
+                () -> stockService.search(new StockSearchDTO(), PageRequest.of(0, 10, Sort.by("version"))));
+    }
+
+    @Test
+    void whenStreamAllIsCalledThenEveryStockIsPassedToTheConsumer() {
+        // given
+        StockDTO expectedFoundStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        List<StockDTO> streamedStockDTOs = new ArrayList<>();
+
+        //when
+        when(stockRepository.streamAllOrderedById()).thenReturn(Stream.of(expectedFoundStockDTO));
+
+        //then
+        stockService.streamAll(streamedStockDTOs::add);
+
+        assertThat(streamedStockDTOs, is(equalTo(Collections.singletonList(expectedFoundStockDTO))));
+    }
+
     @Test
     void whenExclusionIsCalledWithValidIdThenAStockShouldBeDeleted() throws StockNotFoundException {
         // given
@@ -144,20 +321,59 @@ public class StockServiceTest {
 
         verify(stockRepository, times(1)).findById(expectedDeletedStockDTO.getId());
         verify(stockRepository, times(1)).deleteById(expectedDeletedStockDTO.getId());
+        verify(stockLocationRepository, times(1)).deleteByStockId(expectedDeletedStockDTO.getId());
+
+        ArgumentCaptor<StockChangedEvent> publishedEvent = ArgumentCaptor.forClass(StockChangedEvent.class);
+        verify(eventPublisher).publishEvent(publishedEvent.capture());
+        assertThat(publishedEvent.getValue().isDeleted(), is(true));
+        assertThat(publishedEvent.getValue().getStock().getId(), is(equalTo(expectedDeletedStockDTO.getId())));
+
+        ArgumentCaptor<StockTombstone> savedTombstone = ArgumentCaptor.forClass(StockTombstone.class);
+        verify(stockTombstoneRepository).save(savedTombstone.capture());
+        assertThat(savedTombstone.getValue().getStockId(), is(equalTo(expectedDeletedStockDTO.getId())));
+        assertThat(savedTombstone.getValue().getName(), is(equalTo(expectedDeletedStockDTO.getName())));
     }
 
     @Test
-    void whenIncrementIsCalledThenIncrementStock() throws StockNotFoundException, StockExceededException {
+    void whenSyncIsCalledWithSinceThenChangedStocksAndDeletedIdsAreReturned() throws StockSyncExpiredException, StockShardingUnsupportedException {
+        // given
+        StockDTO changedStockDTO = StockDTOBuilder.builder().version(3L).build().toStockDTO();
+        Instant since = Instant.now().minus(Duration.ofMinutes(1));
+
+        // when
+        when(stockRepository.findChangedSince(since)).thenReturn(Collections.singletonList(changedStockDTO));
+        when(stockTombstoneRepository.findByDeletedAtAfterOrderByStockId(since))
+                .thenReturn(Collections.singletonList(new StockTombstone(2L, "Skol", Instant.now())));
+
+        // then
+        StockSyncDTO sync = stockService.sync(since);
+
+        assertThat(sync.getChanged(), is(equalTo(Collections.singletonList(changedStockDTO))));
+        assertThat(sync.getDeleted(), is(equalTo(Collections.singletonList(2L))));
+        assertThat(sync.getNextSince(), is(lessThan(Instant.now().minus(stockProperties.getSync().getOverlap()).plusSeconds(1))));
+    }
+
+    @Test
+    void whenSyncIsCalledWithSinceOlderThanTombstoneRetentionThenAnExceptionShouldBeThrown() {
+        // given
+        Instant since = Instant.now().minus(stockProperties.getSync().getTombstoneRetention()).minus(Duration.ofDays(1));
+
+        // then
+        assertThrows(StockSyncExpiredException.class, () -> stockService.sync(since));
+    }
+
+    @Test
+    void whenIncrementIsCalledThenIncrementStock() throws StockNotFoundException, StockExceededException, StockInsufficientException {
         //given
         StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
         Stock expectedStock = stockMapper.toModel(expectedStockDTO);
 
-        //when
-        when(stockRepository.findById(expectedStockDTO.getId())).thenReturn(Optional.of(expectedStock));
-        when(stockRepository.save(expectedStock)).thenReturn(expectedStock);
-
         int quantityToIncrement = 10;
         int expectedQuantityAfterIncrement = expectedStockDTO.getQuantity() + quantityToIncrement;
+        expectedStock.setQuantity(expectedQuantityAfterIncrement);
+
+        //when
+        when(stockRepository.incrementQuantity(expectedStockDTO.getId(), quantityToIncrement)).thenReturn(Optional.of(stockMapper.toDTO(expectedStock)));
 
         // then
         StockDTO incrementedStockDTO = stockService.increment(expectedStockDTO.getId(), quantityToIncrement);
@@ -171,10 +387,12 @@ public class StockServiceTest {
         StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
         Stock expectedStock = stockMapper.toModel(expectedStockDTO);
 
+        int quantityToIncrement = 80;
+        when(stockRepository.incrementQuantity(expectedStockDTO.getId(), quantityToIncrement)).thenReturn(Optional.empty());
         when(stockRepository.findById(expectedStockDTO.getId())).thenReturn(Optional.of(expectedStock));
 
-        int quantityToIncrement = 80;
         assertThrows(StockExceededException.class, () -> stockService.increment(expectedStockDTO.getId(), quantityToIncrement));
+        assertThat(meterRegistry.get("stock.operations").tags("operation", StockMetrics.INCREMENT, "outcome", "exceeded").timer().count(), is(equalTo(1L)));
     }
 
     @Test
@@ -182,18 +400,87 @@ public class StockServiceTest {
         StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
         Stock expectedStock = stockMapper.toModel(expectedStockDTO);
 
+        int quantityToIncrement = 45;
+        when(stockRepository.incrementQuantity(expectedStockDTO.getId(), quantityToIncrement)).thenReturn(Optional.empty());
         when(stockRepository.findById(expectedStockDTO.getId())).thenReturn(Optional.of(expectedStock));
 
-        int quantityToIncrement = 45;
         assertThrows(StockExceededException.class, () -> stockService.increment(expectedStockDTO.getId(), quantityToIncrement));
     }
 
+    @Test
+    void whenDecrementIsGreatherThanQuantityThenThrowException() {
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        Stock expectedStock = stockMapper.toModel(expectedStockDTO);
+
+        int quantityToIncrement = -11;
+        when(stockRepository.incrementQuantity(expectedStockDTO.getId(), quantityToIncrement)).thenReturn(Optional.empty());
+        when(stockRepository.findById(expectedStockDTO.getId())).thenReturn(Optional.of(expectedStock));
+
+        assertThrows(StockInsufficientException.class, () -> stockService.increment(expectedStockDTO.getId(), quantityToIncrement));
+    }
+
     @Test
     void whenIncrementIsCalledWithInvalidIdThenThrowException() {
         int quantityToIncrement = 10;
 
+        when(stockRepository.incrementQuantity(INVALID_STOCK_ID, quantityToIncrement)).thenReturn(Optional.empty());
         when(stockRepository.findById(INVALID_STOCK_ID)).thenReturn(Optional.empty());
 
         assertThrows(StockNotFoundException.class, () -> stockService.increment(INVALID_STOCK_ID, quantityToIncrement));
     }
+
+    @Test
+    void whenIncrementHitsLockContentionThenItIsRetried() throws StockNotFoundException, StockExceededException, StockInsufficientException {
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        Stock expectedStock = stockMapper.toModel(expectedStockDTO);
+
+        int quantityToIncrement = 10;
+        when(stockRepository.incrementQuantity(expectedStockDTO.getId(), quantityToIncrement))
+                .thenThrow(new CannotAcquireLockException("lock timeout"))
+                .thenReturn(Optional.of(expectedStockDTO));
+
+        stockService.increment(expectedStockDTO.getId(), quantityToIncrement);
+
+        verify(stockRepository, times(2)).incrementQuantity(expectedStockDTO.getId(), quantityToIncrement);
+        assertThat(meterRegistry.get("stock.increment.retries").summary().totalAmount(), is(equalTo(1.0)));
+    }
+
+    @Test
+    void whenIncrementContentionExceedsMaxAttemptsThenExceptionIsPropagated() {
+        int quantityToIncrement = 10;
+        when(stockRepository.incrementQuantity(INVALID_STOCK_ID, quantityToIncrement))
+                .thenThrow(new CannotAcquireLockException("lock timeout"));
+
+        assertThrows(CannotAcquireLockException.class, () -> stockService.increment(INVALID_STOCK_ID, quantityToIncrement));
+        verify(stockRepository, times(stockProperties.getIncrement().getMaxAttempts())).incrementQuantity(INVALID_STOCK_ID, quantityToIncrement);
+    }
+
+    @Test
+    void whenRowKeepsChangingWithinLimitsThenConcurrentUpdateIsReported() {
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        Stock expectedStock = stockMapper.toModel(expectedStockDTO);
+
+        int quantityToIncrement = 10;
+        when(stockRepository.incrementQuantity(expectedStockDTO.getId(), quantityToIncrement)).thenReturn(Optional.empty());
+        when(stockRepository.findById(expectedStockDTO.getId())).thenReturn(Optional.of(expectedStock));
+
+        assertThrows(StockConcurrentUpdateException.class, () -> stockService.increment(expectedStockDTO.getId(), quantityToIncrement));
+        verify(stockRepository, times(stockProperties.getIncrement().getMaxAttempts())).incrementQuantity(expectedStockDTO.getId(), quantityToIncrement);
+    }
+
+    @Test
+    void whenLockContentionAndConcurrentChangesAlternateThenTheyShareOneAttemptLimit() {
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        Stock expectedStock = stockMapper.toModel(expectedStockDTO);
+
+        int quantityToIncrement = 10;
+        when(stockRepository.incrementQuantity(expectedStockDTO.getId(), quantityToIncrement))
+                .thenThrow(new CannotAcquireLockException("lock timeout"))
+                .thenReturn(Optional.empty());
+        when(stockRepository.findById(expectedStockDTO.getId())).thenReturn(Optional.of(expectedStock));
+
+        assertThrows(StockConcurrentUpdateException.class, () -> stockService.increment(expectedStockDTO.getId(), quantityToIncrement));
+        verify(stockRepository, times(stockProperties.getIncrement().getMaxAttempts())).incrementQuantity(expectedStockDTO.getId(), quantityToIncrement);
+        assertThat(meterRegistry.get("stock.increment.retries").summary().totalAmount(), is(equalTo(stockProperties.getIncrement().getMaxAttempts() - 1.0)));
+    }
 }
@@ -0,0 +1,119 @@
+package pw.angelo.stock.service.aggregate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockAggregateDTO;
+import pw.angelo.stock.dto.StockAggregatesDTO;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.enums.AggregateGrouping;
+import pw.angelo.stock.enums.StockType;
+import pw.angelo.stock.event.StockChangedEvent;
+import pw.angelo.stock.service.StockService;
+import pw.angelo.stock.service.snapshot.StockSnapshots;
+
+import java.util.function.Consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+public class StockAggregatesTest {
+
+    @Mock
+    private StockService stockService;
+
+    @Mock
+    private ObjectProvider<StockSnapshots> stockSnapshots;
+
+    private StockAggregates stockAggregates;
+
+    @BeforeEach
+    void setUp() {
+        stockAggregates = new StockAggregates(stockService, new StockProperties(), stockSnapshots);
+    }
+
+    @Test
+    void whenStocksChangeThenTotalsReplaceTheirPreviousContribution() {
+        // given
+        StockDTO brahma = StockDTOBuilder.builder().id(1L).quantity(10).max(50).build().toStockDTO();
+        StockDTO skol = StockDTOBuilder.builder().id(2L).name("Skol").quantity(0).max(50).build().toStockDTO();
+
+        // when
+        stockAggregates.onStockChanged(StockChangedEvent.updated(brahma));
+        stockAggregates.onStockChanged(StockChangedEvent.updated(skol));
+        stockAggregates.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().id(1L).quantity(46).max(50).build().toStockDTO()));
+        StockAggregatesDTO aggregates = stockAggregates.aggregate(AggregateGrouping.TYPE);
+
+        // then
+        StockAggregateDTO totals = aggregates.getTotals();
+        assertThat(totals.getItems(), is(equalTo(2L)));
+        assertThat(totals.getQuantity(), is(equalTo(46L)));
+        assertThat(totals.getMax(), is(equalTo(100L)));
+        assertThat(totals.getFillRatio(), is(closeTo(0.46, 0.0001)));
+        assertThat(totals.getEmpty(), is(equalTo(1L)));
+        assertThat(totals.getNearCapacity(), is(equalTo(1L)));
+        assertThat(aggregates.getGroups(), hasSize(1));
+        assertThat(aggregates.getGroups().get(0).getType(), is(equalTo(StockType.LAGER)));
+    }
+
+    @Test
+    void whenStockIsDeletedThenItsGroupIsRemoved() {
+        // given
+        StockDTO stout = StockDTOBuilder.builder().type(StockType.STOUT).brand("Guinness").build().toStockDTO();
+        stockAggregates.onStockChanged(StockChangedEvent.updated(stout));
+
+        // when
+        stockAggregates.onStockChanged(StockChangedEvent.deleted(stout));
+
+        // then
+        StockAggregatesDTO aggregates = stockAggregates.aggregate(AggregateGrouping.TYPE_AND_BRAND);
+        assertThat(aggregates.getGroups(), is(empty()));
+        assertThat(aggregates.getTotals().getItems(), is(equalTo(0L)));
+    }
+
+    @Test
+    void whenChangeArrivesOutOfOrderThenTheNewerVersionIsKept() {
+        // given
+        stockAggregates.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().id(1L).quantity(12).version(2L).build().toStockDTO()));
+
+        // when
+        stockAggregates.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().id(1L).quantity(11).version(1L).build().toStockDTO()));
+
+        // then
+        assertThat(stockAggregates.aggregate(AggregateGrouping.TYPE).getTotals().getQuantity(), is(equalTo(12L)));
+    }
+
+    @Test
+    void whenAggregatesAreReconciledThenTheyAreRebuiltFromTheRepository() {
+        // given
+        stockAggregates.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().id(99L).brand("Stale").build().toStockDTO()));
+
+        // when
+        doAnswer(invocation -> {
+            Consumer<StockDTO> stockConsumer = invocation.getArgument(0);
+            stockConsumer.accept(StockDTOBuilder.builder().id(1L).brand("Ambev").build().toStockDTO());
+            stockConsumer.accept(StockDTOBuilder.builder().id(2L).name("Heineken").brand("Heineken").build().toStockDTO());
+            return null;
+        }).when(stockService).streamAll(any());
+        stockAggregates.reconcile();
+
+        // then
+        StockAggregatesDTO aggregates = stockAggregates.aggregate(AggregateGrouping.BRAND);
+        assertThat(aggregates.getGroups(), hasSize(2));
+        assertThat(aggregates.getGroups().get(0).getBrand(), is(equalTo("Ambev")));
+        assertThat(aggregates.getGroups().get(1).getBrand(), is(equalTo("Heineken")));
+        assertThat(aggregates.getTotals().getItems(), is(equalTo(2L)));
+    }
+}
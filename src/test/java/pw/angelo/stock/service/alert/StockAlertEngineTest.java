@@ -0,0 +1,114 @@
+package pw.angelo.stock.service.alert;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockAlertDTO;
+import pw.angelo.stock.enums.StockAlertType;
+import pw.angelo.stock.enums.StockType;
+import pw.angelo.stock.event.StockChangedEvent;
+
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class StockAlertEngineTest {
+
+    @Mock
+    private StockAlertSink stockAlertSink;
+
+    private StockProperties stockProperties;
+
+    private StockAlertEngine stockAlertEngine;
+
+    @BeforeEach
+    void setUp() {
+        stockProperties = new StockProperties();
+        stockAlertEngine = new StockAlertEngine(stockProperties, Collections.singletonList(stockAlertSink));
+    }
+
+    @Test
+    void whenQuantityBouncesAroundTheLowWatermarkThenOnlyCrossingsAreAlerted() {
+        // when
+        for (int quantity : new int[]{12, 10, 8, 11, 9, 14, 15, 9}) {
+            stockAlertEngine.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().quantity(quantity).lowWatermark(10).highWatermark(15).build().toStockDTO()));
+        }
+
+        // then
+        ArgumentCaptor<StockAlertDTO> alerts = ArgumentCaptor.forClass(StockAlertDTO.class);
+        verify(stockAlertSink, times(3)).send(alerts.capture());
+        assertThat(alerts.getAllValues().stream().map(StockAlertDTO::getAlert).collect(Collectors.toList()),
+                contains(StockAlertType.LOW, StockAlertType.RECOVERED, StockAlertType.LOW));
+        assertThat(alerts.getAllValues().stream().map(StockAlertDTO::getQuantity).collect(Collectors.toList()),
+                contains(10, 15, 9));
+    }
+
+    @Test
+    void whenChangeArrivesOutOfOrderThenItIsIgnored() {
+        // given
+        stockAlertEngine.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().quantity(15).lowWatermark(10).highWatermark(15).version(2L).build().toStockDTO()));
+
+        // when
+        stockAlertEngine.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().quantity(5).lowWatermark(10).highWatermark(15).version(1L).build().toStockDTO()));
+
+        // then
+        assertThat(stockAlertEngine.isLow(1L), is(false));
+        verify(stockAlertSink, never()).send(any());
+    }
+
+    @Test
+    void whenStockHasNoWatermarksThenTypeDefaultsApply() {
+        // given
+        StockProperties.Watermarks ipaWatermarks = new StockProperties.Watermarks();
+        ipaWatermarks.setLow(5);
+        stockProperties.getAlerts().getTypeWatermarks().put(StockType.IPA, ipaWatermarks);
+
+        // when
+        stockAlertEngine.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().type(StockType.IPA).quantity(5).build().toStockDTO()));
+        stockAlertEngine.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().id(2L).type(StockType.LAGER).quantity(0).build().toStockDTO()));
+
+        // then
+        ArgumentCaptor<StockAlertDTO> alert = ArgumentCaptor.forClass(StockAlertDTO.class);
+        verify(stockAlertSink).send(alert.capture());
+        assertThat(alert.getValue().getStockId(), is(equalTo(1L)));
+        assertThat(alert.getValue().getHighWatermark(), is(equalTo(6)));
+    }
+
+    @Test
+    void whenLowStockIsDeletedThenItIsForgotten() {
+        // given
+        stockAlertEngine.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().quantity(5).lowWatermark(10).highWatermark(15).build().toStockDTO()));
+
+        // when
+        stockAlertEngine.onStockChanged(StockChangedEvent.deleted(StockDTOBuilder.builder().quantity(5).lowWatermark(10).highWatermark(15).build().toStockDTO()));
+
+        // then
+        assertThat(stockAlertEngine.isLow(1L), is(false));
+    }
+
+    @Test
+    void whenAlertsAreDisabledThenNothingIsSent() {
+        // given
+        stockProperties.getAlerts().setEnabled(false);
+
+        // when
+        stockAlertEngine.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().quantity(0).lowWatermark(10).highWatermark(15).build().toStockDTO()));
+
+        // then
+        verify(stockAlertSink, never()).send(any());
+    }
+}
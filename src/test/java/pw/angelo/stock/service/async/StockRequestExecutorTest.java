@@ -0,0 +1,93 @@
+package pw.angelo.stock.service.async;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.exception.StockServiceBusyException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StockRequestExecutorTest {
+
+    private StockRequestExecutor stockRequestExecutor;
+
+    @AfterEach
+    void tearDown() {
+        stockRequestExecutor.shutdown();
+    }
+
+    @Test
+    void whenAsyncIsDisabledThenCallRunsOnCallingThread() throws Exception {
+        stockRequestExecutor = new StockRequestExecutor(new StockProperties());
+
+        CompletableFuture<String> result = stockRequestExecutor.submit(() -> Thread.currentThread().getName());
+
+        assertTrue(result.isDone());
+        assertThat(result.get(), is(equalTo(Thread.currentThread().getName())));
+    }
+
+    @Test
+    void whenAsyncIsEnabledThenCallRunsOnRequestPool() throws Exception {
+        stockRequestExecutor = new StockRequestExecutor(asyncProperties(2, 10));
+
+        String threadName = stockRequestExecutor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+        assertThat(threadName, startsWith("stock-request-"));
+        assertThat(threadName, is(not(equalTo(Thread.currentThread().getName()))));
+    }
+
+    @Test
+    void whenCallThrowsCheckedExceptionThenItIsTheCauseOfTheFailure() {
+        stockRequestExecutor = new StockRequestExecutor(asyncProperties(1, 1));
+
+        CompletableFuture<Object> result = stockRequestExecutor.submit(() -> {
+            throw new StockNotFoundException(1L);
+        });
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertThat(exception.getCause(), is(instanceOf(StockNotFoundException.class)));
+    }
+
+    @Test
+    void whenQueueIsFullThenCallIsRejectedAsBusy() throws Exception {
+        stockRequestExecutor = new StockRequestExecutor(asyncProperties(1, 1));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> blocking = stockRequestExecutor.submit(() -> {
+            running.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        });
+        running.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Boolean> queued = stockRequestExecutor.submit(() -> true);
+        CompletableFuture<Boolean> rejected = stockRequestExecutor.submit(() -> true);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+        assertThat(exception.getCause(), is(instanceOf(StockServiceBusyException.class)));
+
+        release.countDown();
+        assertTrue(blocking.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private StockProperties asyncProperties(int poolSize, int queueCapacity) {
+        StockProperties stockProperties = new StockProperties();
+        stockProperties.getAsync().setEnabled(true);
+        stockProperties.getAsync().setPoolSize(poolSize);
+        stockProperties.getAsync().setQueueCapacity(queueCapacity);
+        return stockProperties;
+    }
+}
@@ -0,0 +1,56 @@
+package pw.angelo.stock.service.autocomplete;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class StockNameTrieTest {
+
+    private StockNameTrie stockNameTrie;
+
+    @BeforeEach
+    void setUp() {
+        stockNameTrie = new StockNameTrie();
+        stockNameTrie.add("Brahma");
+        stockNameTrie.add("Brahma Extra");
+        stockNameTrie.add("Budweiser");
+        stockNameTrie.add("Bohemia");
+        stockNameTrie.add("Skol");
+    }
+
+    @Test
+    void whenPrefixIsInformedThenNamesAreCompletedIgnoringCase() {
+        assertThat(stockNameTrie.complete("bRA", 10), contains("Brahma", "Brahma Extra"));
+        assertThat(stockNameTrie.complete("b", 2), contains("Bohemia", "Brahma"));
+        assertThat(stockNameTrie.complete("heineken", 10), is(empty()));
+    }
+
+    @Test
+    void whenPrefixHasTyposThenCloserNamesComeFirst() {
+        assertThat(stockNameTrie.completeApproximately("brahm", 1, 10), contains("Brahma", "Brahma Extra"));
+        assertThat(stockNameTrie.completeApproximately("bhrama", 2, 10), contains("Brahma", "Brahma Extra"));
+        assertThat(stockNameTrie.completeApproximately("brahma e", 2, 10), contains("Brahma Extra", "Brahma"));
+    }
+
+    @Test
+    void whenCloserMatchesFillTheLimitThenFartherOnesAreLeftOut() {
+        assertThat(stockNameTrie.completeApproximately("bra", 1, 2), contains("Brahma", "Brahma Extra"));
+    }
+
+    @Test
+    void whenNameIsRemovedThenItIsNoLongerCompleted() {
+        // when
+        stockNameTrie.remove("Brahma");
+        stockNameTrie.remove("Unknown");
+        stockNameTrie.add("Skol");
+
+        // then
+        assertThat(stockNameTrie.complete("brahma", 10), contains("Brahma Extra"));
+        assertThat(stockNameTrie.size(), is(equalTo(4)));
+    }
+}
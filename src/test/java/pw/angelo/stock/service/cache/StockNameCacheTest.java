@@ -0,0 +1,137 @@
+package pw.angelo.stock.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockDTO;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class StockNameCacheTest {
+
+    private static final String STOCK_NAME = "Brahma";
+
+    private StockProperties stockProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        stockProperties = new StockProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void whenStockIsLoadedTwiceThenLoaderIsCalledOnceAndHitIsRecorded() {
+        StockNameCache stockNameCache = new StockNameCache(stockProperties, meterRegistry);
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+
+        stockNameCache.get(STOCK_NAME, countingLoader(Optional.of(expectedStockDTO)));
+        Optional<StockDTO> cachedStockDTO = stockNameCache.get(STOCK_NAME, countingLoader(Optional.of(expectedStockDTO)));
+
+        assertThat(cachedStockDTO, is(equalTo(Optional.of(expectedStockDTO))));
+        assertThat(loads.get(), is(equalTo(1)));
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count(), is(equalTo(1.0)));
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count(), is(equalTo(1.0)));
+    }
+
+    @Test
+    void whenCachedStockIsReturnedThenCallersGetACopy() {
+        StockNameCache stockNameCache = new StockNameCache(stockProperties, meterRegistry);
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+
+        StockDTO firstStockDTO = stockNameCache.get(STOCK_NAME, countingLoader(Optional.of(expectedStockDTO))).get();
+        firstStockDTO.setQuantity(0);
+        StockDTO secondStockDTO = stockNameCache.get(STOCK_NAME, countingLoader(Optional.of(expectedStockDTO))).get();
+
+        assertThat(secondStockDTO, is(not(sameInstance(firstStockDTO))));
+        assertThat(secondStockDTO.getQuantity(), is(equalTo(expectedStockDTO.getQuantity())));
+    }
+
+    @Test
+    void whenNegativeLookupsAreNotCachedThenMissingStockIsLoadedEveryTime() {
+        StockNameCache stockNameCache = new StockNameCache(stockProperties, meterRegistry);
+
+        stockNameCache.get(STOCK_NAME, countingLoader(Optional.empty()));
+        Optional<StockDTO> missingStockDTO = stockNameCache.get(STOCK_NAME, countingLoader(Optional.empty()));
+
+        assertThat(missingStockDTO, is(equalTo(Optional.empty())));
+        assertThat(loads.get(), is(equalTo(2)));
+    }
+
+    @Test
+    void whenNegativeLookupsAreCachedThenMissingStockIsLoadedOnce() {
+        stockProperties.getCache().setCacheNegativeLookups(true);
+        StockNameCache stockNameCache = new StockNameCache(stockProperties, meterRegistry);
+
+        stockNameCache.get(STOCK_NAME, countingLoader(Optional.empty()));
+        Optional<StockDTO> missingStockDTO = stockNameCache.get(STOCK_NAME, countingLoader(Optional.empty()));
+
+        assertThat(missingStockDTO, is(equalTo(Optional.empty())));
+        assertThat(loads.get(), is(equalTo(1)));
+    }
+
+    @Test
+    void whenStockIsEvictedThenNextLookupReloadsIt() {
+        StockNameCache stockNameCache = new StockNameCache(stockProperties, meterRegistry);
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+
+        stockNameCache.get(STOCK_NAME, countingLoader(Optional.of(expectedStockDTO)));
+        stockNameCache.evict(STOCK_NAME);
+        stockNameCache.get(STOCK_NAME, countingLoader(Optional.of(expectedStockDTO)));
+
+        assertThat(loads.get(), is(equalTo(2)));
+    }
+
+    @Test
+    void whenCacheIsDisabledThenEveryLookupIsLoaded() {
+        stockProperties.getCache().setEnabled(false);
+        StockNameCache stockNameCache = new StockNameCache(stockProperties, meterRegistry);
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+
+        stockNameCache.get(STOCK_NAME, countingLoader(Optional.of(expectedStockDTO)));
+        stockNameCache.get(STOCK_NAME, countingLoader(Optional.of(expectedStockDTO)));
+
+        assertThat(loads.get(), is(equalTo(2)));
+    }
+
+    @Test
+    void whenStockIsEvictedInTransactionThenItIsEvictedOnlyAfterCommit() {
+        StockNameCache stockNameCache = new StockNameCache(stockProperties, meterRegistry);
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        stockNameCache.get(STOCK_NAME, countingLoader(Optional.of(expectedStockDTO)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            stockNameCache.evict(STOCK_NAME);
+            stockNameCache.get(STOCK_NAME, countingLoader(Optional.of(expectedStockDTO)));
+            assertThat(loads.get(), is(equalTo(1)));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            stockNameCache.get(STOCK_NAME, countingLoader(Optional.of(expectedStockDTO)));
+            assertThat(loads.get(), is(equalTo(2)));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private Function<String, Optional<StockDTO>> countingLoader(Optional<StockDTO> result) {
+        return name -> {
+            loads.incrementAndGet();
+            return result;
+        };
+    }
+}
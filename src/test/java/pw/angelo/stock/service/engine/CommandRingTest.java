@@ -0,0 +1,84 @@
+package pw.angelo.stock.service.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CommandRingTest {
+
+    @Test
+    void whenRingIsFullThenOfferIsRefusedUntilItIsDrained() {
+        // given
+        CommandRing<Integer> ring = new CommandRing<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+
+        // when
+        assertFalse(ring.offer(4));
+        List<Integer> drained = new ArrayList<>();
+        ring.drainTo(drained, 2);
+
+        // then
+        assertThat(drained, contains(0, 1));
+        assertTrue(ring.offer(4));
+        assertTrue(ring.offer(5));
+        ring.drainTo(drained, 10);
+        assertThat(drained, contains(0, 1, 2, 3, 4, 5));
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    void whenManyProducersOfferThenEachProducersItemsAreDrainedOnceAndInOrder() throws Exception {
+        // given
+        int producers = 4;
+        int itemsPerProducer = 10_000;
+        CommandRing<int[]> ring = new CommandRing<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+
+        // when
+        for (int producer = 0; producer < producers; producer++) {
+            int producerId = producer;
+            executor.execute(() -> {
+                for (int i = 0; i < itemsPerProducer; i++) {
+                    while (!ring.offer(new int[]{producerId, i})) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        int[] nextExpected = new int[producers];
+        List<int[]> batch = new ArrayList<>();
+        int received = 0;
+        while (received < producers * itemsPerProducer) {
+            ring.drainTo(batch, 16);
+            for (int[] item : batch) {
+                assertThat(item[1], is(equalTo(nextExpected[item[0]]++)));
+            }
+            received += batch.size();
+            batch.clear();
+        }
+        executor.shutdown();
+
+        // then
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    void whenCapacityIsNotAPowerOfTwoThenRingIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CommandRing<>(100));
+    }
+}
@@ -0,0 +1,119 @@
+package pw.angelo.stock.service.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.StockService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:engine;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "stock.engine.enabled=true"
+})
+public class StockCommandEngineTest {
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockCommandEngine stockCommandEngine;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @AfterEach
+    void tearDown() {
+        stockRepository.deleteAll();
+    }
+
+    @Test
+    void whenIncrementsAreSubmittedThenTheyAreAppliedInOrderAndCommitted() throws Exception {
+        // given
+        StockDTO stockDTO = stockService.createStock(StockDTOBuilder.builder().id(null).max(1000).quantity(0).build().toStockDTO());
+
+        // when
+        List<CompletableFuture<StockDTO>> results = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            results.add(stockCommandEngine.submitIncrement(stockDTO.getId(), 1));
+        }
+
+        // then
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get().getQuantity(), is(equalTo(i + 1)));
+        }
+        assertThat(stockRepository.findById(stockDTO.getId()).orElseThrow().getQuantity(), is(equalTo(500)));
+    }
+
+    @Test
+    void whenIncrementsExceedMaxThenOnlyThoseBeyondItAreRejected() throws Exception {
+        // given
+        StockDTO stockDTO = stockService.createStock(StockDTOBuilder.builder().id(null).max(100).quantity(0).build().toStockDTO());
+
+        // when
+        List<CompletableFuture<StockDTO>> results = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            results.add(stockCommandEngine.submitIncrement(stockDTO.getId(), 1));
+        }
+
+        // then
+        int rejected = 0;
+        for (CompletableFuture<StockDTO> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), is(instanceOf(StockExceededException.class)));
+                rejected++;
+            }
+        }
+        assertThat(rejected, is(equalTo(50)));
+        assertThat(stockRepository.findById(stockDTO.getId()).orElseThrow().getQuantity(), is(equalTo(100)));
+    }
+
+    @Test
+    void whenStockIsChangedOutsideTheEngineThenTheChangeIsNotOverwritten() throws Exception {
+        // given
+        StockDTO stockDTO = stockService.createStock(StockDTOBuilder.builder().id(null).max(100).quantity(0).build().toStockDTO());
+        stockCommandEngine.increment(stockDTO.getId(), 10);
+
+        // when
+        stockRepository.incrementQuantity(stockDTO.getId(), 85);
+        StockDTO incremented = stockCommandEngine.increment(stockDTO.getId(), 5);
+
+        // then
+        assertThat(incremented.getQuantity(), is(equalTo(100)));
+        assertThrows(StockExceededException.class, () -> stockCommandEngine.increment(stockDTO.getId(), 1));
+        assertThat(stockRepository.findById(stockDTO.getId()).orElseThrow().getQuantity(), is(equalTo(100)));
+    }
+
+    @Test
+    void whenIncrementIsRoutedThroughTheServiceThenItsExceptionsAreRethrown() throws Exception {
+        // given
+        StockDTO stockDTO = stockService.createStock(StockDTOBuilder.builder().id(null).build().toStockDTO());
+
+        // when
+        StockDTO incremented = stockService.increment(stockDTO.getId(), 5);
+
+        // then
+        assertThat(incremented.getQuantity(), is(equalTo(stockDTO.getQuantity() + 5)));
+        assertThat(incremented.getVersion(), is(equalTo(stockDTO.getVersion() + 1)));
+        assertThrows(StockInsufficientException.class, () -> stockService.increment(stockDTO.getId(), -stockDTO.getMax()));
+        assertThrows(StockNotFoundException.class, () -> stockService.increment(stockDTO.getId() + 1000, 1));
+    }
+}
@@ -0,0 +1,119 @@
+package pw.angelo.stock.service.engine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.exception.StockConcurrentUpdateException;
+import pw.angelo.stock.mapper.StockMapper;
+import pw.angelo.stock.repository.StockRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StockCommandPartitionTest {
+
+    @Mock
+    private StockRepository stockRepository;
+
+    private StockCommandPartition partition;
+
+    @AfterEach
+    void tearDown() {
+        partition.shutdown();
+    }
+
+    @Test
+    void whenBatchHoldsMoreStocksThanTheCacheThenEveryStockIsApplied() throws Exception {
+        // given
+        Stock brahma = StockMapper.INSTANCE.toModel(StockDTOBuilder.builder().id(1L).quantity(10).build().toStockDTO());
+        Stock skol = StockMapper.INSTANCE.toModel(StockDTOBuilder.builder().id(2L).name("Skol").quantity(20).build().toStockDTO());
+        Stock guinness = StockMapper.INSTANCE.toModel(StockDTOBuilder.builder().id(3L).name("Guinness").quantity(30).build().toStockDTO());
+        partition = new StockCommandPartition(0, 16, 16, 1, 3, stockRepository, new SimpleMeterRegistry().summary("batch"));
+
+        // when
+        when(stockRepository.findAllById(any())).thenReturn(Arrays.asList(brahma, skol, guinness));
+        when(stockRepository.compareAndSetQuantities(anyList(), any())).thenAnswer(invocation -> {
+            int[] updated = new int[invocation.<List<Stock>>getArgument(0).size()];
+            Arrays.fill(updated, 1);
+            return updated;
+        });
+        List<StockCommand> commands = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            StockCommand command = new StockCommand(id, 1);
+            commands.add(command);
+            partition.submit(command);
+        }
+        partition.start();
+
+        // then
+        for (int i = 0; i < commands.size(); i++) {
+            assertThat(commands.get(i).getResult().get(5, TimeUnit.SECONDS).getQuantity(), is(equalTo((i + 1) * 10 + 1)));
+        }
+    }
+
+    @Test
+    void whenSeveralCommandsHitOneStockThenEachReportsItsOwnVersion() throws Exception {
+        // given
+        Stock brahma = StockMapper.INSTANCE.toModel(StockDTOBuilder.builder().quantity(10).build().toStockDTO());
+        brahma.setVersion(4);
+        partition = new StockCommandPartition(0, 16, 16, 16, 3, stockRepository, new SimpleMeterRegistry().summary("batch"));
+
+        // when
+        when(stockRepository.findAllById(any())).thenReturn(Collections.singletonList(brahma));
+        when(stockRepository.compareAndSetQuantities(anyList(), eq(new int[]{3}))).thenReturn(new int[]{1});
+        List<StockCommand> commands = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            StockCommand command = new StockCommand(1L, 1);
+            commands.add(command);
+            partition.submit(command);
+        }
+        partition.start();
+
+        // then
+        for (int i = 0; i < commands.size(); i++) {
+            StockDTO result = commands.get(i).getResult().get(5, TimeUnit.SECONDS);
+            assertThat(result.getQuantity(), is(equalTo(11 + i)));
+            assertThat(result.getVersion(), is(equalTo(5L + i)));
+        }
+        assertThat(brahma.getVersion(), is(equalTo(7L)));
+    }
+
+    @Test
+    void whenStockKeepsChangingOutsideTheEngineThenConcurrentUpdateIsReported() {
+        // given
+        Stock brahma = StockMapper.INSTANCE.toModel(StockDTOBuilder.builder().build().toStockDTO());
+        partition = new StockCommandPartition(0, 16, 16, 16, 3, stockRepository, new SimpleMeterRegistry().summary("batch"));
+
+        // when
+        when(stockRepository.findAllById(any())).thenReturn(Collections.singletonList(brahma));
+        when(stockRepository.compareAndSetQuantities(anyList(), any())).thenReturn(new int[]{0});
+        StockCommand command = new StockCommand(1L, 1);
+        partition.submit(command);
+        partition.start();
+
+        // then
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> command.getResult().get(5, TimeUnit.SECONDS));
+        assertThat(exception.getCause(), is(instanceOf(StockConcurrentUpdateException.class)));
+    }
+}
@@ -0,0 +1,137 @@
+package pw.angelo.stock.service.feed;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.ExecutorServiceAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockChangeFilterDTO;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.enums.StockType;
+import pw.angelo.stock.event.StockChangedEvent;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class StockChangeFeedTest {
+
+    private StockProperties stockProperties;
+
+    private StockChangeFeed stockChangeFeed;
+
+    @BeforeEach
+    void setUp() {
+        stockProperties = new StockProperties();
+        stockProperties.getFeed().setMaxPendingPerSubscriber(2);
+        stockChangeFeed = new StockChangeFeed(stockProperties, new ExecutorServiceAdapter(new SyncTaskExecutor()));
+    }
+
+    @Test
+    void whenSubscriberFiltersByTypeThenOnlyMatchingChangesAreSent() {
+        // given
+        StockChangeFilterDTO filter = new StockChangeFilterDTO();
+        filter.setTypes(Collections.singleton(StockType.IPA));
+        RecordingEmitter emitter = subscribe(filter);
+
+        // when
+        stockChangeFeed.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().build().toStockDTO()));
+        stockChangeFeed.onStockChanged(StockChangedEvent.deleted(StockDTOBuilder.builder().id(2L).type(StockType.IPA).build().toStockDTO()));
+        stockChangeFeed.dispatch();
+
+        // then
+        assertThat(emitter.events, contains("deleted:2"));
+    }
+
+    @Test
+    void whenStockChangesRepeatedlyBeforeDispatchThenOnlyTheLatestChangeIsSent() {
+        // given
+        RecordingEmitter emitter = subscribe(new StockChangeFilterDTO());
+
+        // when
+        stockChangeFeed.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().build().toStockDTO()));
+        stockChangeFeed.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().quantity(20).build().toStockDTO()));
+        stockChangeFeed.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().quantity(30).build().toStockDTO()));
+        stockChangeFeed.dispatch();
+        stockChangeFeed.dispatch();
+
+        // then
+        assertThat(emitter.events, contains("updated:1"));
+        assertThat(emitter.quantities, contains(30));
+    }
+
+    @Test
+    void whenSubscriberFallsBehindThenOldestChangesAreDroppedAndReported() {
+        // given
+        RecordingEmitter emitter = subscribe(new StockChangeFilterDTO());
+
+        // when
+        for (long id = 1; id <= 3; id++) {
+            stockChangeFeed.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().id(id).build().toStockDTO()));
+        }
+        stockChangeFeed.dispatch();
+
+        // then
+        assertThat(emitter.events, contains("dropped", "updated:2", "updated:3"));
+    }
+
+    @Test
+    void whenSendingToSubscriberFailsThenItIsRemoved() {
+        // given
+        RecordingEmitter emitter = subscribe(new StockChangeFilterDTO());
+
+        // when
+        emitter.failSends = true;
+        stockChangeFeed.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().build().toStockDTO()));
+        stockChangeFeed.dispatch();
+
+        // then
+        assertThat(emitter.events, is(empty()));
+        assertThat(stockChangeFeed.subscriberCount(), is(equalTo(0)));
+    }
+
+    private RecordingEmitter subscribe(StockChangeFilterDTO filter) {
+        RecordingEmitter emitter = new RecordingEmitter();
+        stockChangeFeed.register(new StockFeedSubscription(emitter, filter, stockProperties.getFeed().getMaxPendingPerSubscriber()));
+        return emitter;
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> events = new ArrayList<>();
+        private final List<Integer> quantities = new ArrayList<>();
+        private boolean failSends;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failSends) {
+                throw new IOException("client went away");
+            }
+            List<Object> data = builder.build()
+                    .stream()
+                    .map(DataWithMediaType::getData)
+                    .collect(Collectors.toList());
+            String text = data.stream()
+                    .filter(String.class::isInstance)
+                    .map(String.class::cast)
+                    .collect(Collectors.joining());
+            String name = text.substring(text.indexOf("event:") + 6, text.indexOf('\n', text.indexOf("event:")));
+            int idIndex = text.indexOf("id:");
+            events.add(idIndex < 0 ? name : name + ":" + text.substring(idIndex + 3, text.indexOf('\n', idIndex)));
+            data.stream()
+                    .filter(StockDTO.class::isInstance)
+                    .map(stock -> ((StockDTO) stock).getQuantity())
+                    .forEach(quantities::add);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package pw.angelo.stock.service.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.entity.IdempotencyRecord;
+import pw.angelo.stock.exception.StockIdempotencyKeyReusedException;
+import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.repository.IdempotencyRecordRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StockIdempotencyTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void whenKeyIsRepeatedThenStoredResponseIsReturnedWithoutRunningTheCallAgain() throws Exception {
+        // given
+        StockIdempotency stockIdempotency = new StockIdempotency(new StockProperties(), idempotencyRecordRepository, objectMapper);
+        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        AtomicInteger calls = new AtomicInteger();
+
+        // when
+        StockDTO first = stockIdempotency.execute("key-1", "increment 1 10", () -> {
+            calls.incrementAndGet();
+            return stockDTO;
+        });
+        StockDTO second = stockIdempotency.execute("key-1", "increment 1 10", () -> {
+            calls.incrementAndGet();
+            return stockDTO;
+        });
+
+        // then
+        assertThat(calls.get(), is(equalTo(1)));
+        assertThat(first, is(equalTo(stockDTO)));
+        assertThat(second, is(equalTo(stockDTO)));
+    }
+
+    @Test
+    void whenKeyIsReusedForADifferentRequestThenAnExceptionShouldBeThrown() throws Exception {
+        // given
+        StockIdempotency stockIdempotency = new StockIdempotency(new StockProperties(), idempotencyRecordRepository, objectMapper);
+        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        stockIdempotency.execute("key-1", "increment 1 10", () -> stockDTO);
+
+        // then
+        assertThrows(StockIdempotencyKeyReusedException.class, () -> stockIdempotency.execute("key-1", "increment 1 20", () -> stockDTO));
+    }
+
+    @Test
+    void whenCallFailsThenRetryRunsItAgain() throws Exception {
+        // given
+        StockIdempotency stockIdempotency = new StockIdempotency(new StockProperties(), idempotencyRecordRepository, objectMapper);
+        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+
+        // when
+        assertThrows(StockNotFoundException.class, () -> stockIdempotency.execute("key-1", "increment 1 10", () -> {
+            throw new StockNotFoundException(1L);
+        }));
+        StockDTO retried = stockIdempotency.execute("key-1", "increment 1 10", () -> stockDTO);
+
+        // then
+        assertThat(retried, is(equalTo(stockDTO)));
+    }
+
+    @Test
+    void whenDuplicatesArriveConcurrentlyThenTheCallRunsOnce() throws Exception {
+        // given
+        StockIdempotency stockIdempotency = new StockIdempotency(new StockProperties(), idempotencyRecordRepository, objectMapper);
+        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch callStarted = new CountDownLatch(1);
+        CountDownLatch releaseCall = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<StockDTO>> results = new ArrayList<>();
+
+        // when
+        results.add(executor.submit(() -> stockIdempotency.execute("key-1", "increment 1 10", () -> {
+            calls.incrementAndGet();
+            callStarted.countDown();
+            releaseCall.await();
+            return stockDTO;
+        })));
+        callStarted.await(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 3; i++) {
+            results.add(executor.submit(() -> stockIdempotency.execute("key-1", "increment 1 10", () -> {
+                calls.incrementAndGet();
+                return stockDTO;
+            })));
+        }
+        releaseCall.countDown();
+
+        // then
+        for (Future<StockDTO> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS), is(equalTo(stockDTO)));
+        }
+        executor.shutdown();
+        assertThat(calls.get(), is(equalTo(1)));
+    }
+
+    @Test
+    void whenPersistentThenResponsesAreSavedAndReplayedFromTheTable() throws Exception {
+        // given
+        StockProperties stockProperties = new StockProperties();
+        stockProperties.getIdempotency().setPersistent(true);
+        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        String response = objectMapper.writeValueAsString(stockDTO);
+
+        // when
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+        new StockIdempotency(stockProperties, idempotencyRecordRepository, objectMapper).execute("key-1", "increment 1 10", () -> stockDTO);
+        when(idempotencyRecordRepository.findById("key-1"))
+                .thenReturn(Optional.of(new IdempotencyRecord("key-1", "increment 1 10", response, Instant.now())));
+        StockDTO replayed = new StockIdempotency(stockProperties, idempotencyRecordRepository, objectMapper).execute("key-1", "increment 1 10", () -> {
+            throw new IllegalStateException("must not run again");
+        });
+
+        // then
+        ArgumentCaptor<IdempotencyRecord> savedRecord = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRecordRepository).save(savedRecord.capture());
+        assertThat(savedRecord.getValue().getResponse(), is(equalTo(response)));
+        assertThat(replayed, is(equalTo(stockDTO)));
+    }
+}
@@ -0,0 +1,135 @@
+package pw.angelo.stock.service.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.enums.StockType;
+import pw.angelo.stock.event.StockChangedEvent;
+import pw.angelo.stock.service.StockService;
+import pw.angelo.stock.service.snapshot.StockSnapshots;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+public class StockReadIndexTest {
+
+    @Mock
+    private StockService stockService;
+
+    @Mock
+    private ObjectProvider<StockSnapshots> stockSnapshots;
+
+    private StockReadIndex stockReadIndex;
+
+    @BeforeEach
+    void setUp() {
+        stockReadIndex = new StockReadIndex(stockService, new StockProperties(), stockSnapshots);
+    }
+
+    @Test
+    void whenIndexIsRebuiltThenStocksAreFoundByNameAndId() {
+        // given
+        StockDTO brahma = StockDTOBuilder.builder().id(1L).lowWatermark(5).build().toStockDTO();
+        StockDTO guinness = StockDTOBuilder.builder().id(2L).name("Guinness").brand("Diageo").type(StockType.STOUT).quantity(30).build().toStockDTO();
+
+        // when
+        doAnswer(invocation -> {
+            Consumer<StockDTO> stockConsumer = invocation.getArgument(0);
+            stockConsumer.accept(brahma);
+            stockConsumer.accept(guinness);
+            return null;
+        }).when(stockService).streamAll(any());
+        stockReadIndex.rebuild();
+
+        // then
+        assertTrue(stockReadIndex.isReady());
+        assertThat(stockReadIndex.findByName("Brahma"), is(equalTo(Optional.of(brahma))));
+        assertThat(stockReadIndex.findByName("Guinness"), is(equalTo(Optional.of(guinness))));
+        assertThat(stockReadIndex.findByName("Skol"), is(equalTo(Optional.empty())));
+        assertThat(stockReadIndex.quantityOf(2L), is(equalTo(30)));
+        assertThat(stockReadIndex.quantityOf(3L), is(equalTo(StockReadIndex.NOT_INDEXED)));
+        assertThat(stockReadIndex.unitsOf(StockType.STOUT), is(equalTo(30L)));
+    }
+
+    @Test
+    void whenStocksChangeThenTypeTotalsFollow() {
+        // given
+        stockReadIndex.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().id(1L).quantity(10).build().toStockDTO()));
+        stockReadIndex.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().id(2L).name("Skol").quantity(20).build().toStockDTO()));
+
+        // when
+        stockReadIndex.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().id(1L).quantity(15).version(1L).build().toStockDTO()));
+        stockReadIndex.onStockChanged(StockChangedEvent.deleted(StockDTOBuilder.builder().id(2L).name("Skol").build().toStockDTO()));
+
+        // then
+        assertThat(stockReadIndex.unitsOf(StockType.LAGER), is(equalTo(15L)));
+        assertThat(stockReadIndex.maxOf(StockType.LAGER), is(equalTo(50L)));
+        assertThat(stockReadIndex.itemsOf(StockType.LAGER), is(equalTo(1)));
+        assertThat(stockReadIndex.findByName("Skol"), is(equalTo(Optional.empty())));
+        assertThat(stockReadIndex.size(), is(equalTo(1)));
+    }
+
+    @Test
+    void whenChangeArrivesOutOfOrderThenTheNewerVersionIsKept() {
+        // given
+        stockReadIndex.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().id(1L).quantity(12).version(2L).build().toStockDTO()));
+
+        // when
+        stockReadIndex.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().id(1L).quantity(11).version(1L).build().toStockDTO()));
+
+        // then
+        assertThat(stockReadIndex.quantityOf(1L), is(equalTo(12)));
+    }
+
+    @Test
+    void whenManyStocksAreAddedAndRemovedThenEveryRemainingStockIsFound() {
+        // given
+        for (long id = 1; id <= 5000; id++) {
+            stockReadIndex.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().id(id).name("Beer " + id).brand("Brand " + id % 7).quantity((int) id % 100).build().toStockDTO()));
+        }
+
+        // when
+        for (long id = 1; id <= 5000; id += 3) {
+            stockReadIndex.onStockChanged(StockChangedEvent.deleted(StockDTOBuilder.builder().id(id).name("Beer " + id).build().toStockDTO()));
+        }
+        for (long id = 5001; id <= 6000; id++) {
+            stockReadIndex.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().id(id).name("Beer " + id).quantity(1).build().toStockDTO()));
+        }
+
+        // then
+        for (long id = 1; id <= 6000; id++) {
+            boolean deleted = id <= 5000 && (id - 1) % 3 == 0;
+            Optional<StockDTO> found = stockReadIndex.findByName("Beer " + id);
+            assertThat(found.isPresent(), is(!deleted));
+            if (!deleted) {
+                assertThat(found.get().getId(), is(equalTo(id)));
+                assertThat(stockReadIndex.quantityOf(id), is(equalTo(id <= 5000 ? (int) id % 100 : 1)));
+            }
+        }
+        assertThat(stockReadIndex.size(), is(equalTo(6000 - 1667)));
+    }
+
+    @Test
+    void whenIndexWasNotBuiltThenItIsNotReady() {
+        // when
+        stockReadIndex.onStockChanged(StockChangedEvent.updated(StockDTOBuilder.builder().build().toStockDTO()));
+
+        // then
+        assertFalse(stockReadIndex.isReady());
+    }
+}
@@ -0,0 +1,84 @@
+package pw.angelo.stock.service.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.repository.StockMovementRepository;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.StockService;
+import pw.angelo.stock.service.ledger.StockLedger;
+
+import java.time.Instant;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:journal;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "stock.ledger.enabled=true",
+        "stock.ledger.journal=true",
+        "stock.ledger.flush-interval-ms=3600000",
+        "stock.ledger.checkpoint-interval-ms=3600000"
+})
+public class StockJournalIntegrationTest {
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private StockJournal stockJournal;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @AfterEach
+    void tearDown() {
+        stockMovementRepository.deleteAll();
+        stockRepository.deleteAll();
+    }
+
+    @Test
+    void whenMovementsAreJournaledThenSnapshotAndPointInTimeQuantitiesAreRebuiltFromThem() throws Exception {
+        // given
+        Instant beforeCreate = Instant.now();
+        Thread.sleep(5);
+        StockDTO stockDTO = stockService.createStock(StockDTOBuilder.builder()
+                .id(null)
+                .name("journaled")
+                .max(50)
+                .quantity(10)
+                .build()
+                .toStockDTO());
+        Thread.sleep(5);
+        Instant afterCreate = Instant.now();
+        Thread.sleep(5);
+
+        // when
+        stockService.increment(stockDTO.getId(), 5);
+        stockService.increment(stockDTO.getId(), -3);
+        stockLedger.flush();
+
+        // then
+        assertThat(stockMovementRepository.count(), is(equalTo(3L)));
+        assertThat(stockRepository.findById(stockDTO.getId()).get().getQuantity(), is(equalTo(10)));
+        assertThat(stockJournal.quantityOf(stockDTO.getId()).get(), is(equalTo(12)));
+
+        stockJournal.checkpoint();
+
+        assertThat(stockRepository.findById(stockDTO.getId()).get().getQuantity(), is(equalTo(12)));
+        assertThat(stockJournal.quantityOf(stockDTO.getId()).get(), is(equalTo(12)));
+        assertThat(stockService.quantityAt(stockDTO.getId(), afterCreate).getQuantity(), is(equalTo(10)));
+        assertThat(stockService.quantityAt(stockDTO.getId(), beforeCreate).getQuantity(), is(equalTo(0)));
+        assertThat(stockService.quantityAt(stockDTO.getId(), Instant.now()).getQuantity(), is(equalTo(12)));
+    }
+}
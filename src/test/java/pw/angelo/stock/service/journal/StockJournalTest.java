@@ -0,0 +1,148 @@
+package pw.angelo.stock.service.journal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.entity.StockMovement;
+import pw.angelo.stock.enums.MovementType;
+import pw.angelo.stock.mapper.StockMapper;
+import pw.angelo.stock.repository.StockMovementRepository;
+import pw.angelo.stock.repository.StockRepository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StockJournalTest {
+
+    private static final long STOCK_ID = 1L;
+
+    @Mock
+    private StockMovementRepository stockMovementRepository;
+
+    @Mock
+    private StockRepository stockRepository;
+
+    private StockJournal stockJournal;
+
+    @BeforeEach
+    void setUp() {
+        stockJournal = new StockJournal(stockMovementRepository, stockRepository);
+    }
+
+    @Test
+    void whenMovementsAreFlushedThenTheyAreAppendedInOneBatch() {
+        // given
+        stockJournal.append(STOCK_ID, 5);
+        stockJournal.append(STOCK_ID, -3);
+
+        // when
+        stockJournal.flush();
+
+        // then
+        List<StockMovement> movements = savedMovements(1).get(0);
+        assertThat(movements.stream().map(StockMovement::getQuantity).collect(Collectors.toList()), contains(5, -3));
+        assertThat(movements.stream().map(StockMovement::getType).collect(Collectors.toList()), contains(MovementType.INCREMENT, MovementType.DECREMENT));
+        verify(stockRepository, never()).applyQuantityDeltas(anyMap());
+    }
+
+    @Test
+    void whenStockIsDiscardedThenOnlyItsPendingMovementsAreDropped() {
+        // given
+        stockJournal.append(STOCK_ID, 5);
+        stockJournal.append(2L, 7);
+        stockJournal.append(STOCK_ID, -3);
+
+        // when
+        stockJournal.discard(STOCK_ID);
+        stockJournal.flush();
+
+        // then
+        List<StockMovement> movements = savedMovements(1).get(0);
+        assertThat(movements.stream().map(StockMovement::getStockId).collect(Collectors.toList()), contains(2L));
+        assertThat(stockJournal.append(2L, 1), is(equalTo(1)));
+    }
+
+    @Test
+    void whenAppendFailsThenMovementsAreRetriedOnNextFlush() {
+        // given
+        stockJournal.append(STOCK_ID, 5);
+        when(stockMovementRepository.saveAll(anyList()))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        stockJournal.flush();
+        stockJournal.flush();
+
+        // then
+        List<List<StockMovement>> batches = savedMovements(2);
+        assertThat(batches.get(1), hasSize(1));
+        assertThat(batches.get(1).get(0).getQuantity(), is(equalTo(5)));
+    }
+
+    @Test
+    void whenCheckpointRunsThenSnapshotsAreAdvancedUpToTheLastMovement() {
+        when(stockMovementRepository.findMaxId()).thenReturn(42L);
+
+        stockJournal.checkpoint();
+
+        verify(stockRepository).checkpointJournal(42L);
+    }
+
+    @Test
+    void whenJournalIsEmptyThenCheckpointDoesNothing() {
+        when(stockMovementRepository.findMaxId()).thenReturn(null);
+
+        stockJournal.checkpoint();
+
+        verify(stockRepository, never()).checkpointJournal(anyLong());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void whenStockIsCreatedThenItsCreateMovementBecomesItsCheckpoint() {
+        // given
+        Stock stock = StockMapper.INSTANCE.toModel(StockDTOBuilder.builder().build().toStockDTO());
+        when(stockMovementRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<StockMovement> movements = invocation.getArgument(0);
+            movements.get(0).setId(7L);
+            return movements;
+        });
+
+        // when
+        stockJournal.recordCreated(Collections.singletonList(stock));
+
+        // then
+        ArgumentCaptor<Map<Long, Long>> checkpoints = ArgumentCaptor.forClass(Map.class);
+        verify(stockRepository).advanceJournalCheckpoints(checkpoints.capture());
+        assertThat(checkpoints.getValue(), is(equalTo(Collections.singletonMap(stock.getId(), 7L))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<StockMovement>> savedMovements(int batches) {
+        ArgumentCaptor<List<StockMovement>> movements = ArgumentCaptor.forClass(List.class);
+        verify(stockMovementRepository, times(batches)).saveAll(movements.capture());
+        return movements.getAllValues();
+    }
+}
@@ -0,0 +1,111 @@
+package pw.angelo.stock.service.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.StockService;
+import pw.angelo.stock.service.journal.StockJournal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Compares increment throughput on one hot stock between the per-call update
+ * path and the write-behind ledger. Run with {@code -Dstock.load-test=true}.
+ */
+@Slf4j
+@SpringBootTest
+@EnabledIfSystemProperty(named = "stock.load-test", matches = "true")
+public class StockLedgerLoadTest {
+
+    private static final int THREADS = 8;
+    private static final int INCREMENTS_PER_THREAD = 5_000;
+    private static final int TOTAL_INCREMENTS = THREADS * INCREMENTS_PER_THREAD;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private StockProperties stockProperties;
+
+    @Autowired
+    private ObjectProvider<StockJournal> stockJournal;
+
+    @AfterEach
+    void tearDown() {
+        stockRepository.deleteAll();
+    }
+
+    @Test
+    void compareIncrementThroughput() throws Exception {
+        StockDTO perCallStock = createHotStock("per-call");
+        double perCallOpsPerSecond = measure(() -> {
+            stockService.increment(perCallStock.getId(), 1);
+            return null;
+        });
+
+        StockDTO ledgerStock = createHotStock("ledger");
+        StockLedger stockLedger = new StockLedger(stockRepository, stockProperties, stockJournal);
+        double ledgerOpsPerSecond = measure(() -> {
+            stockLedger.increment(ledgerStock.getId(), 1);
+            return null;
+        });
+        stockLedger.shutdown();
+
+        log.info("increment throughput, {} threads: per-call={} ops/s, ledger={} ops/s ({}x)",
+                THREADS, Math.round(perCallOpsPerSecond), Math.round(ledgerOpsPerSecond), String.format("%.1f", ledgerOpsPerSecond / perCallOpsPerSecond));
+        assertThat(stockService.findByName(perCallStock.getName()).getQuantity(), is(equalTo(TOTAL_INCREMENTS)));
+        assertThat(stockService.findByName(ledgerStock.getName()).getQuantity(), is(equalTo(TOTAL_INCREMENTS)));
+    }
+
+    private StockDTO createHotStock(String name) throws Exception {
+        return stockService.createStock(StockDTOBuilder.builder()
+                .id(null)
+                .name(name)
+                .max(Integer.MAX_VALUE)
+                .quantity(0)
+                .build()
+                .toStockDTO());
+    }
+
+    private double measure(Callable<Void> increment) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                        increment.call();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return TOTAL_INCREMENTS / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
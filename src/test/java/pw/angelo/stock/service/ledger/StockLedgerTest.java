@@ -0,0 +1,183 @@
+package pw.angelo.stock.service.ledger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.mapper.StockMapper;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.journal.StockJournal;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StockLedgerTest {
+
+    private static final long INVALID_STOCK_ID = 2L;
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @Mock
+    private ObjectProvider<StockJournal> stockJournal;
+
+    private StockMapper stockMapper = StockMapper.INSTANCE;
+
+    private StockLedger stockLedger;
+
+    @BeforeEach
+    void setUp() {
+        stockLedger = new StockLedger(stockRepository, new StockProperties(), stockJournal);
+    }
+
+    @Test
+    void whenIncrementIsCalledThenQuantityIsUpdatedInMemoryOnly() throws StockNotFoundException, StockExceededException, StockInsufficientException {
+        // given
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        Stock expectedStock = stockMapper.toModel(expectedStockDTO);
+
+        // when
+        when(stockRepository.findById(expectedStockDTO.getId())).thenReturn(Optional.of(expectedStock));
+
+        // then
+        stockLedger.increment(expectedStockDTO.getId(), 5);
+        StockDTO incrementedStockDTO = stockLedger.increment(expectedStockDTO.getId(), 5);
+
+        assertThat(incrementedStockDTO.getQuantity(), is(equalTo(expectedStockDTO.getQuantity() + 10)));
+        verify(stockRepository, times(1)).findById(expectedStockDTO.getId());
+        verify(stockRepository, never()).applyQuantityDeltas(anyMap());
+    }
+
+    @Test
+    void whenIncrementIsGreatherThanMaxThenThrowException() {
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        Stock expectedStock = stockMapper.toModel(expectedStockDTO);
+
+        when(stockRepository.findById(expectedStockDTO.getId())).thenReturn(Optional.of(expectedStock));
+
+        assertThrows(StockExceededException.class, () -> stockLedger.increment(expectedStockDTO.getId(), 45));
+    }
+
+    @Test
+    void whenDecrementIsGreatherThanQuantityThenThrowException() {
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        Stock expectedStock = stockMapper.toModel(expectedStockDTO);
+
+        when(stockRepository.findById(expectedStockDTO.getId())).thenReturn(Optional.of(expectedStock));
+
+        assertThrows(StockInsufficientException.class, () -> stockLedger.increment(expectedStockDTO.getId(), -11));
+    }
+
+    @Test
+    void whenIncrementIsCalledWithInvalidIdThenThrowException() {
+        when(stockRepository.findById(INVALID_STOCK_ID)).thenReturn(Optional.empty());
+
+        assertThrows(StockNotFoundException.class, () -> stockLedger.increment(INVALID_STOCK_ID, 10));
+    }
+
+    @Test
+    void whenFlushIsCalledThenDeltasAreWrittenInOneBatch() throws StockNotFoundException, StockExceededException, StockInsufficientException {
+        // given
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        Stock expectedStock = stockMapper.toModel(expectedStockDTO);
+        when(stockRepository.findById(expectedStockDTO.getId())).thenReturn(Optional.of(expectedStock));
+
+        // when
+        stockLedger.increment(expectedStockDTO.getId(), 5);
+        stockLedger.increment(expectedStockDTO.getId(), 3);
+        stockLedger.flush();
+        stockLedger.flush();
+
+        // then
+        verify(stockRepository, times(1)).applyQuantityDeltas(Collections.singletonMap(expectedStockDTO.getId(), 8));
+    }
+
+    @Test
+    void whenFlushFailsThenDeltasAreRetriedOnNextFlush() throws StockNotFoundException, StockExceededException, StockInsufficientException {
+        // given
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        Stock expectedStock = stockMapper.toModel(expectedStockDTO);
+        Map<Long, Integer> expectedDeltas = Collections.singletonMap(expectedStockDTO.getId(), 5);
+        when(stockRepository.findById(expectedStockDTO.getId())).thenReturn(Optional.of(expectedStock));
+        doThrow(new IllegalStateException("database unavailable"))
+                .doNothing()
+                .when(stockRepository).applyQuantityDeltas(expectedDeltas);
+
+        // when
+        stockLedger.increment(expectedStockDTO.getId(), 5);
+        stockLedger.flush();
+        stockLedger.flush();
+
+        // then
+        verify(stockRepository, times(2)).applyQuantityDeltas(expectedDeltas);
+    }
+
+    @Test
+    void whenStockIsEvictedThenPendingDeltasAreDiscarded() throws StockNotFoundException, StockExceededException, StockInsufficientException {
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        Stock expectedStock = stockMapper.toModel(expectedStockDTO);
+        when(stockRepository.findById(expectedStockDTO.getId())).thenReturn(Optional.of(expectedStock));
+
+        stockLedger.increment(expectedStockDTO.getId(), 5);
+        stockLedger.evict(expectedStockDTO.getId());
+        stockLedger.flush();
+
+        verify(stockRepository, never()).applyQuantityDeltas(anyMap());
+    }
+
+    @Test
+    void whenOverlayIsCalledThenLedgerQuantityReplacesStoredQuantity() throws StockNotFoundException, StockExceededException, StockInsufficientException {
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+        Stock expectedStock = stockMapper.toModel(expectedStockDTO);
+        when(stockRepository.findById(expectedStockDTO.getId())).thenReturn(Optional.of(expectedStock));
+
+        stockLedger.increment(expectedStockDTO.getId(), 5);
+        StockDTO storedStockDTO = StockDTOBuilder.builder().build().toStockDTO();
+
+        assertThat(stockLedger.overlay(storedStockDTO).getQuantity(), is(equalTo(expectedStockDTO.getQuantity() + 5)));
+    }
+
+    @Test
+    void whenStockIsOverlaidThenLaterIncrementsCarryNewerVersions() throws StockNotFoundException, StockExceededException, StockInsufficientException {
+        // given
+        StockDTO expectedStockDTO = StockDTOBuilder.builder().version(4L).build().toStockDTO();
+        Stock expectedStock = stockMapper.toModel(expectedStockDTO);
+        expectedStock.setVersion(expectedStockDTO.getVersion());
+        when(stockRepository.findById(expectedStockDTO.getId())).thenReturn(Optional.of(expectedStock));
+
+        // when
+        StockDTO firstIncrementDTO = stockLedger.increment(expectedStockDTO.getId(), 5);
+        // a flush has bumped the stored version once since the entry was loaded
+        StockDTO storedStockDTO = StockDTOBuilder.builder().quantity(15).version(5L).build().toStockDTO();
+        StockDTO overlaidStockDTO = stockLedger.overlay(storedStockDTO);
+        StockDTO secondIncrementDTO = stockLedger.increment(expectedStockDTO.getId(), 1);
+
+        // then
+        assertThat(firstIncrementDTO.getVersion(), is(equalTo(5L)));
+        assertThat(overlaidStockDTO.getVersion(), is(equalTo(5L)));
+        assertThat(secondIncrementDTO.getVersion(), is(equalTo(6L)));
+        assertThat(secondIncrementDTO.getQuantity(), is(equalTo(16)));
+    }
+}
@@ -0,0 +1,66 @@
+package pw.angelo.stock.service.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pw.angelo.stock.exception.StockConcurrentUpdateException;
+import pw.angelo.stock.exception.StockLedgerUnsupportedException;
+import pw.angelo.stock.exception.StockSyncExpiredException;
+
+import java.time.Instant;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StockMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private StockMetrics stockMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        stockMetrics = new StockMetrics(meterRegistry);
+    }
+
+    @Test
+    void whenRecordedCallFailsThenItIsTimedWithTheOutcomeOfItsException() {
+        // when
+        assertThrows(StockConcurrentUpdateException.class, () -> stockMetrics.record(StockMetrics.INCREMENT, () -> {
+            throw new StockConcurrentUpdateException(1L, 3);
+        }));
+        assertThrows(StockLedgerUnsupportedException.class, () -> stockMetrics.record(StockMetrics.SEARCH, () -> {
+            throw new StockLedgerUnsupportedException("Search");
+        }));
+
+        // then
+        assertThat(countOf(StockMetrics.INCREMENT, "concurrent-update"), is(equalTo(1L)));
+        assertThat(countOf(StockMetrics.SEARCH, "unsupported-mode"), is(equalTo(1L)));
+    }
+
+    @Test
+    void whenStartedTimingIsStoppedThenItIsTaggedWithTheReportedFailure() {
+        // given
+        StockMetrics.Timing failedTiming = stockMetrics.start(StockMetrics.SYNC);
+        StockMetrics.Timing succeededTiming = stockMetrics.start(StockMetrics.SYNC);
+
+        // when
+        failedTiming.failed(new StockSyncExpiredException(Instant.EPOCH, Instant.now()));
+        failedTiming.stop();
+        succeededTiming.stop();
+
+        // then
+        assertThat(countOf(StockMetrics.SYNC, "sync-expired"), is(equalTo(1L)));
+        assertThat(countOf(StockMetrics.SYNC, "success"), is(equalTo(1L)));
+    }
+
+    private long countOf(String operation, String outcome) {
+        return meterRegistry.get("stock.operations")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+}
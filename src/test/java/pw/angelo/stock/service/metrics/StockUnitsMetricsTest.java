@@ -0,0 +1,68 @@
+package pw.angelo.stock.service.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import pw.angelo.stock.dto.StockTypeUnitsDTO;
+import pw.angelo.stock.enums.StockType;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.index.StockReadIndex;
+
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StockUnitsMetricsTest {
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @Mock
+    private ObjectProvider<StockReadIndex> stockReadIndex;
+
+    @Test
+    void whenUnitsAreRefreshedThenEveryTypeGaugeIsUpdated() {
+        // given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StockUnitsMetrics stockUnitsMetrics = new StockUnitsMetrics(stockRepository, stockReadIndex, meterRegistry);
+
+        // when
+        when(stockRepository.sumQuantityByType()).thenReturn(Collections.singletonList(new StockTypeUnitsDTO(StockType.IPA, 42L)));
+        stockUnitsMetrics.refresh();
+
+        // then
+        assertThat(meterRegistry.get("stock.units").tag("type", StockType.IPA.name()).gauge().value(), is(equalTo(42.0)));
+        assertThat(meterRegistry.get("stock.units").tag("type", StockType.LAGER.name()).gauge().value(), is(equalTo(0.0)));
+    }
+
+    @Test
+    void whenReadIndexIsReadyThenGaugesAreUpdatedFromItsTotals() {
+        // given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StockUnitsMetrics stockUnitsMetrics = new StockUnitsMetrics(stockRepository, stockReadIndex, meterRegistry);
+        StockReadIndex index = mock(StockReadIndex.class);
+
+        // when
+        when(stockReadIndex.getIfAvailable()).thenReturn(index);
+        when(index.isReady()).thenReturn(true);
+        when(index.unitsOf(any(StockType.class))).thenReturn(0L);
+        when(index.unitsOf(StockType.STOUT)).thenReturn(7L);
+        stockUnitsMetrics.refresh();
+
+        // then
+        assertThat(meterRegistry.get("stock.units").tag("type", StockType.STOUT.name()).gauge().value(), is(equalTo(7.0)));
+        assertThat(meterRegistry.get("stock.units").tag("type", StockType.IPA.name()).gauge().value(), is(equalTo(0.0)));
+        verify(stockRepository, never()).sumQuantityByType();
+    }
+}
@@ -0,0 +1,80 @@
+package pw.angelo.stock.service.ratelimit;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.exception.StockServiceBusyException;
+import pw.angelo.stock.service.async.StockRequestExecutor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StockLoadShedderTest {
+
+    @Mock
+    private HikariDataSource dataSource;
+
+    @Mock
+    private HikariPoolMXBean pool;
+
+    @Mock
+    private StockRequestExecutor stockRequestExecutor;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private StockLoadShedder stockLoadShedder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(true);
+        when(dataSource.unwrap(HikariDataSource.class)).thenReturn(dataSource);
+        when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+        StockProperties stockProperties = new StockProperties();
+        stockProperties.getLoadShedding().setEnabled(true);
+        stockProperties.getLoadShedding().setMaxPendingConnections(5);
+        stockProperties.getLoadShedding().setMaxQueuedRequests(10);
+        stockLoadShedder = new StockLoadShedder(stockProperties, dataSource, stockRequestExecutor, meterRegistry);
+    }
+
+    @Test
+    void whenBacklogIsBelowThresholdsThenWritesAreAdmitted() {
+        // when
+        when(pool.getThreadsAwaitingConnection()).thenReturn(5);
+        when(stockRequestExecutor.queuedRequests()).thenReturn(10);
+
+        // then
+        assertDoesNotThrow(() -> stockLoadShedder.admit());
+    }
+
+    @Test
+    void whenTooManyThreadsWaitForAConnectionThenWritesAreShed() {
+        // when
+        when(pool.getThreadsAwaitingConnection()).thenReturn(6);
+
+        // then
+        assertThrows(StockServiceBusyException.class, () -> stockLoadShedder.admit());
+        assertThat(meterRegistry.get("stock.loadshedding.rejected").tag("reason", StockLoadShedder.DB_POOL).counter().count(), is(equalTo(1.0)));
+    }
+
+    @Test
+    void whenTooManyCallsAreQueuedThenWritesAreShed() {
+        // when
+        when(pool.getThreadsAwaitingConnection()).thenReturn(0);
+        when(stockRequestExecutor.queuedRequests()).thenReturn(11);
+
+        // then
+        assertThrows(StockServiceBusyException.class, () -> stockLoadShedder.admit());
+        assertThat(meterRegistry.get("stock.loadshedding.rejected").tag("reason", StockLoadShedder.REQUEST_QUEUE).counter().count(), is(equalTo(1.0)));
+    }
+}
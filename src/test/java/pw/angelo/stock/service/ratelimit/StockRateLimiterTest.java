@@ -0,0 +1,142 @@
+package pw.angelo.stock.service.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.exception.StockRateLimitedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StockRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void whenClientExceedsBurstThenFurtherCallsAreRejectedUntilTokensRefill() throws Exception {
+        // given
+        StockRateLimiter rateLimiter = rateLimiter(10, 3);
+
+        // when
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire("client-a", "increment");
+        }
+
+        // then
+        StockRateLimitedException exception = assertThrows(StockRateLimitedException.class, () -> rateLimiter.acquire("client-a", "increment"));
+        assertThat(exception.getRetryAfterSeconds(), is(equalTo(1L)));
+        assertThat(meterRegistry.get("stock.ratelimit.rejected").tag("endpoint", "increment").counter().count(), is(equalTo(1.0)));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertDoesNotThrow(() -> rateLimiter.acquire("client-a", "increment"));
+        assertThrows(StockRateLimitedException.class, () -> rateLimiter.acquire("client-a", "increment"));
+    }
+
+    @Test
+    void whenOneClientIsLimitedThenOtherClientsAndEndpointsAreNot() throws Exception {
+        // given
+        StockRateLimiter rateLimiter = rateLimiter(1, 1);
+
+        // when
+        rateLimiter.acquire("client-a", "increment");
+
+        // then
+        assertThrows(StockRateLimitedException.class, () -> rateLimiter.acquire("client-a", "increment"));
+        assertDoesNotThrow(() -> rateLimiter.acquire("client-b", "increment"));
+        assertDoesNotThrow(() -> rateLimiter.acquire("client-a", "deleteById"));
+    }
+
+    @Test
+    void whenEndpointHasItsOwnLimitThenItOverridesTheDefault() throws Exception {
+        // given
+        StockProperties stockProperties = properties(100, 100);
+        StockProperties.Limit incrementLimit = new StockProperties.Limit();
+        incrementLimit.setPermitsPerSecond(1);
+        incrementLimit.setBurst(2);
+        stockProperties.getRateLimit().getEndpoints().put("increment", incrementLimit);
+        StockRateLimiter rateLimiter = new StockRateLimiter(stockProperties, meterRegistry, now::get);
+
+        // when
+        rateLimiter.acquire("client-a", "increment");
+        rateLimiter.acquire("client-a", "increment");
+
+        // then
+        assertThrows(StockRateLimitedException.class, () -> rateLimiter.acquire("client-a", "increment"));
+    }
+
+    @Test
+    void whenBucketsRefillThenTheyAreEvicted() throws Exception {
+        // given
+        StockRateLimiter rateLimiter = rateLimiter(10, 5);
+        rateLimiter.acquire("client-a", "increment");
+        rateLimiter.acquire("client-b", "increment");
+
+        // when
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        rateLimiter.evictRefilledBuckets();
+
+        // then
+        assertThat(rateLimiter.trackedBuckets(), is(equalTo(0)));
+    }
+
+    @Test
+    void whenManyThreadsAcquireConcurrentlyThenExactlyTheBurstIsGranted() throws Exception {
+        // given
+        StockRateLimiter rateLimiter = rateLimiter(1, 1000);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> granted = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < threads; i++) {
+            granted.add(executor.submit(() -> {
+                start.await();
+                int count = 0;
+                for (int attempt = 0; attempt < 500; attempt++) {
+                    try {
+                        rateLimiter.acquire("client-a", "increment");
+                        count++;
+                    } catch (StockRateLimitedException e) {
+                        // over the limit
+                    }
+                }
+                return count;
+            }));
+        }
+        start.countDown();
+        int total = 0;
+        for (Future<Integer> future : granted) {
+            total += future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertThat(total, is(equalTo(1000)));
+    }
+
+    private StockRateLimiter rateLimiter(double permitsPerSecond, int burst) {
+        return new StockRateLimiter(properties(permitsPerSecond, burst), meterRegistry, now::get);
+    }
+
+    private static StockProperties properties(double permitsPerSecond, int burst) {
+        StockProperties stockProperties = new StockProperties();
+        stockProperties.getRateLimit().setEnabled(true);
+        stockProperties.getRateLimit().getDefaultLimit().setPermitsPerSecond(permitsPerSecond);
+        stockProperties.getRateLimit().getDefaultLimit().setBurst(burst);
+        return stockProperties;
+    }
+}
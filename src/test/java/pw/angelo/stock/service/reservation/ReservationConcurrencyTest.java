@@ -0,0 +1,119 @@
+package pw.angelo.stock.service.reservation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.dto.ReservationDTO;
+import pw.angelo.stock.dto.ReservationRequestDTO;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.entity.Reservation;
+import pw.angelo.stock.exception.ReservationNotFoundException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.repository.ReservationRepository;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.StockService;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+public class ReservationConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int RESERVATIONS_PER_THREAD = 25;
+    private static final int STOCK_QUANTITY = 100;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @AfterEach
+    void tearDown() {
+        reservationRepository.deleteAll();
+        stockRepository.deleteAll();
+    }
+
+    @Test
+    void whenActiveReservationIsPastItsExpiryThenItCannotBeConfirmed() throws Exception {
+        // given
+        StockDTO stockDTO = stockService.createStock(StockDTOBuilder.builder().id(null).name("expiring").build().toStockDTO());
+        ReservationDTO reservationDTO = reservationService.reserve(stockDTO.getId(), new ReservationRequestDTO(4, null));
+        Reservation reservation = reservationRepository.findById(reservationDTO.getId()).orElseThrow();
+        reservation.setExpiresAt(Instant.now().minusSeconds(1));
+        reservationRepository.save(reservation);
+
+        // then
+        assertThrows(ReservationNotFoundException.class, () -> reservationService.confirm(reservationDTO.getId()));
+        assertThat(stockRepository.findById(stockDTO.getId()).orElseThrow().getQuantity(), is(equalTo(stockDTO.getQuantity())));
+        assertThat(reservationService.expire(reservationDTO.getId()), is(true));
+    }
+
+    @Test
+    void whenStockIsReservedConcurrentlyThenItIsNeverOversold() throws Exception {
+        // given
+        StockDTO stockDTO = stockService.createStock(StockDTOBuilder.builder()
+                .id(null)
+                .name("reserved")
+                .max(500)
+                .quantity(STOCK_QUANTITY)
+                .build()
+                .toStockDTO());
+        Queue<ReservationDTO> reservations = new ConcurrentLinkedQueue<>();
+
+        // when
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < RESERVATIONS_PER_THREAD; i++) {
+                        try {
+                            reservations.add(reservationService.reserve(stockDTO.getId(), new ReservationRequestDTO(1, null)));
+                        } catch (StockInsufficientException e) {
+                            // sold out
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // then
+        assertThat(reservations.size(), is(equalTo(STOCK_QUANTITY)));
+        assertThat(reservationService.availability(stockDTO.getId()).getAvailable(), is(equalTo(0)));
+        assertThrows(StockInsufficientException.class, () -> stockService.increment(stockDTO.getId(), -1));
+
+        ReservationDTO confirmedReservation = reservations.poll();
+        reservationService.confirm(confirmedReservation.getId());
+        reservations.forEach(reservation -> reservationService.expire(reservation.getId()));
+
+        assertThat(reservationService.availability(stockDTO.getId()).getReserved(), is(equalTo(0)));
+        assertThat(reservationService.availability(stockDTO.getId()).getQuantity(), is(equalTo(STOCK_QUANTITY - 1)));
+    }
+}
@@ -0,0 +1,27 @@
+package pw.angelo.stock.service.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class ReservationExpiryQueueTest {
+
+    @Test
+    void whenQueueIsDrainedThenOnlyExpiredReservationsAreReturnedInDeadlineOrder() {
+        ReservationExpiryQueue reservationExpiryQueue = new ReservationExpiryQueue();
+        Instant now = Instant.now();
+
+        reservationExpiryQueue.schedule(1L, now.plus(Duration.ofMinutes(5)));
+        reservationExpiryQueue.schedule(2L, now.minus(Duration.ofSeconds(1)));
+        reservationExpiryQueue.schedule(3L, now.minus(Duration.ofSeconds(2)));
+
+        assertThat(reservationExpiryQueue.drainExpired(), contains(3L, 2L));
+        assertThat(reservationExpiryQueue.size(), is(equalTo(1)));
+    }
+}
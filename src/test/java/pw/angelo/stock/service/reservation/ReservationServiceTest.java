@@ -0,0 +1,242 @@
+package pw.angelo.stock.service.reservation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.AvailabilityDTO;
+import pw.angelo.stock.dto.ReservationDTO;
+import pw.angelo.stock.dto.ReservationRequestDTO;
+import pw.angelo.stock.entity.Reservation;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.enums.ReservationStatus;
+import pw.angelo.stock.exception.ReservationNotFoundException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.exception.StockNotFoundException;
+import pw.angelo.stock.exception.StockLedgerUnsupportedException;
+import pw.angelo.stock.exception.StockShardingUnsupportedException;
+import pw.angelo.stock.mapper.StockMapper;
+import pw.angelo.stock.repository.ReservationRepository;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.service.cache.StockNameCache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReservationServiceTest {
+
+    private static final long STOCK_ID = 1L;
+    private static final long RESERVATION_ID = 10L;
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ReservationExpiryQueue reservationExpiryQueue;
+
+    private StockProperties stockProperties;
+
+    private ReservationService reservationService;
+
+    private StockMapper stockMapper = StockMapper.INSTANCE;
+
+    @BeforeEach
+    void setUp() {
+        stockProperties = new StockProperties();
+        reservationExpiryQueue = new ReservationExpiryQueue();
+        reservationService = new ReservationService(reservationRepository,
+                stockRepository,
+                reservationExpiryQueue,
+                new StockNameCache(stockProperties, new SimpleMeterRegistry()),
+                stockProperties,
+                eventPublisher);
+    }
+
+    @Test
+    void whenAvailableQuantityIsReservedThenReservationIsCreatedAndScheduledToExpire() throws StockNotFoundException, StockInsufficientException, StockShardingUnsupportedException, StockLedgerUnsupportedException {
+        // when
+        when(stockRepository.reserveQuantity(STOCK_ID, 5)).thenReturn(1);
+        when(reservationRepository.save(any(Reservation.class))).thenAnswer(invocation -> {
+            Reservation reservation = invocation.getArgument(0);
+            reservation.setId(RESERVATION_ID);
+            return reservation;
+        });
+
+        // then
+        ReservationDTO reservationDTO = reservationService.reserve(STOCK_ID, new ReservationRequestDTO(5, null));
+
+        assertThat(reservationDTO.getId(), is(equalTo(RESERVATION_ID)));
+        assertThat(reservationDTO.getStatus(), is(equalTo(ReservationStatus.ACTIVE)));
+        assertThat(reservationExpiryQueue.size(), is(equalTo(1)));
+    }
+
+    @Test
+    void whenReservationIsMadeInTransactionThenItIsScheduledOnlyAfterCommit() throws StockNotFoundException, StockInsufficientException, StockShardingUnsupportedException, StockLedgerUnsupportedException {
+        // given
+        when(stockRepository.reserveQuantity(STOCK_ID, 5)).thenReturn(1);
+        when(reservationRepository.save(any(Reservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // when
+            reservationService.reserve(STOCK_ID, new ReservationRequestDTO(5, null));
+
+            // then
+            assertThat(reservationExpiryQueue.size(), is(equalTo(0)));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(reservationExpiryQueue.size(), is(equalTo(1)));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void whenRequestedTtlIsAboveMaxTtlThenItIsClamped() throws StockNotFoundException, StockInsufficientException, StockShardingUnsupportedException, StockLedgerUnsupportedException {
+        Duration maxTtl = stockProperties.getReservation().getMaxTtl();
+        when(stockRepository.reserveQuantity(STOCK_ID, 5)).thenReturn(1);
+        when(reservationRepository.save(any(Reservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ReservationDTO reservationDTO = reservationService.reserve(STOCK_ID, new ReservationRequestDTO(5, maxTtl.getSeconds() * 10));
+
+        assertThat(reservationDTO.getExpiresAt(), is(lessThanOrEqualTo(Instant.now().plus(maxTtl))));
+    }
+
+    @Test
+    void whenNotEnoughStockIsAvailableThenThrowException() {
+        Stock stock = stockMapper.toModel(StockDTOBuilder.builder().build().toStockDTO());
+
+        when(stockRepository.reserveQuantity(STOCK_ID, 50)).thenReturn(0);
+        when(stockRepository.findById(STOCK_ID)).thenReturn(Optional.of(stock));
+
+        assertThrows(StockInsufficientException.class, () -> reservationService.reserve(STOCK_ID, new ReservationRequestDTO(50, null)));
+        verify(reservationRepository, never()).save(any(Reservation.class));
+    }
+
+    @Test
+    void whenStockToReserveDoesNotExistThenThrowException() {
+        when(stockRepository.reserveQuantity(STOCK_ID, 5)).thenReturn(0);
+        when(stockRepository.findById(STOCK_ID)).thenReturn(Optional.empty());
+
+        assertThrows(StockNotFoundException.class, () -> reservationService.reserve(STOCK_ID, new ReservationRequestDTO(5, null)));
+    }
+
+    @Test
+    void whenActiveReservationIsConfirmedThenReservedQuantityIsConsumed() throws ReservationNotFoundException, StockShardingUnsupportedException, StockLedgerUnsupportedException {
+        // given
+        Reservation reservation = new Reservation(RESERVATION_ID, STOCK_ID, 5, ReservationStatus.CONFIRMED, Instant.now());
+
+        // when
+        when(reservationRepository.updateStatusBeforeExpiry(eq(RESERVATION_ID), eq(ReservationStatus.ACTIVE), eq(ReservationStatus.CONFIRMED), any(Instant.class))).thenReturn(1);
+        when(reservationRepository.findById(RESERVATION_ID)).thenReturn(Optional.of(reservation));
+        when(stockRepository.consumeReservedQuantity(STOCK_ID, 5)).thenReturn(1);
+
+        // then
+        ReservationDTO reservationDTO = reservationService.confirm(RESERVATION_ID);
+
+        assertThat(reservationDTO.getStatus(), is(equalTo(ReservationStatus.CONFIRMED)));
+        verify(stockRepository).consumeReservedQuantity(STOCK_ID, 5);
+    }
+
+    @Test
+    void whenReservationIsNoLongerActiveOrPastItsExpiryThenConfirmThrowsException() {
+        Instant calledAt = Instant.now();
+        when(reservationRepository.updateStatusBeforeExpiry(eq(RESERVATION_ID), eq(ReservationStatus.ACTIVE), eq(ReservationStatus.CONFIRMED), any(Instant.class))).thenReturn(0);
+
+        assertThrows(ReservationNotFoundException.class, () -> reservationService.confirm(RESERVATION_ID));
+        verify(reservationRepository).updateStatusBeforeExpiry(eq(RESERVATION_ID), eq(ReservationStatus.ACTIVE), eq(ReservationStatus.CONFIRMED),
+                argThat(now -> !now.isBefore(calledAt)));
+        verify(stockRepository, never()).consumeReservedQuantity(STOCK_ID, 5);
+    }
+
+    @Test
+    void whenActiveReservationIsReleasedThenReservedQuantityIsReturned() throws ReservationNotFoundException, StockShardingUnsupportedException, StockLedgerUnsupportedException {
+        Reservation reservation = new Reservation(RESERVATION_ID, STOCK_ID, 5, ReservationStatus.RELEASED, Instant.now());
+
+        when(reservationRepository.updateStatus(RESERVATION_ID, ReservationStatus.ACTIVE, ReservationStatus.RELEASED)).thenReturn(1);
+        when(reservationRepository.findById(RESERVATION_ID)).thenReturn(Optional.of(reservation));
+
+        reservationService.release(RESERVATION_ID);
+
+        verify(stockRepository).releaseReservedQuantity(STOCK_ID, 5);
+    }
+
+    @Test
+    void whenAlreadyConfirmedReservationExpiresThenNothingIsReleased() {
+        when(reservationRepository.updateStatus(RESERVATION_ID, ReservationStatus.ACTIVE, ReservationStatus.EXPIRED)).thenReturn(0);
+
+        assertFalse(reservationService.expire(RESERVATION_ID));
+        verify(stockRepository, never()).releaseReservedQuantity(STOCK_ID, 5);
+    }
+
+    @Test
+    void whenActiveReservationExpiresThenReservedQuantityIsReturned() {
+        Reservation reservation = new Reservation(RESERVATION_ID, STOCK_ID, 5, ReservationStatus.EXPIRED, Instant.now());
+
+        when(reservationRepository.updateStatus(RESERVATION_ID, ReservationStatus.ACTIVE, ReservationStatus.EXPIRED)).thenReturn(1);
+        when(reservationRepository.findById(RESERVATION_ID)).thenReturn(Optional.of(reservation));
+
+        assertTrue(reservationService.expire(RESERVATION_ID));
+        verify(stockRepository).releaseReservedQuantity(STOCK_ID, 5);
+    }
+
+    @Test
+    void whenShardingIsEnabledThenReservationsAreRefused() {
+        // given
+        stockProperties.getSharding().setEnabled(true);
+
+        // then
+        assertThrows(StockShardingUnsupportedException.class, () -> reservationService.reserve(STOCK_ID, new ReservationRequestDTO(5, null)));
+        verify(stockRepository, never()).reserveQuantity(STOCK_ID, 5);
+    }
+
+    @Test
+    void whenLedgerIsEnabledThenReservationsAreRefused() {
+        // given
+        stockProperties.getLedger().setEnabled(true);
+
+        // then
+        assertThrows(StockLedgerUnsupportedException.class, () -> reservationService.reserve(STOCK_ID, new ReservationRequestDTO(5, null)));
+        assertThrows(StockLedgerUnsupportedException.class, () -> reservationService.confirm(RESERVATION_ID));
+        verify(stockRepository, never()).reserveQuantity(STOCK_ID, 5);
+        verify(reservationRepository, never()).updateStatusBeforeExpiry(eq(RESERVATION_ID), eq(ReservationStatus.ACTIVE), eq(ReservationStatus.CONFIRMED), any(Instant.class));
+    }
+
+    @Test
+    void whenAvailabilityIsRequestedThenReservedQuantityIsSubtracted() throws StockNotFoundException, StockShardingUnsupportedException, StockLedgerUnsupportedException {
+        Stock stock = stockMapper.toModel(StockDTOBuilder.builder().build().toStockDTO());
+        stock.setReserved(4);
+
+        when(stockRepository.findById(STOCK_ID)).thenReturn(Optional.of(stock));
+
+        AvailabilityDTO availabilityDTO = reservationService.availability(STOCK_ID);
+
+        assertThat(availabilityDTO.getAvailable(), is(equalTo(stock.getQuantity() - 4)));
+    }
+}
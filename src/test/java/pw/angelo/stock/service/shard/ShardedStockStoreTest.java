@@ -0,0 +1,147 @@
+package pw.angelo.stock.service.shard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.exception.StockAlreadyRegisteredException;
+import pw.angelo.stock.exception.StockExceededException;
+import pw.angelo.stock.exception.StockInsufficientException;
+import pw.angelo.stock.exception.StockNotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ShardedStockStoreTest {
+
+    private static final int SHARDS = 4;
+
+    private ShardedStockStore shardedStockStore;
+
+    @BeforeEach
+    void setUp() {
+        StockProperties stockProperties = new StockProperties();
+        stockProperties.getSharding().setShards(SHARDS);
+        // a fresh set of databases per test
+        stockProperties.getSharding().setUrlTemplate("jdbc:h2:mem:shard-test-" + UUID.randomUUID() + "-%d;DB_CLOSE_DELAY=-1");
+        shardedStockStore = new ShardedStockStore(stockProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        shardedStockStore.close();
+    }
+
+    @Test
+    void whenStocksAreCreatedThenEachCanBeFoundByNameAndIdOnItsShard() throws StockAlreadyRegisteredException {
+        // given
+        List<StockDTO> created = createStocks(20);
+
+        // then
+        for (StockDTO stockDTO : created) {
+            assertThat(shardedStockStore.findByName(stockDTO.getName()).orElseThrow(), is(equalTo(stockDTO)));
+            assertThat(shardedStockStore.findById(stockDTO.getId()).orElseThrow(), is(equalTo(stockDTO)));
+        }
+        assertThat(created.stream().map(stockDTO -> stockDTO.getId() % SHARDS).distinct().count(), is(equalTo((long) SHARDS)));
+    }
+
+    @Test
+    void whenAllStocksAreListedThenEveryShardIsMergedInIdOrder() throws StockAlreadyRegisteredException {
+        // given
+        List<StockDTO> created = createStocks(50);
+
+        // when
+        List<StockDTO> listed = shardedStockStore.findAll();
+
+        // then
+        List<StockDTO> expected = created.stream()
+                .sorted((first, second) -> Long.compare(first.getId(), second.getId()))
+                .collect(Collectors.toList());
+        assertThat(listed, is(equalTo(expected)));
+    }
+
+    @Test
+    void whenPageIsListedThenItHoldsTheLowestIdsAfterTheCursorAcrossShards() throws StockAlreadyRegisteredException {
+        // given
+        List<StockDTO> created = createStocks(30);
+        List<StockDTO> expected = created.stream()
+                .sorted((first, second) -> Long.compare(first.getId(), second.getId()))
+                .collect(Collectors.toList());
+
+        // when
+        List<StockDTO> page = shardedStockStore.findPage(expected.get(9).getId(), 10);
+
+        // then
+        assertThat(page, is(equalTo(expected.subList(10, 20))));
+    }
+
+    @Test
+    void whenAlreadyRegisteredNameIsCreatedThenExceptionIsThrown() throws StockAlreadyRegisteredException {
+        // given
+        StockDTO stockDTO = StockDTOBuilder.builder().build().toStockDTO();
+
+        // when
+        shardedStockStore.create(stockDTO);
+
+        // then
+        assertThrows(StockAlreadyRegisteredException.class, () -> shardedStockStore.create(stockDTO));
+    }
+
+    @Test
+    void whenIncrementIsWithinLimitsThenQuantityAndVersionAreUpdated() throws Exception {
+        // given
+        StockDTO created = shardedStockStore.create(StockDTOBuilder.builder().build().toStockDTO());
+
+        // when
+        StockDTO incremented = shardedStockStore.increment(created.getId(), 10);
+
+        // then
+        assertThat(incremented.getQuantity(), is(equalTo(created.getQuantity() + 10)));
+        assertThat(incremented.getVersion(), is(equalTo(1L)));
+    }
+
+    @Test
+    void whenIncrementBreaksLimitsThenTheMatchingExceptionIsThrown() throws StockAlreadyRegisteredException {
+        // given
+        StockDTO created = shardedStockStore.create(StockDTOBuilder.builder().build().toStockDTO());
+
+        // then
+        assertThrows(StockExceededException.class, () -> shardedStockStore.increment(created.getId(), created.getMax()));
+        assertThrows(StockInsufficientException.class, () -> shardedStockStore.increment(created.getId(), -created.getQuantity() - 1));
+        assertThrows(StockNotFoundException.class, () -> shardedStockStore.increment(created.getId() + SHARDS, 1));
+        assertThat(shardedStockStore.findById(created.getId()).orElseThrow().getQuantity(), is(equalTo(created.getQuantity())));
+    }
+
+    @Test
+    void whenStockIsDeletedThenItIsReturnedOnceAndNoLongerFound() throws StockAlreadyRegisteredException {
+        // given
+        StockDTO created = shardedStockStore.create(StockDTOBuilder.builder().build().toStockDTO());
+
+        // when
+        assertThat(shardedStockStore.deleteById(created.getId()).orElseThrow(), is(equalTo(created)));
+
+        // then
+        assertTrue(shardedStockStore.deleteById(created.getId()).isEmpty());
+        assertTrue(shardedStockStore.findByName(created.getName()).isEmpty());
+        assertThat(shardedStockStore.findAll(), hasSize(0));
+    }
+
+    private List<StockDTO> createStocks(int count) throws StockAlreadyRegisteredException {
+        List<StockDTO> created = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            created.add(shardedStockStore.create(StockDTOBuilder.builder().id(null).name("stock-" + i).build().toStockDTO()));
+        }
+        return created;
+    }
+}
@@ -0,0 +1,90 @@
+package pw.angelo.stock.service.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.mapper.StockMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StockSnapshotTest {
+
+    private static final Instant TAKEN_AT = Instant.parse("2020-06-01T10:15:30Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenSnapshotIsWrittenThenItIsReadBackWithEveryColumnButReserved() throws IOException {
+        // given
+        Path path = directory.resolve("catalog.snapshot");
+        Stock brahma = StockMapper.INSTANCE.toModel(StockDTOBuilder.builder().lowWatermark(5).highWatermark(40).build().toStockDTO());
+        brahma.setReserved(2);
+        brahma.setVersion(3);
+        Stock nandu = StockMapper.INSTANCE.toModel(StockDTOBuilder.builder().id(51L).name("Cerveja Ñandú").quantity(0).build().toStockDTO());
+        List<Stock> stocks = Arrays.asList(brahma, nandu);
+
+        // when
+        int written = StockSnapshot.write(path, TAKEN_AT, stocks::forEach);
+        StockSnapshot snapshot = StockSnapshot.read(path);
+
+        // then
+        List<Stock> read = new ArrayList<>();
+        snapshot.forEach(read::add);
+        assertThat(written, is(equalTo(2)));
+        assertThat(snapshot.size(), is(equalTo(2)));
+        assertThat(snapshot.getTakenAt(), is(equalTo(TAKEN_AT)));
+        brahma.setReserved(0);
+        assertThat(read, is(equalTo(stocks)));
+        assertFalse(Files.exists(directory.resolve("catalog.snapshot.tmp")));
+    }
+
+    @Test
+    void whenSnapshotIsCorruptedThenReadingItFails() throws IOException {
+        // given
+        Path path = directory.resolve("catalog.snapshot");
+        StockSnapshot.write(path, TAKEN_AT, Arrays.asList(StockMapper.INSTANCE.toModel(StockDTOBuilder.builder().build().toStockDTO()))::forEach);
+
+        // when
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), 30);
+        }
+
+        // then
+        IOException exception = assertThrows(IOException.class, () -> StockSnapshot.read(path));
+        assertThat(exception.getMessage(), containsString("checksum"));
+    }
+
+    @Test
+    void whenFileIsNotASnapshotOfThisFormatThenReadingItFails() throws IOException {
+        // given
+        Path otherFile = directory.resolve("other.snapshot");
+        Files.write(otherFile, "definitely not a stock snapshot".getBytes());
+        Path newerFormat = directory.resolve("newer.snapshot");
+        StockSnapshot.write(newerFormat, TAKEN_AT, consumer -> { });
+        try (FileChannel channel = FileChannel.open(newerFormat, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, StockSnapshot.FORMAT_VERSION + 1), Integer.BYTES);
+        }
+
+        // then
+        assertThat(assertThrows(IOException.class, () -> StockSnapshot.read(otherFile)).getMessage(), containsString("not a stock snapshot"));
+        assertThat(assertThrows(IOException.class, () -> StockSnapshot.read(newerFormat)).getMessage(), containsString("format version"));
+    }
+}
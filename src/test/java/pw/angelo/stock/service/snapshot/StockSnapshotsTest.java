@@ -0,0 +1,158 @@
+package pw.angelo.stock.service.snapshot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.config.StockProperties;
+import pw.angelo.stock.dto.ReservationRequestDTO;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.entity.Stock;
+import pw.angelo.stock.repository.ReservationRepository;
+import pw.angelo.stock.repository.StockRepository;
+import pw.angelo.stock.repository.StockTombstoneRepository;
+import pw.angelo.stock.service.StockService;
+import pw.angelo.stock.service.reservation.ReservationService;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:snapshots;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "stock.snapshot.enabled=true",
+        "stock.snapshot.path=target/test-snapshots/stock-catalog.snapshot",
+        "stock.snapshot.write-on-shutdown=false",
+        "stock.sync.overlap=0s"
+})
+public class StockSnapshotsTest {
+
+    @Autowired
+    private StockSnapshots stockSnapshots;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private StockTombstoneRepository stockTombstoneRepository;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private StockProperties stockProperties;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        reservationRepository.deleteAll();
+        stockRepository.deleteAll();
+        stockTombstoneRepository.deleteAll();
+        Files.deleteIfExists(Paths.get(stockProperties.getSnapshot().getPath()));
+        // the context is shared, so a snapshot restored by one test must not stay warm for the next
+        stockSnapshots.onReadinessChanged(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+    }
+
+    @Test
+    void whenCatalogIsEmptyAtStartupThenItIsRestoredFromTheSnapshot() throws Exception {
+        // given
+        StockDTO brahma = stockService.createStock(StockDTOBuilder.builder().id(null).name("Brahma").build().toStockDTO());
+        StockDTO skol = stockService.createStock(StockDTOBuilder.builder().id(null).name("Skol").build().toStockDTO());
+        stockSnapshots.write();
+        stockRepository.deleteAll();
+
+        // when
+        stockSnapshots.restore();
+
+        // then
+        assertThat(stockService.findByName("Brahma").getId(), is(equalTo(brahma.getId())));
+        assertThat(stockService.findByName("Skol").getQuantity(), is(equalTo(skol.getQuantity())));
+        StockDTO created = stockService.createStock(StockDTOBuilder.builder().id(null).name("Antarctica").build().toStockDTO());
+        assertThat(created.getId(), is(greaterThan(skol.getId())));
+        assertThat(warmNames(), containsInAnyOrder("Brahma", "Skol", "Antarctica"));
+    }
+
+    @Test
+    void whenSnapshotHoldsReservedStockThenItIsRestoredWithNothingReserved() throws Exception {
+        // given
+        StockDTO brahma = stockService.createStock(StockDTOBuilder.builder().id(null).name("Brahma").build().toStockDTO());
+        reservationService.reserve(brahma.getId(), ReservationRequestDTO.builder().quantity(4).build());
+        stockSnapshots.write();
+        reservationRepository.deleteAll();
+        stockRepository.deleteAll();
+
+        // when
+        stockSnapshots.restore();
+
+        // then
+        Stock restored = stockRepository.findById(brahma.getId()).orElseThrow();
+        assertThat(restored.getReserved(), is(equalTo(0)));
+        assertThat(restored.getQuantity(), is(equalTo(brahma.getQuantity())));
+    }
+
+    @Test
+    void whenCatalogIsPresentAtStartupThenChangesSinceTheSnapshotAreReplayed() throws Exception {
+        // given
+        StockDTO brahma = stockService.createStock(StockDTOBuilder.builder().id(null).name("Brahma").build().toStockDTO());
+        StockDTO skol = stockService.createStock(StockDTOBuilder.builder().id(null).name("Skol").build().toStockDTO());
+        stockSnapshots.write();
+        Thread.sleep(5);
+
+        // when
+        stockService.increment(brahma.getId(), 7);
+        stockService.deleteById(skol.getId());
+        stockService.createStock(StockDTOBuilder.builder().id(null).name("Antarctica").build().toStockDTO());
+        stockSnapshots.restore();
+
+        // then
+        List<StockDTO> warmStocks = new ArrayList<>();
+        assertTrue(stockSnapshots.forEachWarmStock(warmStocks::add));
+        assertThat(warmStocks.stream().map(StockDTO::getName).collect(Collectors.toList()), containsInAnyOrder("Brahma", "Antarctica"));
+        assertThat(warmStocks.stream().filter(stock -> stock.getName().equals("Brahma")).findFirst().orElseThrow().getQuantity(),
+                is(equalTo(brahma.getQuantity() + 7)));
+    }
+
+    @Test
+    void whenThereIsNoSnapshotThenStartupIsCold() {
+        // when
+        stockSnapshots.restore();
+
+        // then
+        assertFalse(stockSnapshots.forEachWarmStock(stock -> { }));
+    }
+
+    @Test
+    void whenLedgerIsEnabledThenSnapshotsAreRefused() {
+        // given
+        StockProperties ledgerProperties = new StockProperties();
+        ledgerProperties.getLedger().setEnabled(true);
+
+        // then
+        assertThrows(IllegalStateException.class, () -> new StockSnapshots(stockRepository, stockService, ledgerProperties, null));
+    }
+
+    private List<String> warmNames() {
+        List<String> names = new ArrayList<>();
+        stockSnapshots.forEachWarmStock(stock -> names.add(stock.getName()));
+        return names;
+    }
+}
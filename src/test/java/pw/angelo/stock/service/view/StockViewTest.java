@@ -0,0 +1,74 @@
+package pw.angelo.stock.service.view;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import pw.angelo.stock.builder.StockDTOBuilder;
+import pw.angelo.stock.dto.StockDTO;
+import pw.angelo.stock.event.StockChangedEvent;
+import pw.angelo.stock.service.snapshot.StockSnapshots;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(MockitoExtension.class)
+public class StockViewTest {
+
+    @Mock
+    private ObjectProvider<StockSnapshots> stockSnapshots;
+
+    private StockView<Set<String>> view;
+
+    @BeforeEach
+    void setUp() {
+        view = new StockView<>(new HashSet<>(), StockViewTest::apply, stockSnapshots);
+    }
+
+    @Test
+    void whenStocksChangeDuringRebuildThenTheChangesAreReplayedOntoIt() {
+        // given
+        StockDTO brahma = StockDTOBuilder.builder().id(1L).build().toStockDTO();
+        StockDTO skol = StockDTOBuilder.builder().id(2L).name("Skol").build().toStockDTO();
+        view.apply(StockChangedEvent.updated(StockDTOBuilder.builder().id(3L).name("Stale").build().toStockDTO()));
+
+        // when
+        view.rebuild(names -> new HashSet<>(), names -> {
+            names.add(brahma.getName());
+            view.apply(StockChangedEvent.deleted(brahma));
+            view.apply(StockChangedEvent.updated(skol));
+        });
+
+        // then
+        assertThat(view.current(), containsInAnyOrder("Skol"));
+    }
+
+    @Test
+    void whenRebuildFailsThenTheCurrentStructureIsKept() {
+        // given
+        view.apply(StockChangedEvent.updated(StockDTOBuilder.builder().id(1L).build().toStockDTO()));
+
+        // when
+        assertThrows(IllegalStateException.class, () -> view.rebuild(names -> new HashSet<>(), names -> {
+            throw new IllegalStateException("scan failed");
+        }));
+        view.apply(StockChangedEvent.updated(StockDTOBuilder.builder().id(2L).name("Skol").build().toStockDTO()));
+
+        // then
+        assertThat(view.current(), containsInAnyOrder("Brahma", "Skol"));
+    }
+
+    private static void apply(Set<String> names, StockChangedEvent event) {
+        if (event.isDeleted()) {
+            names.remove(event.getStock().getName());
+        } else {
+            names.add(event.getStock().getName());
+        }
+    }
+}